@@ -0,0 +1,97 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.UseBalance;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 조회 결과가 응답 dto가 되기까지 할당되는 메모리를 비교한다.
+ * ./gradlew jmh (gc profiler의 gc.alloc.rate.norm이 요청 하나당 할당량이다)
+ *
+ * - getAccountsByUserId: 엔티티 조회 후 AccountDto, AccountInfo로 두 번 복사하는 경로와 projection 경로
+ * - useBalance: 거래 저장 후 TransactionDto, UseBalance.Response로 복사하는 경로
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponsePathBenchmark {
+    private static final int ACCOUNT_COUNT = 10;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private AccountUserRepository accountUserRepository;
+    private TransactionService transactionService;
+
+    private Long userId;
+    private String accountNumber;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.redis.port=6392",
+                        "rate-limit.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        accountRepository = context.getBean(AccountRepository.class);
+        accountUserRepository = context.getBean(AccountUserRepository.class);
+        transactionService = context.getBean(TransactionService.class);
+
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("benchmark")
+                .build());
+        userId = accountUser.getId();
+
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accountRepository.save(Account.builder()
+                    .accountUser(accountUser)
+                    .accountNumber(String.valueOf(2_000_000_000L + i))
+                    .accountStatus(AccountStatus.IN_USE)
+                    .balance(Long.MAX_VALUE / 2)
+                    .registeredAt(LocalDateTime.now())
+                    .build());
+        }
+        accountNumber = String.valueOf(2_000_000_000L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AccountInfo> getAccountsByUserId_entity() {
+        AccountUser accountUser = accountUserRepository.findById(userId).get();
+        return accountRepository.findByAccountUser(accountUser).stream()
+                .map(AccountDto::fromEntity)
+                .map(AccountInfo::from)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<AccountInfo> getAccountsByUserId_projection() {
+        return accountRepository.findAccountInfosByUserId(userId);
+    }
+
+    @Benchmark
+    public UseBalance.Response useBalance() {
+        return UseBalance.Response.from(
+                transactionService.useBalance(userId, accountNumber, 1L));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.UseBalance;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 거래 요청/응답을 JSON과 CBOR로 직렬화/역직렬화할 때의 처리 시간을 비교한다.
+ * payload 크기는 setup에서 출력한다.
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+
+    private UseBalance.Request request;
+    private QueryTransactionResponse response;
+
+    private byte[] jsonRequest;
+    private byte[] cborRequest;
+    private byte[] jsonResponse;
+    private byte[] cborResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        // 애플리케이션의 converter와 같은 설정으로 만든다.
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+        request = new UseBalance.Request(1L, "1000000000", 1000L);
+        response = QueryTransactionResponse.builder()
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResult(S)
+                .transactionId("c5b2a5e8a0c84b0d9c4e0f3f4a3a1b2c")
+                .amount(1000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+
+        jsonRequest = jsonMapper.writeValueAsBytes(request);
+        cborRequest = cborMapper.writeValueAsBytes(request);
+        jsonResponse = jsonMapper.writeValueAsBytes(response);
+        cborResponse = cborMapper.writeValueAsBytes(response);
+
+        System.out.printf("%nrequest  payload: json=%d bytes, cbor=%d bytes%n",
+                jsonRequest.length, cborRequest.length);
+        System.out.printf("response payload: json=%d bytes, cbor=%d bytes%n",
+                jsonResponse.length, cborResponse.length);
+    }
+
+    @Benchmark
+    public byte[] serializeResponseJson() throws Exception {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeResponseCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public UseBalance.Request deserializeRequestJson() throws Exception {
+        return jsonMapper.readValue(jsonRequest, UseBalance.Request.class);
+    }
+
+    @Benchmark
+    public UseBalance.Request deserializeRequestCbor() throws Exception {
+        return cborMapper.readValue(cborRequest, UseBalance.Request.class);
+    }
+
+    @Benchmark
+    public QueryTransactionResponse deserializeResponseJson() throws Exception {
+        return jsonMapper.readValue(jsonResponse, QueryTransactionResponse.class);
+    }
+
+    @Benchmark
+    public QueryTransactionResponse deserializeResponseCbor() throws Exception {
+        return cborMapper.readValue(cborResponse, QueryTransactionResponse.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 거래 저장 시 hash chain을 잇는 비용(Account.chain)을 측정한다. 목표는 요청당 수 us 이내.
+ * ./gradlew jmh
+ * (DB까지 포함한 useBalance 전체 비용은 ResponsePathBenchmark.useBalance)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionHashChainBenchmark {
+    private Account account;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        account = Account.builder()
+                .id(1L)
+                .accountNumber("1000000000")
+                .balance(Long.MAX_VALUE / 2)
+                .build();
+        transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public String chain() {
+        account.chain(transaction);
+        return transaction.getHash();
+    }
+}
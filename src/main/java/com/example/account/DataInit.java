@@ -2,43 +2,37 @@ package com.example.account;
 
 import com.example.account.domain.AccountUser;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.shard.ShardContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class DataInit {
     private final AccountUserRepository accountUserRepository;
 
-    @PostConstruct
+    // 기동 시간에 포함되지 않도록 애플리케이션이 준비된 후에 한 번에 저장한다.
+    // 계좌가 어느 shard에 있어도 사용자를 확인할 수 있도록 모든 shard에 같은 사용자를 저장한다.
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
-        accountUserRepository.save(
-                AccountUser.builder()
-                        .name("Pororo")
-                        .createdAt(LocalDateTime.now())
-                        .updatedAt(LocalDateTime.now())
-                        .build()
-        );
-
-
-        accountUserRepository.save(
-                AccountUser.builder()
-                        .name("Eddie")
-                        .createdAt(LocalDateTime.now())
-                        .updatedAt(LocalDateTime.now())
-                        .build()
-        );
-        accountUserRepository.save(
-                AccountUser.builder()
-                        .name("Lupi")
-                        .createdAt(LocalDateTime.now())
-                        .updatedAt(LocalDateTime.now())
-                        .build()
-        );
+        ShardContext.forEachShard(() -> accountUserRepository.saveAll(List.of(
+                accountUser("Pororo"),
+                accountUser("Eddie"),
+                accountUser("Lupi")
+        )));
+    }
 
+    private AccountUser accountUser(String name) {
+        return AccountUser.builder()
+                .name(name)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
     }
 
 }
@@ -0,0 +1,92 @@
+package com.example.account.admission;
+
+import com.example.account.type.RequestPriority;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 응답 지연시간으로 동시 처리 한도(limit)를 조절한다. (TCP Vegas 방식 + 지연 초과 시 AIMD 감소)
+ * - 최소 지연시간(minRtt) 대비 현재 지연시간으로 대기열 길이를 추정해서, 짧으면 limit을 늘리고 길면 줄인다.
+ * - 지연시간이 maxLatency를 넘으면 limit을 비율(backoffRatio)로 크게 줄인다.
+ * limit을 넘는 요청은 기다리지 않고 바로 거절해서, DB/redis가 느려져도 스레드와 lock 대기열이 쌓이지 않게 한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double ALPHA = 3;
+    private static final double BETA = 6;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long maxLatencyNanos;
+    // 이 수만큼 sample이 쌓이면 minRtt를 다시 측정한다. (부하 특성이 바뀌어도 기준이 고정되지 않게)
+    private final int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(
+            int initialLimit, int minLimit, int maxLimit,
+            double backoffRatio, long maxLatencyNanos, int probeInterval) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.probeInterval = probeInterval;
+    }
+
+    /**
+     * 우선순위에 허용된 한도 안이면 처리 중 요청 수를 늘리고 true를 반환한다.
+     * true를 받은 요청은 반드시 release를 호출해야 한다.
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.getLimitShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        onSample(latencyNanos, current);
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlightAtCompletion) {
+        if (latencyNanos >= maxLatencyNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            return;
+        }
+        if (++samples >= probeInterval) {
+            samples = 0;
+            minRttNanos = latencyNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, latencyNanos);
+
+        double step = Math.max(1, Math.log10(limit));
+        double queue = limit * (1 - (double) minRttNanos / Math.max(1, latencyNanos));
+        if (queue <= ALPHA * step) {
+            // 한도의 절반도 쓰지 않고 있으면 늘릴 근거가 없다.
+            if (inFlightAtCompletion * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + step);
+            }
+        } else if (queue >= BETA * step) {
+            limit = Math.max(minLimit, limit - step);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.account.admission;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.RequestPriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.SERVER_OVERLOADED;
+
+/**
+ * 계좌/거래 API의 동시 처리 요청 수를 AdaptiveConcurrencyLimiter로 제한한다.
+ * 한도를 넘은 요청은 lock이나 DB 커넥션을 기다리지 않고 바로 SERVER_OVERLOADED로 응답한다.
+ * 혼잡할수록 조회 -> 사용/이체 등 변경 -> 취소/해제 순서로 거절된다.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private final ObjectMapper objectMapper;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${admission.initial-limit:20}")
+    private int initialLimit = 20;
+
+    @Value("${admission.min-limit:4}")
+    private int minLimit = 4;
+
+    @Value("${admission.max-limit:200}")
+    private int maxLimit = 200;
+
+    @Value("${admission.backoff-ratio:0.9}")
+    private double backoffRatio = 0.9;
+
+    @Value("${admission.max-latency-ms:1000}")
+    private long maxLatencyMs = 1000L;
+
+    @Value("${admission.probe-interval:1000}")
+    private int probeInterval = 1000;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                backoffRatio, TimeUnit.MILLISECONDS.toNanos(maxLatencyMs), probeInterval);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // 구독(SSE)은 연결이 오래 유지되므로 동시 처리 수에 넣지 않는다.
+        return !enabled
+                || !(path.startsWith("/account") || path.startsWith("/transaction"))
+                || path.equals("/account/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        RequestPriority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            log.debug("Rejected {} {} (limit : {}, in flight : {})", request.getMethod(),
+                    request.getRequestURI(), limiter.getLimit(), limiter.getInFlight());
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    static RequestPriority priorityOf(HttpServletRequest request) {
+        if ("GET".equals(request.getMethod())) {
+            return RequestPriority.READ;
+        }
+        String path = request.getRequestURI();
+        if (path.equals("/transaction/cancel") || path.equals("/transaction/release")) {
+            return RequestPriority.CANCEL;
+        }
+        return RequestPriority.WRITE;
+    }
+
+    // 다른 오류 응답과 같은 형식으로 보내고, 재시도 시점을 헤더로 알려준다.
+    // Retry-After는 503 응답에서만 의미가 있어서 상태 코드도 같이 내려준다.
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(SERVER_OVERLOADED, SERVER_OVERLOADED.getDescription()));
+    }
+}
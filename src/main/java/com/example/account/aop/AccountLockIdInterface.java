@@ -1,5 +1,21 @@
 package com.example.account.aop;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+
 public interface AccountLockIdInterface {
     String getAccountNumber();
+
+    // 사용자 정보가 없는 요청(취소 등)은 계좌 기준으로만 요청량을 제한한다.
+    default Long getUserId() {
+        return null;
+    }
+
+    // 여러 계좌를 함께 잠가야 하는 요청(이체 등)은 lock을 잡을 계좌를 모두 반환한다.
+    @JsonIgnore
+    default List<String> getAccountNumbers() {
+        return Collections.singletonList(getAccountNumber());
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.account.aop;
+
+import com.example.account.type.ShardKeyType;
+
+import java.lang.annotation.*;
+
+// 이 파라미터로 shard를 골라서 메소드(트랜잭션)를 실행한다. (ShardRoutingAspect)
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardKey {
+    ShardKeyType value() default ShardKeyType.ACCOUNT_NUMBER;
+}
@@ -0,0 +1,77 @@
+package com.example.account.audit;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionChainEntry;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 거래 하나의 hash = SHA-256(직전 거래의 hash | 거래 내용).
+ * 계좌별로 거래가 앞 거래의 hash를 물고 이어지므로, 중간 거래를 고치거나 지우면 그 뒤의 연결이 모두 어긋난다.
+ * 거래 시각은 DB 컬럼 정밀도와 관계없도록 ms 단위로 자른 값을 사용한다.
+ */
+public final class TransactionHashChain {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private TransactionHashChain() {
+    }
+
+    public static String hash(Transaction transaction) {
+        return hash(transaction.getPreviousHash(), transaction.getAccount().getId(),
+                transaction.getTransactionId(), transaction.getTransactionType(),
+                transaction.getTransactionResultType(), transaction.getAmount(),
+                transaction.getBalanceSnapshot(), transaction.getTransactedAt(),
+                transaction.getPairedTransactionId());
+    }
+
+    public static String hash(TransactionChainEntry entry) {
+        return hash(entry.getPreviousHash(), entry.getAccountId(),
+                entry.getTransactionId(), entry.getTransactionType(),
+                entry.getTransactionResultType(), entry.getAmount(),
+                entry.getBalanceSnapshot(), entry.getTransactedAt(),
+                entry.getPairedTransactionId());
+    }
+
+    static String hash(String previousHash, Long accountId, String transactionId,
+                       TransactionType transactionType, TransactionResultType transactionResultType,
+                       Long amount, Long balanceSnapshot, LocalDateTime transactedAt,
+                       String pairedTransactionId) {
+        String content = new StringBuilder(192)
+                .append(nullToEmpty(previousHash)).append('|')
+                .append(accountId).append('|')
+                .append(transactionId).append('|')
+                .append(transactionType).append('|')
+                .append(transactionResultType).append('|')
+                .append(amount).append('|')
+                .append(balanceSnapshot).append('|')
+                .append(transactedAt == null ? "" : transactedAt.truncatedTo(ChronoUnit.MILLIS))
+                .append('|')
+                .append(nullToEmpty(pairedTransactionId))
+                .toString();
+
+        byte[] digest = SHA_256.get().digest(content.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
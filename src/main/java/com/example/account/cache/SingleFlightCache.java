@@ -0,0 +1,101 @@
+package com.example.account.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 같은 key에 대한 동시 조회는 하나의 조회(in-flight)만 실행하고 결과를 나눠 갖는다.
+ * 조회가 끝난 결과는 짧은 시간(ttl) 동안 캐시해서, 같은 key의 polling은 ttl마다 한 번만 DB에 간다.
+ * 예외는 캐시하지 않는다. (Error로 끝난 조회도 기다리던 요청에 그대로 전달하고 다음 요청은 다시 조회한다)
+ */
+public class SingleFlightCache<K, V> {
+    private final long ttlNanos;
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public SingleFlightCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        long now = System.nanoTime();
+        Entry<V> candidate = new Entry<>();
+        Entry<V> entry = entries.compute(key,
+                (k, current) -> current != null && current.isValid(now) ? current : candidate);
+
+        if (entry == candidate) {
+            load(key, loader, candidate);
+        }
+        return entry.join();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void load(K key, Function<K, V> loader, Entry<V> entry) {
+        try {
+            entry.complete(loader.apply(key), System.nanoTime() + ttlNanos);
+        } catch (Throwable e) {
+            // 완료하지 않으면 같은 key를 기다리는 요청이 계속 대기한다.
+            entries.remove(key, entry);
+            entry.fail(e);
+        }
+
+        if (entries.size() > maxSize) {
+            evictExpired();
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> !e.getValue().isValid(now));
+        if (entries.size() > maxSize) {
+            entries.clear();
+        }
+    }
+
+    private static class Entry<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        // 조회 중이거나, 조회가 끝났고 아직 만료되지 않은 경우
+        boolean isValid(long now) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && now - expiresAt < 0;
+        }
+
+        void complete(V value, long expiresAt) {
+            this.expiresAt = expiresAt;
+            future.complete(value);
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+
+        V join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
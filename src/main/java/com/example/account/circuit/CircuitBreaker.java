@@ -0,0 +1,92 @@
+package com.example.account.circuit;
+
+import com.example.account.type.CircuitState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * 연속 실패가 failureThreshold번 쌓이면 openDuration 동안 호출을 막는다. (OPEN)
+ * openDuration이 지나면 호출 하나만 통과시켜서(HALF_OPEN) 성공하면 다시 열고(CLOSED), 실패하면 다시 막는다.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private LocalDateTime stateChangedAt = LocalDateTime.now();
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 호출해도 되는지 확인한다. true를 받으면 결과를 onSuccess/onFailure로 알려야 한다.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                transitionTo(CircuitState.HALF_OPEN);
+                probing = true;
+                return true;
+            default:
+                // 확인 중인 호출이 끝나기 전에는 다른 호출을 보내지 않는다.
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        if (state != CircuitState.CLOSED) {
+            transitionTo(CircuitState.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probing = false;
+        if (state == CircuitState.HALF_OPEN
+                || (state == CircuitState.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = nanoClock.getAsLong();
+            transitionTo(CircuitState.OPEN);
+        }
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized LocalDateTime getStateChangedAt() {
+        return stateChangedAt;
+    }
+
+    private void transitionTo(CircuitState next) {
+        state = next;
+        stateChangedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.account.cluster;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.logging.CorrelationIdFilter;
+import com.example.account.tracing.Span;
+import com.example.account.tracing.Tracer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.ErrorCode.OWNER_NODE_UNAVAILABLE;
+
+/**
+ * 거래 요청(POST /transaction/*)을 계좌를 담당하는 서버로 전달한다.
+ * 같은 계좌의 요청이 한 서버로 모이므로 담당 서버는 서버 안의 lock만으로 처리할 수 있다. (LockService)
+ * 담당 서버에 연결하지 못하면 이 서버에서 처리하고(redis lock 사용), 전달된 요청은 다시 전달하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@RequiredArgsConstructor
+public class AccountAffinityFilter extends OncePerRequestFilter {
+    public static final String FORWARDED_HEADER = "X-Forwarded-Node";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    // 연결마다 다시 정해지는 헤더는 담당 서버의 응답에서 복사하지 않는다. (Content-Length는 body 길이로 다시 설정)
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade",
+            "proxy-authenticate", "proxy-authorization", "content-length");
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${cluster.forward.connect-timeout-ms:200}")
+    private long connectTimeoutMs = 200L;
+
+    @Value("${cluster.forward.timeout-ms:5000}")
+    private long timeoutMs = 5000L;
+
+    private HttpClient httpClient;
+
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong forwardFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    public long getForwardFailureCount() {
+        return forwardFailures.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith("/transaction/")
+                || request.getHeader(FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+
+        String accountNumber = accountNumberOf(body, request.getContentType());
+        String owner = accountNumber == null ? null : AccountOwnership.ownerOf(accountNumber);
+        if (owner == null || owner.equals(AccountOwnership.getLocalNode())) {
+            filterChain.doFilter(cachedRequest, response);
+            return;
+        }
+
+        try (Span span = Tracer.start("cluster.forward")) {
+            span.setAttribute("cluster.owner", owner);
+            forward(request, body, owner, response);
+            forwarded.incrementAndGet();
+        } catch (ConnectException e) {
+            // 담당 서버에 닿지 않은 요청이므로 이 서버에서 처리한다.
+            forwardFailures.incrementAndGet();
+            log.warn("Failed to connect owner node {}, process locally", owner);
+            filterChain.doFilter(cachedRequest, response);
+        } catch (IOException e) {
+            // 담당 서버가 이미 처리했을 수 있으므로 이 서버에서 다시 처리하지 않는다.
+            forwardFailures.incrementAndGet();
+            log.warn("Failed to forward {} to owner node {}", request.getRequestURI(), owner, e);
+            reject(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            forwardFailures.incrementAndGet();
+            reject(response);
+        }
+    }
+
+    private void forward(
+            HttpServletRequest request, byte[] body, String owner,
+            HttpServletResponse response) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(owner + request.getRequestURI()))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header(FORWARDED_HEADER, AccountOwnership.getLocalNode())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        copyHeader(request, builder, HttpHeaders.CONTENT_TYPE);
+        copyHeader(request, builder, HttpHeaders.ACCEPT);
+        // 담당 서버의 로그와 trace도 같은 correlation id로 묶인다.
+        String correlationId = MDC.get(CorrelationIdFilter.MDC_KEY);
+        if (correlationId != null) {
+            builder.header(CorrelationIdFilter.HEADER, correlationId);
+        }
+
+        HttpResponse<byte[]> ownerResponse =
+                httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        response.setStatus(ownerResponse.statusCode());
+        copyHeaders(ownerResponse, response);
+        response.setContentLength(ownerResponse.body().length);
+        response.getOutputStream().write(ownerResponse.body());
+    }
+
+    // 이 서버에서 이미 설정한 헤더(correlation id 등)는 담당 서버의 값으로 바꾼다.
+    private static void copyHeaders(HttpResponse<?> ownerResponse, HttpServletResponse response) {
+        ownerResponse.headers().map().forEach((name, values) -> {
+            if (HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT)) || values.isEmpty()) {
+                return;
+            }
+            response.setHeader(name, values.get(0));
+            values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+        });
+    }
+
+    private static void copyHeader(HttpServletRequest request, HttpRequest.Builder builder, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            builder.header(name, value);
+        }
+    }
+
+    /**
+     * 요청 body의 최상위 accountNumber(이체는 출금 계좌 fromAccountNumber)를 읽는다.
+     * 전체를 객체로 만들지 않고 필요한 필드까지만 읽는다.
+     */
+    static String accountNumberOf(byte[] body, String contentType) {
+        boolean cbor = contentType != null && contentType.startsWith("application/cbor");
+        try (JsonParser parser = cbor ? CBOR_FACTORY.createParser(body) : JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (("accountNumber".equals(field) || "fromAccountNumber".equals(field))
+                        && value == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // 형식이 맞지 않는 요청은 이 서버에서 처리해서 검증 오류로 응답한다.
+            log.debug("Failed to read account number from request body", e);
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(OWNER_NODE_UNAVAILABLE, OWNER_NODE_UNAVAILABLE.getDescription()));
+    }
+
+    // 계좌번호를 읽은 body를 다음 filter와 controller가 다시 읽을 수 있게 한다.
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // body가 이미 메모리에 있으므로 등록하는 즉시 모두 읽을 수 있다고 알린다.
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.cluster;
+
+import com.example.account.shard.ConsistentHashRing;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 계좌를 담당하는 서버(owner). 살아있는 서버 목록을 consistent hashing ring으로 나눈다.
+ * ClusterMembership이 서버 목록이 바뀔 때마다 갱신하고, 등록되지 않았으면(cluster.enabled=false) 모든 계좌가 이 서버 담당이다.
+ * (AccountAffinityFilter와 LockService가 bean 의존 없이 쓸 수 있게 static으로 둔다)
+ */
+public final class AccountOwnership {
+    private static volatile View view;
+
+    private AccountOwnership() {
+    }
+
+    static void update(String localNode, List<String> nodes, int virtualNodes, long stableAtMillis) {
+        view = new View(localNode, List.copyOf(nodes),
+                new ConsistentHashRing(nodes, virtualNodes), stableAtMillis);
+    }
+
+    static void clear() {
+        view = null;
+    }
+
+    public static String getLocalNode() {
+        View current = view;
+        return current == null ? null : current.localNode;
+    }
+
+    public static List<String> getNodes() {
+        View current = view;
+        return current == null ? List.of() : current.nodes;
+    }
+
+    // 담당 서버, cluster를 사용하지 않으면 null
+    public static String ownerOf(String accountNumber) {
+        View current = view;
+        return current == null ? null : current.ownerOf(accountNumber);
+    }
+
+    /**
+     * 모든 계좌를 이 서버가 담당하고, 서버 목록이 바뀐 뒤 충분한 시간이 지났는지.
+     * 이때는 다른 서버가 같은 계좌를 처리하지 않으므로 서버 안의 lock만으로 충분하다.
+     * (서버 목록이 바뀌는 중에는 이전 담당 서버에서 처리 중인 요청이 남아있을 수 있다)
+     */
+    public static boolean ownsAll(Collection<String> accountNumbers) {
+        View current = view;
+        if (current == null || System.currentTimeMillis() < current.stableAtMillis) {
+            return false;
+        }
+        for (String accountNumber : accountNumbers) {
+            if (!current.localNode.equals(current.ownerOf(accountNumber))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class View {
+        private final String localNode;
+        private final List<String> nodes;
+        private final ConsistentHashRing ring;
+        private final long stableAtMillis;
+
+        private View(String localNode, List<String> nodes, ConsistentHashRing ring, long stableAtMillis) {
+            this.localNode = localNode;
+            this.nodes = nodes;
+            this.ring = ring;
+            this.stableAtMillis = stableAtMillis;
+        }
+
+        private String ownerOf(String accountNumber) {
+            return nodes.get(ring.shardOf(accountNumber));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.account.cluster;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 서버 목록을 redis에 관리한다. (sorted set, score는 마지막 heartbeat 시각)
+ * heartbeat마다 자신을 갱신하고, node-ttl-ms 동안 heartbeat가 없는 서버는 목록에서 뺀다.
+ * 목록이 바뀌면 AccountOwnership의 계좌 담당 서버를 다시 계산한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterMembership {
+    private static final String NODES_KEY = "CLUSTER:NODES";
+
+    private final RedissonClient redissonClient;
+
+    // 다른 서버가 요청을 전달할 주소 (비워두면 http://{host address}:{server.port})
+    @Value("${cluster.node-url:}")
+    private String nodeUrl = "";
+
+    @Value("${server.port:8080}")
+    private int serverPort = 8080;
+
+    @Value("${cluster.node-ttl-ms:5000}")
+    private long nodeTtlMs = 5000L;
+
+    // 서버 목록이 바뀐 뒤 이 시간 동안은 담당 계좌도 redis lock을 함께 잡는다.
+    @Value("${cluster.stable-ms:5000}")
+    private long stableMs = 5000L;
+
+    @Value("${cluster.virtual-nodes:160}")
+    private int virtualNodes = 160;
+
+    private String localNode;
+    private List<String> nodes = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws UnknownHostException {
+        localNode = StringUtils.hasText(nodeUrl)
+                ? nodeUrl
+                : "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + serverPort;
+        heartbeat();
+    }
+
+    @PreDestroy
+    public void leave() {
+        AccountOwnership.clear();
+        // 실패해도 node-ttl-ms가 지나면 다른 서버의 heartbeat가 목록에서 뺀다.
+        try {
+            nodes().remove(localNode);
+        } catch (Exception e) {
+            log.warn("Failed to leave cluster : {}", e.getMessage());
+        }
+    }
+
+    public String getLocalNode() {
+        return localNode;
+    }
+
+    // redis에 접근할 수 없으면 마지막으로 읽은 목록을 그대로 사용한다.
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-ms:1000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        List<String> alive;
+        try {
+            RScoredSortedSet<String> members = nodes();
+            members.add(now, localNode);
+            members.removeRangeByScore(0, true, now - nodeTtlMs, false);
+            alive = new ArrayList<>(members.readAll());
+        } catch (Exception e) {
+            log.warn("Cluster heartbeat failed, keep {} nodes", nodes.size(), e);
+            return;
+        }
+
+        alive.sort(null);
+        if (!alive.equals(nodes)) {
+            log.info("Cluster nodes changed {} -> {}", nodes, alive);
+            nodes = alive;
+            AccountOwnership.update(localNode, alive, virtualNodes, now + stableMs);
+        }
+    }
+
+    private RScoredSortedSet<String> nodes() {
+        return redissonClient.getScoredSortedSet(NODES_KEY, StringCodec.INSTANCE);
+    }
+}
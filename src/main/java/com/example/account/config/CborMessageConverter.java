@@ -0,0 +1,26 @@
+package com.example.account.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * application/cbor 요청/응답을 처리한다.
+ * 게이트웨이처럼 호출량이 많은 클라이언트는 JSON 대신 CBOR로 주고받아 파싱/직렬화 비용과 크기를 줄인다.
+ * JSON과 같은 ObjectMapper 설정(spring.jackson.*, LocalDateTime 처리)을 그대로 사용한다.
+ */
+@Component
+public class CborMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    public CborMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(createObjectMapper(builder));
+    }
+
+    private static ObjectMapper createObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.createXmlMapper(false)
+                .factory(new CBORFactory())
+                .build();
+    }
+}
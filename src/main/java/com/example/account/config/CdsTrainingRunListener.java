@@ -0,0 +1,28 @@
+package com.example.account.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * CDS(class data sharing) 아카이브를 만들 때 쓰는 학습 실행(./gradlew cdsArchive).
+ * 기동 과정에서 로드되는 클래스 목록만 남기면 되므로 준비가 끝나면 바로 종료한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "startup.cds-training-run", havingValue = "true")
+public class CdsTrainingRunListener {
+    private final ApplicationContext applicationContext;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exit() {
+        log.info("CDS training run finished, exiting");
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.account.config;
+
+import com.example.account.logging.SampledQueryLoggingListener;
+import com.example.account.profiling.SqlProfilingListener;
+import com.example.account.profiling.SqlStatementStats;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+// hibernate show_sql 대신 DataSource를 감싸서 SQL을 샘플링해서 남긴다.
+@Configuration
+public class DataSourceProxyConfiguration {
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyBeanPostProcessor(
+            Environment environment, ObjectProvider<SqlStatementStats> sqlStatementStats) {
+        double sampleRate = environment.getProperty("logging.sql.sample-rate", Double.class, 0.0);
+        long slowQueryMs = environment.getProperty("logging.sql.slow-query-ms", Long.class, 500L);
+        boolean profile = environment.getProperty("sql.profile.enabled", Boolean.class, true);
+        int nPlusOneThreshold = environment.getProperty("sql.profile.n-plus-one-threshold", Integer.class, 5);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(new SampledQueryLoggingListener(sampleRate, slowQueryMs));
+                    if (profile) {
+                        // 요청별 statement 기록과 shape별 통계 (조회 row 수를 세기 위해 ResultSet도 감싼다)
+                        SqlProfilingListener listener =
+                                new SqlProfilingListener(sqlStatementStats.getObject(), nPlusOneThreshold);
+                        builder.listener(listener)
+                                .methodListener(listener)
+                                .proxyResultSet();
+                    }
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+}
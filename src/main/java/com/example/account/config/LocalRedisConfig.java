@@ -2,31 +2,58 @@ package com.example.account.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import redis.embedded.RedisServer;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+// lazy 초기화를 켜더라도 redis는 기동 시점에 미리 띄워서 첫 요청이 기다리지 않게 한다.
+@Lazy(false)
 @Configuration
 public class LocalRedisConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
     private RedisServer redisServer;
+    private CompletableFuture<Void> started;
 
 
     // 초기화 작업을 할 메소드에 적용되며,
     // 해당 어노테이션이 적용된 초기화 메소드는 WAS가 띄워질 때 실행된다.
+    // redis 프로세스를 띄우는 동안 기다리지 않고 나머지 bean(hibernate 등)을 초기화한다.
     @PostConstruct
     public void startRedis() {
         redisServer = new RedisServer(redisPort);
-        redisServer.start();
+        started = CompletableFuture.runAsync(redisServer::start,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "embedded-redis-starter");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+    }
+
+    /**
+     * redis가 연결을 받을 수 있을 때까지 기다린다.
+     */
+    public void awaitStarted() {
+        try {
+            started.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     // 컨테이너에서 객체를 제거하기 전에 실행된다.
     @PreDestroy
     public void stopRedis() {
         if (redisServer != null) {
+            started.exceptionally(e -> null).join();
             redisServer.stop();
         }
     }
@@ -3,6 +3,7 @@ package com.example.account.config;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,10 +16,28 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    // 기동 시 미리 만들어 두는 연결 수
+    @Value("${redisson.connection-minimum-idle-size:24}")
+    private int connectionMinimumIdleSize;
+
+    // 장애 시 요청이 redis 응답을 오래 기다리지 않도록 (redisson 기본값: 3000ms, 3회 재시도)
+    @Value("${redisson.timeout-ms:3000}")
+    private int timeoutMs;
+
+    @Value("${redisson.retry-attempts:3}")
+    private int retryAttempts;
+
     @Bean
-    public RedissonClient redissonClient() {
+    public RedissonClient redissonClient(ObjectProvider<LocalRedisConfig> localRedisConfig) {
+        // 내장 redis는 비동기로 뜨기 때문에 연결하기 전에 기다린다.
+        localRedisConfig.ifAvailable(LocalRedisConfig::awaitStarted);
+
         Config config = new Config();
-        config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+        config.useSingleServer()
+                .setAddress("redis://" + redisHost + ":" + redisPort)
+                .setConnectionMinimumIdleSize(connectionMinimumIdleSize)
+                .setTimeout(timeoutMs)
+                .setRetryAttempts(retryAttempts);
 
         return Redisson.create(config);
     }
@@ -0,0 +1,40 @@
+package com.example.account.config;
+
+import com.example.account.tracing.Span;
+import com.example.account.tracing.Tracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * 기본 JSON converter를 대신해서 요청 역직렬화와 응답 직렬화 시간을 span으로 남긴다.
+ * spring boot가 만든 ObjectMapper(spring.jackson.* 설정)를 그대로 사용한다.
+ */
+@Component
+public class TracingJsonMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TracingJsonMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        try (Span ignored = Tracer.startChild("json.deserialize")) {
+            return super.read(type, contextClass, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        try (Span ignored = Tracer.startChild("json.serialize")) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+}
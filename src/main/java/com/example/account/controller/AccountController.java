@@ -6,13 +6,18 @@ import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.service.AccountService;
 import com.example.account.service.LockService;
+import com.example.account.stream.BalanceStreamHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import java.util.List;
-import java.util.stream.Collectors;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @Slf4j
 @RestController
@@ -20,9 +25,12 @@ import java.util.stream.Collectors;
 public class AccountController {
     private final AccountService accountService;
     private final LockService redisTestService;
+    private final BalanceStreamHub balanceStreamHub;
 
 
-    @PostMapping("/account")
+    @PostMapping(value = "/account",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
     public CreateAccount.Response createAccount(
             @RequestBody @Valid CreateAccount.Request request) {
         log.info("[AccountController] create account");
@@ -37,14 +45,18 @@ public class AccountController {
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long id) {
 
-        return accountService.getAccountsByUserId(id). stream()
-                .map(AccountInfo::from)
-                .collect(Collectors.toList());
+        return accountService.getAccountsByUserId(id);
+    }
+
+    // 사용자의 계좌 잔액을 구독한다. 첫 이벤트(snapshot)는 현재 잔액, 이후에는 잔액이 바뀐 계좌만 전송된다.
+    @GetMapping(value = "/account/stream", produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAccounts(
+            @RequestParam("user_id") Long id) {
+        return balanceStreamHub.subscribe(id, () -> accountService.getAccountsByUserId(id));
     }
     @GetMapping("/account/{accountId}")
     public Account getAccountsByAccountId(
             @PathVariable("accountId") Long id) {
-        log.info("[AccountController])");
         return accountService.getAccount(id);
     }
 
@@ -0,0 +1,63 @@
+package com.example.account.controller;
+
+import com.example.account.dto.ChainVerificationReport;
+import com.example.account.dto.HotAccount;
+import com.example.account.dto.LockBackendHealth;
+import com.example.account.dto.SqlStatementShape;
+import com.example.account.profiling.SqlStatementStats;
+import com.example.account.service.HotAccountTracker;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionChainVerifier;
+import com.example.account.tracing.TraceCollector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// 운영 확인용 API
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+    private final LockService lockService;
+    private final HotAccountTracker hotAccountTracker;
+    private final TraceCollector traceCollector;
+    private final SqlStatementStats sqlStatementStats;
+    private final TransactionChainVerifier transactionChainVerifier;
+
+    @GetMapping("/admin/lock-backend")
+    public LockBackendHealth getLockBackendHealth() {
+        return lockService.getHealth();
+    }
+
+    // lock 경합이 많은 계좌 (cluster=true면 redis에 모인 모든 서버의 최근 두 구간)
+    @GetMapping("/admin/hot-accounts")
+    public List<HotAccount> getHotAccounts(
+            @RequestParam(value = "cluster", defaultValue = "false") boolean cluster) {
+        return cluster
+                ? hotAccountTracker.getClusterHotAccounts()
+                : hotAccountTracker.getLocalHotAccounts();
+    }
+
+    // 최근에 남긴 느린/샘플링된 요청의 trace (OTLP JSON)
+    @GetMapping("/admin/traces")
+    public Map<String, Object> getRecentTraces(
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return traceCollector.getRecentTraces(limit);
+    }
+
+    // statement 형태별 실행 통계 (전체 DB 시간이 큰 순서)
+    @GetMapping("/admin/sql-stats")
+    public List<SqlStatementShape> getSqlStats() {
+        return sqlStatementStats.getShapes();
+    }
+
+    // 모든 계좌의 거래 hash chain 검증 (감사용, 거래가 많으면 오래 걸린다)
+    @PostMapping("/admin/transaction-chain/verify")
+    public ChainVerificationReport verifyTransactionChain() {
+        return transactionChainVerifier.verifyAll();
+    }
+}
@@ -3,28 +3,62 @@ package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.CaptureHold;
+import com.example.account.dto.HoldBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.ReleaseHold;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.RedisBalanceEngine;
 import com.example.account.service.TransactionService;
+import com.example.account.service.UseBalanceGroupCommitter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final RedisBalanceEngine redisBalanceEngine;
+    private final UseBalanceGroupCommitter groupCommitter;
 
-    @PostMapping("/transaction/use")
+    @PostMapping(value = "/transaction/use",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
     @AccountLock
     public UseBalance.Response useBalance(
-            @RequestBody @Valid UseBalance.Request request) throws InterruptedException {
+            @RequestBody @Valid UseBalance.Request request) {
         try {
-            Thread.sleep(5000L);
+            if (redisBalanceEngine.isEnabled()) {
+                return UseBalance.Response.from(
+                        redisBalanceEngine.useBalance(
+                                request.getUserId(),
+                                request.getAccountNumber(),
+                                request.getAmount())
+                );
+            }
+            if (groupCommitter.isEnabled()) {
+                return UseBalance.Response.from(
+                        groupCommitter.useBalance(
+                                request.getUserId(),
+                                request.getAccountNumber(),
+                                request.getAmount())
+                );
+            }
             return UseBalance.Response.from(
                     transactionService.useBalance(
                             request.getUserId(),
@@ -34,7 +68,9 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use Balance. ");
 
-            transactionService.saveFailedUseTransaction(
+            // 실패 거래는 비동기로 저장해서 lock을 바로 해제한다.
+            failedTransactionRecorder.record(
+                    USE,
                     request.getAccountNumber(),
                     request.getAmount());
 
@@ -43,11 +79,21 @@ public class TransactionController {
 
     }
 
-    @PostMapping("/transaction/cancel")
+    @PostMapping(value = "/transaction/cancel",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
     @AccountLock
     public CancelBalance.Response cancelBalance(
             @RequestBody @Valid CancelBalance.Request request) {
         try {
+            if (redisBalanceEngine.isEnabled()) {
+                return CancelBalance.Response.from(
+                        redisBalanceEngine.cancelBalance(
+                                request.getTransactionId(),
+                                request.getAccountNumber(),
+                                request.getAmount())
+                );
+            }
             return CancelBalance.Response.from(
                     transactionService.cancelBalance(
                             request.getTransactionId(),
@@ -57,7 +103,8 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use Balance. ");
 
-            transactionService.saveFailedCancelTransaction(
+            failedTransactionRecorder.record(
+                    CANCEL,
                     request.getAccountNumber(),
                     request.getAmount());
 
@@ -65,7 +112,98 @@ public class TransactionController {
         }
     }
 
-    @GetMapping("/transaction/{transactionId}")
+    @PostMapping(value = "/transaction/transfer",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
+    @AccountLock
+    public TransferBalance.Response transferBalance(
+            @RequestBody @Valid TransferBalance.Request request) {
+        try {
+            if (redisBalanceEngine.isEnabled()) {
+                return TransferBalance.Response.from(
+                        redisBalanceEngine.transferBalance(
+                                request.getUserId(),
+                                request.getFromAccountNumber(),
+                                request.getToAccountNumber(),
+                                request.getAmount()),
+                        request.getToAccountNumber()
+                );
+            }
+            return TransferBalance.Response.from(
+                    transactionService.transferBalance(
+                            request.getUserId(),
+                            request.getFromAccountNumber(),
+                            request.getToAccountNumber(),
+                            request.getAmount()),
+                    request.getToAccountNumber()
+            );
+        } catch (AccountException e) {
+            log.error("Failed to transfer Balance. ");
+
+            failedTransactionRecorder.record(
+                    TRANSFER_OUT,
+                    request.getFromAccountNumber(),
+                    request.getAmount());
+
+            throw e;
+        }
+    }
+
+    @PostMapping(value = "/transaction/hold",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
+    @AccountLock
+    public HoldBalance.Response holdBalance(
+            @RequestBody @Valid HoldBalance.Request request) {
+        validateHoldSupported();
+        return HoldBalance.Response.from(
+                transactionService.holdBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        request.getTtlSeconds())
+        );
+    }
+
+    @PostMapping(value = "/transaction/capture",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
+    @AccountLock
+    public CaptureHold.Response captureHold(
+            @RequestBody @Valid CaptureHold.Request request) {
+        validateHoldSupported();
+        return CaptureHold.Response.from(
+                transactionService.captureHold(
+                        request.getHoldId(),
+                        request.getAccountNumber(),
+                        request.getAmount()),
+                request.getHoldId()
+        );
+    }
+
+    @PostMapping(value = "/transaction/release",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
+    @AccountLock
+    public ReleaseHold.Response releaseHold(
+            @RequestBody @Valid ReleaseHold.Request request) {
+        validateHoldSupported();
+        return ReleaseHold.Response.from(
+                transactionService.releaseHold(
+                        request.getHoldId(),
+                        request.getAccountNumber())
+        );
+    }
+
+    // redis 잔액 엔진은 승인 금액(heldBalance)을 관리하지 않으므로 승인은 DB 잔액 엔진에서만 사용할 수 있다.
+    private void validateHoldSupported() {
+        if (redisBalanceEngine.isEnabled()) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+    }
+
+    @GetMapping(value = "/transaction/{transactionId}",
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE})
     public QueryTransactionResponse queryTransaction(
             @PathVariable String transactionId) {
         return QueryTransactionResponse.from(
@@ -1,5 +1,6 @@
 package com.example.account.domain;
 
+import com.example.account.audit.TransactionHashChain;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
@@ -23,6 +24,9 @@ public class Account {
     @GeneratedValue
     private Long id;
 
+    // redis lock 없이 처리되는 동안(LockService fallback) 다른 서버와 동시에 변경하면 늦게 commit한 쪽이 실패한다.
+    @Version
+    private Long version;
 
     // User로 하면 DB에서 충돌할 수 있기 때문에 불편함이 있을 수 있다.
     // AccountUser로 하는 것이 편할 수 있다.
@@ -35,9 +39,16 @@ public class Account {
     private AccountStatus accountStatus;
 
     private Long balance;
+    // 승인(hold)으로 묶여있는 금액, 사용 가능한 잔액은 balance - heldBalance
+    @Builder.Default
+    private Long heldBalance = 0L;
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    // hash chain의 마지막 거래 hash, 잔액과 함께 갱신되므로 거래 저장 시 추가 조회/쓰기가 없다.
+    @Column(length = 64)
+    private String lastTransactionHash;
+
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
@@ -45,7 +56,7 @@ public class Account {
 
     // 중요한 데이터를 변경하는 로직은 객체안에서 수행하도록 하여 조금 더 안전하게 처리한다.
     public void useBalance(Long amount) {
-        if (amount > balance) {
+        if (amount > getAvailableBalance()) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
         balance -= amount;
@@ -56,4 +67,41 @@ public class Account {
         }
         balance += amount;
     }
+    public void depositBalance(Long amount) {
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        balance += amount;
+    }
+
+    public Long getAvailableBalance() {
+        return balance - heldBalance;
+    }
+
+    public void holdBalance(Long amount) {
+        if (amount > getAvailableBalance()) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        heldBalance += amount;
+    }
+
+    public void releaseHold(Long heldAmount) {
+        if (heldAmount > heldBalance) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        heldBalance -= heldAmount;
+    }
+
+    // 거래를 이 계좌의 hash chain 끝에 잇는다.
+    public void chain(Transaction transaction) {
+        transaction.setPreviousHash(lastTransactionHash);
+        transaction.setHash(TransactionHashChain.hash(transaction));
+        lastTransactionHash = transaction.getHash();
+    }
+
+    // 묶어둔 금액을 풀고 실제 매입 금액만큼 잔액을 차감한다. (나머지는 해제된다)
+    public void captureHold(Long heldAmount, Long amount) {
+        releaseHold(heldAmount);
+        balance -= amount;
+    }
 }
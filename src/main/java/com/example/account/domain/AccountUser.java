@@ -21,6 +21,10 @@ public class AccountUser {
     private Long id;
     private String name;
 
+    // 해지되지 않은 계좌 수, 계좌 생성/해지 시 조건부 update로만 변경한다.
+    @Builder.Default
+    private Integer accountCount = 0;
+
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -0,0 +1,78 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 취소 가능 기간(1년)이 지난 거래를 보관하는 아카이브 테이블
+// 한번 옮겨진 데이터는 수정되지 않도록 Immutable로 선언한다.
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Immutable
+@Table(indexes = {
+        @Index(name = "idx_archived_transaction_transaction_id", columnList = "transactionId", unique = true),
+        @Index(name = "idx_archived_transaction_month", columnList = "archiveMonth")
+})
+public class ArchivedTransaction implements Persistable<Long> {
+    @Id
+    private Long id;
+
+    // 거래가 발생한 월(yyyyMM), 월 단위 파티션 키
+    private Integer archiveMonth;
+
+    private Long accountId;
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+
+    private Long amount;
+    private Long balanceSnapshot;
+
+    private String transactionId;
+    private String pairedTransactionId;
+
+    private LocalDateTime transactedAt;
+    private LocalDateTime archivedAt;
+
+    // 원본 거래의 hash chain을 그대로 보관한다. (남아있는 첫 거래가 마지막 아카이브 거래에 이어지는지 검증)
+    @Column(length = 64)
+    private String previousHash;
+    @Column(length = 64)
+    private String hash;
+
+    // id를 원본 거래에서 그대로 가져오므로 save 시 merge(select)가 일어나지 않도록 항상 새 엔티티로 취급한다.
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public static ArchivedTransaction from(Transaction transaction, LocalDateTime archivedAt) {
+        return ArchivedTransaction.builder()
+                .id(transaction.getId())
+                .archiveMonth(Transaction.monthOf(transaction.getTransactedAt()))
+                .accountId(transaction.getAccount().getId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .pairedTransactionId(transaction.getPairedTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .archivedAt(archivedAt)
+                .previousHash(transaction.getPreviousHash())
+                .hash(transaction.getHash())
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.account.domain;
+
+import com.example.account.type.HoldStatus;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 승인(hold): 금액을 먼저 묶어두고 나중에 매입(capture)하거나 해제(release)한다.
+// 묶인 금액의 합은 Account.heldBalance에 반영되어 있다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@EntityListeners(AuditingEntityListener.class)
+@Table(name = "account_hold", indexes = {
+        @Index(name = "idx_hold_hold_id", columnList = "holdId", unique = true),
+        @Index(name = "idx_hold_status", columnList = "status, expiresAt")
+})
+public class Hold {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String holdId;
+
+    @ManyToOne
+    private Account account;
+    private Long amount;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status;
+
+    private LocalDateTime heldAt;
+    private LocalDateTime expiresAt;
+    // 매입/해제/만료된 시각
+    private LocalDateTime closedAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    public boolean isActive(LocalDateTime now) {
+        return status == HoldStatus.HELD && now.isBefore(expiresAt);
+    }
+
+    public void close(HoldStatus status, LocalDateTime closedAt) {
+        this.status = status;
+        this.closedAt = closedAt;
+    }
+}
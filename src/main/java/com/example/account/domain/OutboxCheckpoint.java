@@ -0,0 +1,24 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// sink별로 지금까지 발행한 가장 큰 outbox 이벤트 id (진행 상황 확인용, 발행 여부는 outbox에 남아있는지로 판단한다)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_checkpoint")
+public class OutboxCheckpoint {
+    @Id
+    private String sinkName;
+
+    private Long lastEventId;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 잔액 변경 이벤트 outbox: 거래와 같은 트랜잭션에서 저장되고, OutboxRelay가 id 순서대로 꺼내서 발행한다.
+// 발행이 끝난 이벤트는 삭제된다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String accountNumber;
+    private String transactionId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    private LocalDateTime createdAt;
+
+    public static OutboxEvent from(Transaction transaction) {
+        return OutboxEvent.builder()
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionId(transaction.getTransactionId())
+                .transactionType(transaction.getTransactionType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactedAt(transaction.getTransactedAt())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -18,6 +18,12 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @EntityListeners(AuditingEntityListener.class)
+// 월 단위(transactedMonth)로 파티션을 나누는 것을 전제로 한 인덱스
+// 1년이 지난 거래는 TransactionArchiveService가 ArchivedTransaction으로 옮긴다.
+@Table(indexes = {
+        @Index(name = "idx_transaction_transaction_id", columnList = "transactionId"),
+        @Index(name = "idx_transaction_month", columnList = "transactedMonth, id")
+})
 public class Transaction {
     @Id
     @GeneratedValue
@@ -34,10 +40,34 @@ public class Transaction {
     private Long balanceSnapshot;
 
     private String transactionId;
+    // 이체 거래의 상대편(출금 <-> 입금) 거래 id
+    private String pairedTransactionId;
 
     private LocalDateTime transactedAt;
+    // 사용 한도를 누적한 기간의 기준 시각 (승인을 매입한 거래는 승인 시각), 취소할 때 이 기간의 한도에서 되돌린다.
+    private LocalDateTime spendChargedAt;
+    // 거래가 발생한 월(yyyyMM), 파티션 키
+    private Integer transactedMonth;
+
+    // 계좌별 hash chain (잔액을 바꾼 거래만 잇는다, Account.chain)
+    @Column(length = 64)
+    private String previousHash;
+    @Column(length = 64)
+    private String hash;
+
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (transactedMonth == null && transactedAt != null) {
+            transactedMonth = monthOf(transactedAt);
+        }
+    }
+
+    public static int monthOf(LocalDateTime dateTime) {
+        return dateTime.getYear() * 100 + dateTime.getMonthValue();
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 계좌의 마지막 거래 hash만 읽어오는 projection (accountUser를 함께 조회하지 않는다)
+@Getter
+@AllArgsConstructor
+public class AccountChainHead {
+    private Long id;
+    private String accountNumber;
+    private String lastTransactionHash;
+}
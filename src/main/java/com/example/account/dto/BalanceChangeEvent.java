@@ -0,0 +1,36 @@
+package com.example.account.dto;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// outbox에서 발행되는 잔액 변경 이벤트
+// 같은 이벤트가 두 번 이상 발행될 수 있으므로(at-least-once) 받는 쪽은 eventId로 중복을 걸러야 한다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceChangeEvent {
+    private Long eventId;
+    private String accountNumber;
+    private String transactionId;
+    private TransactionType transactionType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public static BalanceChangeEvent from(OutboxEvent outboxEvent) {
+        return BalanceChangeEvent.builder()
+                .eventId(outboxEvent.getId())
+                .accountNumber(outboxEvent.getAccountNumber())
+                .transactionId(outboxEvent.getTransactionId())
+                .transactionType(outboxEvent.getTransactionType())
+                .amount(outboxEvent.getAmount())
+                .balanceSnapshot(outboxEvent.getBalanceSnapshot())
+                .transactedAt(outboxEvent.getTransactedAt())
+                .build();
+    }
+}
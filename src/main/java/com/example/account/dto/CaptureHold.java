@@ -0,0 +1,54 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class CaptureHold {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+        // 승인 금액 이하로 매입할 수 있고, 나머지는 해제된다.
+        @NotNull
+        @Min(1)
+        @Max(1_000_000_000)
+        private Long amount;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransactionDto transactionDto, String holdId) {
+            return Response.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .holdId(holdId)
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
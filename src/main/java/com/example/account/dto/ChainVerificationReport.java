@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import com.example.account.type.ChainBreakType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChainVerificationReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long accountsChecked;
+    private long transactionsChecked;
+    private List<Break> breaks;
+    // 검증 중 실패한 shard가 있으면 true, 그 shard의 계좌는 끝까지 검증되지 않았다. (shard를 나누지 않으면 0)
+    private boolean incomplete;
+    private List<Integer> failedShards;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Break {
+        private String accountNumber;
+        // chain이 끊어진 거래 (계좌의 마지막 hash와 어긋난 경우 마지막 거래)
+        private String transactionId;
+        private ChainBreakType breakType;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 비동기로 저장할 실패 거래
+@Getter
+@AllArgsConstructor
+@Builder
+public class FailedTransaction {
+    private TransactionType transactionType;
+    private String accountNumber;
+    private Long amount;
+    private LocalDateTime transactedAt;
+    // 실패한 요청의 correlation id (저장은 다른 스레드에서 하므로 함께 넘긴다)
+    private String correlationId;
+}
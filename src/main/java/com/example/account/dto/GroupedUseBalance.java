@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// 한 트랜잭션으로 묶어서 처리할 잔액 사용 요청, 처리 후 거래 또는 실패 코드가 채워진다.
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class GroupedUseBalance {
+    private final Long userId;
+    private final Long amount;
+
+    private TransactionDto transaction;
+    private ErrorCode errorCode;
+}
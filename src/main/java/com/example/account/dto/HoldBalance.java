@@ -0,0 +1,57 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class HoldBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(1)
+        @Max(1_000_000_000)
+        private Long amount;
+
+        // 승인 유효 시간(초), 없으면 hold.default-ttl-seconds
+        @Min(1)
+        @Max(2_592_000)
+        private Long ttlSeconds;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private HoldStatus status;
+        private Long amount;
+        private LocalDateTime expiresAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .status(holdDto.getStatus())
+                    .amount(holdDto.getAmount())
+                    .expiresAt(holdDto.getExpiresAt())
+                    .build();
+        }
+    }
+}
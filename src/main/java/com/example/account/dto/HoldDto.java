@@ -0,0 +1,34 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Hold;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldDto {
+    private String holdId;
+    private String accountNumber;
+    private Long amount;
+    private HoldStatus status;
+    private LocalDateTime heldAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime closedAt;
+
+    public static HoldDto fromEntity(Hold hold) {
+        return HoldDto.builder()
+                .holdId(hold.getHoldId())
+                .accountNumber(hold.getAccount().getAccountNumber())
+                .amount(hold.getAmount())
+                .status(hold.getStatus())
+                .heldAt(hold.getHeldAt())
+                .expiresAt(hold.getExpiresAt())
+                .closedAt(hold.getClosedAt())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+// lock 경합이 많은 계좌 (근사값)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HotAccount {
+    private String accountNumber;
+    private long lockCount;
+    // lock을 기다린 시간의 합
+    private long lockWaitMillis;
+    // lock을 잡고 처리한 시간의 합
+    private long lockHoldMillis;
+    // lock을 얻지 못한(ACCOUNT_TRANSACTION_LOCK) 횟수
+    private long lockFailures;
+}
@@ -0,0 +1,30 @@
+package com.example.account.dto;
+
+import com.example.account.type.CircuitState;
+import com.example.account.type.LockFallbackPolicy;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 계좌 lock(redis) 상태와 기동 후 누적 횟수
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LockBackendHealth {
+    private CircuitState circuitState;
+    private LockFallbackPolicy fallbackPolicy;
+    private int consecutiveFailures;
+    private LocalDateTime stateChangedAt;
+
+    // redis lock을 잡은 횟수
+    private long redisLocks;
+    // redis를 사용할 수 없어 로컬 lock만 잡은 횟수
+    private long localOnlyLocks;
+    // 이 서버가 담당하는 계좌라서 로컬 lock만 잡은 횟수 (cluster.enabled)
+    private long ownerLocks;
+    // FAIL_FAST 정책으로 거절한 횟수
+    private long rejected;
+    private long redisFailures;
+}
@@ -0,0 +1,36 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long resumedFromAccountId;
+    private long accountsChecked;
+    private long transactionsReplayed;
+    private List<Mismatch> mismatches;
+    // 검증 중 실패한 shard가 있으면 true, 그 shard는 커서부터 다시 검증해야 한다. (shard를 나누지 않으면 0)
+    private boolean incomplete;
+    private List<Integer> failedShards;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Mismatch {
+        private String accountNumber;
+        // 잔액이 어긋난 거래 (계좌 잔액과 어긋난 경우 null)
+        private String transactionId;
+        private Long expected;
+        private Long actual;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.HoldStatus;
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+
+public class ReleaseHold {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private HoldStatus status;
+        private Long amount;
+        private LocalDateTime releasedAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .status(holdDto.getStatus())
+                    .amount(holdDto.getAmount())
+                    .releasedAt(holdDto.getClosedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// 같은 형태(바인딩 값을 뺀 SQL)의 statement 실행 통계
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SqlStatementShape {
+    private String shape;
+    private long count;
+    private long totalMillis;
+    private long avgMicros;
+    private long maxMillis;
+    // 조회한 row 수 + 변경된 row 수
+    private long rows;
+    // 한 요청에서 n-plus-one-threshold번 이상 반복된 횟수 (N+1 의심)
+    private long repeatedInRequest;
+    // 이 statement를 실행한 endpoint (최대 10개)
+    private List<String> endpoints;
+}
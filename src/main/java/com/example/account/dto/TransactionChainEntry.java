@@ -0,0 +1,25 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// hash chain 검증에 필요한 컬럼만 읽어오는 projection (영속성 컨텍스트에 쌓이지 않는다)
+@Getter
+@AllArgsConstructor
+public class TransactionChainEntry {
+    private Long id;
+    private Long accountId;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+    private String pairedTransactionId;
+    private String previousHash;
+    private String hash;
+}
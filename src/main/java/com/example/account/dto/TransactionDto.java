@@ -1,5 +1,6 @@
 package com.example.account.dto;
 
+import com.example.account.domain.ArchivedTransaction;
 import com.example.account.domain.Transaction;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
@@ -32,4 +33,16 @@ public class TransactionDto {
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    public static TransactionDto fromArchive(ArchivedTransaction transaction) {
+        return TransactionDto.builder()
+                .accountNumber(transaction.getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 잔액 재계산에 필요한 컬럼만 읽어오는 projection (영속성 컨텍스트에 쌓이지 않는다)
+@Getter
+@AllArgsConstructor
+public class TransactionReplay {
+    private Long id;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+    private Long amount;
+    private Long balanceSnapshot;
+}
@@ -0,0 +1,74 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TransferBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(1)
+        @Max(1_000_000_000)
+        private Long amount;
+
+        // 요청량 제한과 로그는 출금 계좌 기준
+        @JsonIgnore
+        @Override
+        public String getAccountNumber() {
+            return fromAccountNumber;
+        }
+
+        // 출금/입금 계좌를 모두 잠근다.
+        @JsonIgnore
+        @Override
+        public List<String> getAccountNumbers() {
+            return List.of(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    public static class Response {
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+        public static Response from(TransactionDto transactionDto, String toAccountNumber) {
+            return Response.builder()
+                    .fromAccountNumber(transactionDto.getAccountNumber())
+                    .toAccountNumber(toAccountNumber)
+                    .amount(transactionDto.getAmount())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
@@ -4,10 +4,12 @@ import com.example.account.dto.ErrorResponse;
 import com.example.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 import static com.example.account.type.ErrorCode.INTERNAL_SERVER_ERROR;
 import static com.example.account.type.ErrorCode.INVALID_REQUEST;
 
@@ -39,6 +41,15 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
     }
 
+    // 같은 계좌를 다른 서버에서 동시에 변경한 경우 (redis lock 없이 처리되는 동안)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ErrorResponse handleObjectOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException e) {
+        log.error("ObjectOptimisticLockingFailureException is occured", e);
+
+        return new ErrorResponse(ACCOUNT_TRANSACTION_LOCK, ACCOUNT_TRANSACTION_LOCK.getDescription());
+    }
+
     // AccountException이 아닌 나머지 Exception을 처리하는 메소드
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleException(AccountException e) {
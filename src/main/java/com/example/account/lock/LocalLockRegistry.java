@@ -0,0 +1,54 @@
+package com.example.account.lock;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 이 서버 안에서만 유효한 계좌 lock.
+ * 계좌 수만큼 lock을 만들지 않고 계좌번호의 hash로 정해진 수의 lock(stripe)을 나눠 쓴다.
+ * 여러 계좌는 stripe 번호 순서대로 잡아서 교착 상태가 생기지 않는다.
+ * lock을 잡은 스레드에서 해제해야 한다.
+ */
+public class LocalLockRegistry {
+    private final ReentrantLock[] stripes;
+
+    public LocalLockRegistry(int stripeCount) {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean tryLock(Collection<String> accountNumbers, long waitTime, TimeUnit unit)
+            throws InterruptedException {
+        int[] indexes = indexesOf(accountNumbers);
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        for (int i = 0; i < indexes.length; i++) {
+            if (!stripes[indexes[i]].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                unlock(indexes, i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void unlock(Collection<String> accountNumbers) {
+        int[] indexes = indexesOf(accountNumbers);
+        unlock(indexes, indexes.length);
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    private int[] indexesOf(Collection<String> accountNumbers) {
+        return accountNumbers.stream()
+                .mapToInt(accountNumber -> Math.floorMod(accountNumber.hashCode(), stripes.length))
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+}
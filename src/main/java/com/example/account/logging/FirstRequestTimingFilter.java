@@ -0,0 +1,66 @@
+package com.example.account.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM이 시작된 시점부터 애플리케이션 준비 완료, 첫 요청 응답 완료까지 걸린 시간을 기록한다.
+ * 첫 요청까지의 시간이 목표를 넘으면 경고 로그를 남긴다.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+    @Value("${startup.time-to-first-request-target-ms:5000}")
+    private long targetMs = 5000L;
+
+    private final AtomicBoolean served = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        log.info("Application ready in {} ms since JVM start", sinceJvmStart());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!served.get() && served.compareAndSet(false, true)) {
+                logFirstRequest(request);
+            }
+        }
+    }
+
+    private void logFirstRequest(HttpServletRequest request) {
+        long elapsed = sinceJvmStart();
+        if (elapsed > targetMs) {
+            log.warn("First request {} served in {} ms since JVM start (target {} ms)",
+                    request.getRequestURI(), elapsed, targetMs);
+        } else {
+            log.info("First request {} served in {} ms since JVM start (target {} ms)",
+                    request.getRequestURI(), elapsed, targetMs);
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.account.logging;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 다른 스레드에서 실행되는 작업이 작업을 넘긴 스레드의 MDC(correlation id)를 그대로 사용하게 한다.
+ * TaskDecorator bean이므로 spring이 만드는 executor(@Async 등)에도 적용된다.
+ */
+@Component
+public class MdcTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return wrap(runnable);
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> call(context, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 주어진 MDC로 실행하고 실행 전의 MDC로 되돌린다. (pool 스레드는 재사용되므로 남기지 않는다)
+     */
+    public static <T> T call(Map<String, String> context, Supplier<T> supplier) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        setContext(context);
+        try {
+            return supplier.get();
+        } finally {
+            setContext(previous);
+        }
+    }
+
+    // 요청 밖에서 시작하는 배치는 실행마다 correlation id를 새로 만들어 한 번의 실행 로그를 묶는다.
+    public static void runWithNewCorrelationId(Runnable runnable) {
+        call(Map.of(CorrelationIdFilter.MDC_KEY, CorrelationIdFilter.newCorrelationId()), () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.logging;
+
+import com.example.account.profiling.RequestSqlProfile;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 모든 SQL을 로그로 남기지 않고, 일부만 샘플링하거나 느린 쿼리만 남긴다.
+ * 실행 시간(바인딩 포함)과 바인딩 값을 함께 남긴다.
+ */
+@Slf4j(topic = "sql")
+public class SampledQueryLoggingListener implements QueryExecutionListener {
+    private final double sampleRate;
+    private final long slowQueryMs;
+
+    public SampledQueryLoggingListener(double sampleRate, long slowQueryMs) {
+        this.sampleRate = sampleRate;
+        this.slowQueryMs = slowQueryMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= slowQueryMs;
+
+        if (slow) {
+            // 어느 요청에서 실행된 쿼리인지 함께 남긴다.
+            RequestSqlProfile profile = RequestSqlProfile.current();
+            log.warn("slow query {}ms endpoint: {} success: {} {}", elapsed,
+                    profile == null ? "-" : profile.getEndpoint(), execInfo.isSuccess(),
+                    describe(queryInfoList));
+        } else if (sampleRate > 0 && log.isInfoEnabled()
+                && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("query {}ms success: {} {}", elapsed, execInfo.isSuccess(),
+                    describe(queryInfoList));
+        }
+    }
+
+    private static String describe(List<QueryInfo> queryInfoList) {
+        StringBuilder builder = new StringBuilder();
+        for (QueryInfo queryInfo : queryInfoList) {
+            builder.append('[').append(queryInfo.getQuery()).append("] params: ")
+                    .append(queryInfo.getParametersList());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.account.outbox;
+
+import com.example.account.dto.BalanceChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 이벤트를 한 줄에 하나씩 JSON으로 파일 끝에 추가한다.
+ * checkpoint가 옮겨지기 전에 디스크에 기록되도록 publish마다 force 한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.file.path:outbox/balance-events.jsonl}")
+    private String path = "outbox/balance-events.jsonl";
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(String accountNumber, List<BalanceChangeEvent> events) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (BalanceChangeEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+
+            Path file = Paths.get(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.account.outbox;
+
+import com.example.account.dto.BalanceChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 메시지 브로커 대신 메모리에 최근 이벤트를 보관한다. (로컬 실행, 테스트용)
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+    @Value("${outbox.memory.capacity:10000}")
+    private int capacity = 10000;
+
+    private final ArrayDeque<BalanceChangeEvent> events = new ArrayDeque<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void publish(String accountNumber, List<BalanceChangeEvent> published) {
+        for (BalanceChangeEvent event : published) {
+            if (events.size() >= capacity) {
+                events.poll();
+            }
+            events.add(event);
+        }
+    }
+
+    public synchronized List<BalanceChangeEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized List<BalanceChangeEvent> getEvents(String accountNumber) {
+        return events.stream()
+                .filter(event -> event.getAccountNumber().equals(accountNumber))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.outbox;
+
+import com.example.account.dto.BalanceChangeEvent;
+
+import java.util.List;
+
+/**
+ * outbox 이벤트를 발행할 대상 (메시지 브로커 등)
+ * publish가 예외 없이 끝나면 발행된 것으로 보고 checkpoint를 옮긴다.
+ */
+public interface OutboxSink {
+    // checkpoint를 구분하는 이름
+    String getName();
+
+    // 한 계좌의 이벤트를 id 순서대로 발행한다.
+    void publish(String accountNumber, List<BalanceChangeEvent> events);
+}
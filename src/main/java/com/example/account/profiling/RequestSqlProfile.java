@@ -0,0 +1,85 @@
+package com.example.account.profiling;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나에서 실행된 statement와 connection을 기다린 시간을 모은다.
+ * 요청 스레드의 ThreadLocal에 두고, SqlProfilingListener가 statement를 실행할 때마다 추가한다.
+ */
+public class RequestSqlProfile {
+    private static final ThreadLocal<RequestSqlProfile> CURRENT = new ThreadLocal<>();
+
+    private final Supplier<String> endpointSupplier;
+    private final int maxStatements;
+    private final List<StatementRecord> statements = new ArrayList<>();
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+
+    private String endpoint;
+    @Getter
+    private int statementCount;
+    @Getter
+    private long totalNanos;
+    @Getter
+    private long connectionWaitNanos;
+
+    // 마지막으로 prepareStatement가 끝난 시각 (바인딩 시간 계산용)
+    long preparedAt;
+
+    private RequestSqlProfile(Supplier<String> endpointSupplier, int maxStatements) {
+        this.endpointSupplier = endpointSupplier;
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * 요청을 시작한다. endpoint는 처음 필요할 때 구한다. (handler mapping 뒤에는 url pattern을 쓸 수 있다)
+     */
+    public static RequestSqlProfile begin(Supplier<String> endpoint, int maxStatements) {
+        RequestSqlProfile profile = new RequestSqlProfile(endpoint, maxStatements);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static RequestSqlProfile current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public String getEndpoint() {
+        if (endpoint == null) {
+            endpoint = endpointSupplier.get();
+        }
+        return endpoint;
+    }
+
+    public List<StatementRecord> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    // 같은 shape가 이 요청에서 몇 번째로 실행되었는지 돌려준다.
+    int add(StatementRecord record) {
+        statementCount++;
+        totalNanos += record.getElapsedNanos();
+        if (statements.size() < maxStatements) {
+            statements.add(record);
+        }
+        return shapeCounts.merge(record.getShape(), 1, Integer::sum);
+    }
+
+    void addConnectionWait(long nanos) {
+        connectionWaitNanos += nanos;
+    }
+
+    public int getCount(String shape) {
+        return shapeCounts.getOrDefault(shape, 0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.account.profiling;
+
+import com.example.account.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 실행된 statement를 모으고, 끝나면 statement 수와 DB 시간을 trace(root span)에 남긴다.
+ * sql.profile 로그를 debug로 켜면 요청별 statement 목록(실행/바인딩 시간, row 수)을 남긴다.
+ */
+@Slf4j(topic = "sql.profile")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+public class SqlProfilingFilter extends OncePerRequestFilter {
+    @Value("${sql.profile.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${sql.profile.max-statements-per-request:200}")
+    private int maxStatements = 200;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        RequestSqlProfile profile = RequestSqlProfile.begin(() -> endpointOf(request), maxStatements);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlProfile.end();
+            if (profile.getStatementCount() > 0) {
+                report(profile);
+            }
+        }
+    }
+
+    private void report(RequestSqlProfile profile) {
+        Tracer.current()
+                .setAttribute("db.statement_count", profile.getStatementCount())
+                .setAttribute("db.time_ms", TimeUnit.NANOSECONDS.toMillis(profile.getTotalNanos()))
+                .setAttribute("db.connection_wait_ms",
+                        TimeUnit.NANOSECONDS.toMillis(profile.getConnectionWaitNanos()));
+
+        if (log.isDebugEnabled()) {
+            StringBuilder builder = new StringBuilder();
+            for (StatementRecord record : profile.getStatements()) {
+                builder.append("\n  ")
+                        .append(TimeUnit.NANOSECONDS.toMicros(record.getElapsedNanos())).append("us")
+                        .append(" bind ").append(TimeUnit.NANOSECONDS.toMicros(record.getBindNanos())).append("us")
+                        .append(" rows ").append(record.getRows())
+                        .append(record.getBatchSize() > 0 ? " batch " + record.getBatchSize() : "")
+                        .append(" [").append(record.getShape()).append(']');
+            }
+            log.debug("{} executed {} statements in {}us (connection wait {}us){}",
+                    profile.getEndpoint(), profile.getStatementCount(),
+                    TimeUnit.NANOSECONDS.toMicros(profile.getTotalNanos()),
+                    TimeUnit.NANOSECONDS.toMicros(profile.getConnectionWaitNanos()), builder);
+        }
+    }
+
+    // 계좌번호 같은 path 변수가 endpoint마다 따로 모이지 않도록 url pattern을 쓴다.
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.account.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * DataSource proxy에서 statement마다 실행 시간, 바인딩 시간, row 수를 재서 shape별로 모은다.
+ * 요청 안에서는 RequestSqlProfile에도 남기고, 같은 shape가 반복되면 N+1로 보고 경고한다.
+ * connection을 얻을 때까지 기다린 시간(connection pool 대기)도 요청별로 더한다.
+ */
+@Slf4j(topic = "sql")
+public class SqlProfilingListener implements QueryExecutionListener, MethodExecutionListener {
+    private static final String START_NANOS = "startNanos";
+    private static final String BIND_NANOS = "bindNanos";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    // in (?, ?, ?) 처럼 개수만 다른 목록은 같은 shape로 본다.
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final int MAX_CACHED_SHAPES = 10_000;
+
+    private final SqlStatementStats stats;
+    private final int nPlusOneThreshold;
+    private final ConcurrentHashMap<String, String> shapeCache = new ConcurrentHashMap<>();
+    // 마지막으로 실행한 조회 (ResultSet.next()로 읽은 row를 더한다)
+    private final ThreadLocal<StatementRecord> lastQuery = new ThreadLocal<>();
+
+    public SqlProfilingListener(SqlStatementStats stats, int nPlusOneThreshold) {
+        this.stats = stats;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long now = System.nanoTime();
+        execInfo.addCustomValue(START_NANOS, now);
+
+        RequestSqlProfile profile = RequestSqlProfile.current();
+        if (profile != null && profile.preparedAt != 0) {
+            execInfo.addCustomValue(BIND_NANOS, now - profile.preparedAt);
+            profile.preparedAt = 0;
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = start == null ? 0 : System.nanoTime() - start;
+        Long bindNanos = execInfo.getCustomValue(BIND_NANOS, Long.class);
+        long rows = updatedRows(execInfo.getResult());
+
+        RequestSqlProfile profile = RequestSqlProfile.current();
+        String endpoint = profile == null ? null : profile.getEndpoint();
+
+        for (QueryInfo queryInfo : queryInfoList) {
+            String shape = shapeOf(queryInfo.getQuery());
+            SqlStatementStats.ShapeStats shapeStats = stats.get(shape);
+            if (shapeStats != null) {
+                shapeStats.record(endpoint, elapsedNanos, rows);
+            }
+
+            StatementRecord record = new StatementRecord(shape, elapsedNanos,
+                    bindNanos == null ? 0 : bindNanos, execInfo.getBatchSize(),
+                    execInfo.isSuccess(), rows, shapeStats);
+            lastQuery.set(execInfo.getResult() instanceof ResultSet ? record : null);
+
+            if (profile != null && profile.add(record) == nPlusOneThreshold) {
+                // 한 요청에서 한 번만 남긴다.
+                if (shapeStats != null) {
+                    shapeStats.repeatedInRequest();
+                }
+                log.warn("possible N+1: same statement executed {} times in {} [{}]",
+                        nPlusOneThreshold, endpoint, shape);
+            }
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof DataSource) {
+            executionContext.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        Object target = executionContext.getTarget();
+        String method = executionContext.getMethod().getName();
+
+        if (target instanceof ResultSet) {
+            if ("next".equals(method) && Boolean.TRUE.equals(executionContext.getResult())) {
+                StatementRecord record = lastQuery.get();
+                if (record != null) {
+                    record.addRow();
+                }
+            }
+            return;
+        }
+
+        RequestSqlProfile profile = RequestSqlProfile.current();
+        if (profile == null) {
+            return;
+        }
+        if (target instanceof Connection && method.startsWith("prepare")) {
+            profile.preparedAt = System.nanoTime();
+        } else if (target instanceof DataSource && "getConnection".equals(method)) {
+            Long start = executionContext.getCustomValue(START_NANOS, Long.class);
+            if (start != null) {
+                profile.addConnectionWait(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 바인딩 값과 공백 차이를 없앤 SQL. (hibernate가 만든 SQL은 대부분 그대로다)
+     */
+    String shapeOf(String query) {
+        String shape = shapeCache.get(query);
+        if (shape == null) {
+            shape = normalize(query);
+            if (shapeCache.size() < MAX_CACHED_SHAPES) {
+                shapeCache.put(query, shape);
+            }
+        }
+        return shape;
+    }
+
+    static String normalize(String query) {
+        String shape = STRING_LITERAL.matcher(query).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?...)");
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        if (result instanceof Long) {
+            return (Long) result;
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int updated : (int[]) result) {
+                rows += Math.max(updated, 0);
+            }
+            return rows;
+        }
+        return 0;
+    }
+}
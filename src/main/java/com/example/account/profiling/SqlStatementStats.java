@@ -0,0 +1,90 @@
+package com.example.account.profiling;
+
+import com.example.account.dto.SqlStatementShape;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * statement 형태(shape)별 실행 횟수, 시간, row 수를 모은다. (GET /admin/sql-stats)
+ * shape 수가 max-shapes를 넘으면 새 shape는 모으지 않는다.
+ */
+@Component
+public class SqlStatementStats {
+    private static final int MAX_ENDPOINTS = 10;
+
+    @Value("${sql.profile.max-shapes:1000}")
+    private int maxShapes = 1000;
+
+    private final ConcurrentHashMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    ShapeStats get(String shape) {
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null && shapes.size() < maxShapes) {
+            stats = shapes.computeIfAbsent(shape, k -> new ShapeStats());
+        }
+        return stats;
+    }
+
+    public List<SqlStatementShape> getShapes() {
+        List<SqlStatementShape> result = new ArrayList<>(shapes.size());
+        shapes.forEach((shape, stats) -> result.add(stats.toShape(shape)));
+        result.sort(Comparator.comparingLong(SqlStatementShape::getTotalMillis).reversed());
+        return result;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    static class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder repeatedInRequest = new LongAdder();
+        private final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+
+        void record(String endpoint, long elapsedNanos, long rowCount) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            rows.add(rowCount);
+            if (endpoint != null && endpoints.size() < MAX_ENDPOINTS) {
+                endpoints.add(endpoint);
+            }
+        }
+
+        void addRow() {
+            rows.increment();
+        }
+
+        void repeatedInRequest() {
+            repeatedInRequest.increment();
+        }
+
+        SqlStatementShape toShape(String shape) {
+            long executed = count.sum();
+            long total = totalNanos.sum();
+            return SqlStatementShape.builder()
+                    .shape(shape)
+                    .count(executed)
+                    .totalMillis(TimeUnit.NANOSECONDS.toMillis(total))
+                    .avgMicros(executed == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(total / executed))
+                    .maxMillis(TimeUnit.NANOSECONDS.toMillis(maxNanos.get()))
+                    .rows(rows.sum())
+                    .repeatedInRequest(repeatedInRequest.sum())
+                    .endpoints(endpoints.stream().sorted().collect(Collectors.toList()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.account.profiling;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+// 요청 안에서 실행된 statement 하나
+@Getter
+public class StatementRecord {
+    private final String shape;
+    private final long elapsedNanos;
+    // prepareStatement 이후 실행 전까지 (파라미터 바인딩) 걸린 시간
+    private final long bindNanos;
+    private final int batchSize;
+    private final boolean success;
+    private long rows;
+    @Getter(AccessLevel.NONE)
+    private final SqlStatementStats.ShapeStats shapeStats;
+
+    StatementRecord(String shape, long elapsedNanos, long bindNanos, int batchSize, boolean success,
+                    long rows, SqlStatementStats.ShapeStats shapeStats) {
+        this.shape = shape;
+        this.elapsedNanos = elapsedNanos;
+        this.bindNanos = bindNanos;
+        this.batchSize = batchSize;
+        this.success = success;
+        this.rows = rows;
+        this.shapeStats = shapeStats;
+    }
+
+    // 조회 결과(ResultSet)를 한 줄 읽을 때마다 호출된다.
+    void addRow() {
+        rows++;
+        if (shapeStats != null) {
+            shapeStats.addRow();
+        }
+    }
+}
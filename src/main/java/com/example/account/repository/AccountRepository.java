@@ -2,9 +2,16 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountChainHead;
+import com.example.account.dto.AccountInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +22,29 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Integer countByAccountUser(AccountUser accountUser);
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    // 응답에 필요한 컬럼만 조회해서 엔티티를 만들지 않고 바로 응답 dto로 받는다.
+    @Query("select new com.example.account.dto.AccountInfo(a.accountNumber, a.balance) " +
+            "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountInfo> findAccountInfosByUserId(@Param("userId") Long userId);
+
+    // id 기준 커서 페이징 (offset 없이 다음 chunk를 조회한다)
+    @Query("select new com.example.account.dto.AccountBalance(a.id, a.accountNumber, a.balance) " +
+            "from Account a where a.id > :id order by a.id")
+    List<AccountBalance> findBalancesAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.account.dto.AccountChainHead(a.id, a.accountNumber, a.lastTransactionHash) " +
+            "from Account a where a.id > :id order by a.id")
+    List<AccountChainHead> findChainHeadsAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.example.account.dto.AccountBalance(a.id, a.accountNumber, a.balance) " +
+            "from Account a where a.id = :id")
+    Optional<AccountBalance> findBalanceById(@Param("id") Long id);
+
+    @Query("select new com.example.account.dto.AccountChainHead(a.id, a.accountNumber, a.lastTransactionHash) " +
+            "from Account a where a.id = :id")
+    Optional<AccountChainHead> findChainHeadById(@Param("id") Long id);
 }
@@ -2,6 +2,9 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,6 +13,15 @@ import java.util.Optional;
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
     // 자동으로 구현해줌 find first by order by desc 형식을 맞춰줘야함
 
+    // 계좌 수가 max보다 작을 때만 증가시킨다. 같은 사용자의 동시 요청은 row lock으로 순서대로 처리된다.
+    // @return 변경된 row 수 (0이면 최대 계좌 수에 도달)
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 " +
+            "where u.id = :id and u.accountCount < :max")
+    int incrementAccountCount(@Param("id") Long id, @Param("max") int max);
 
-
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount - 1 " +
+            "where u.id = :id and u.accountCount > 0")
+    int decrementAccountCount(@Param("id") Long id);
 }
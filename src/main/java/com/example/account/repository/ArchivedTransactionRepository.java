@@ -0,0 +1,17 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.type.TransactionResultType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    Optional<ArchivedTransaction> findByTransactionId(String transactionId);
+
+    // 아카이브로 옮겨진 마지막 거래 (hash chain 검증의 시작점)
+    Optional<ArchivedTransaction> findTopByAccountIdAndTransactionResultTypeOrderByIdDesc(
+            Long accountId, TransactionResultType transactionResultType);
+}
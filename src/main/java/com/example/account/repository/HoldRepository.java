@@ -0,0 +1,25 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Hold;
+import com.example.account.type.HoldStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    Optional<Hold> findByHoldId(String holdId);
+
+    List<Hold> findByHoldIdIn(Collection<String> holdIds);
+
+    List<Hold> findByStatus(HoldStatus status);
+
+    // id 기준 커서 페이징으로 만료 시각이 지난 승인을 찾는다. (HoldExpiryService.sweep)
+    List<Hold> findByStatusAndExpiresAtBeforeAndIdGreaterThanOrderById(
+            HoldStatus status, LocalDateTime expiresAt, Long id, Pageable pageable);
+}
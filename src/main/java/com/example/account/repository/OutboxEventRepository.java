@@ -0,0 +1,14 @@
+package com.example.account.repository;
+
+import com.example.account.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // 발행된 이벤트는 삭제되므로 남아있는 이벤트가 모두 발행할 이벤트다.
+    List<OutboxEvent> findAllBy(Pageable pageable);
+}
@@ -1,13 +1,51 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionChainEntry;
+import com.example.account.dto.TransactionReplay;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
+
+    // 파티션 키(transactedMonth)로 먼저 범위를 좁힌 뒤 보관 대상 거래를 조회한다.
+    List<Transaction> findByTransactedMonthLessThanEqualAndTransactedAtBefore(
+            Integer transactedMonth, LocalDateTime transactedAt, Pageable pageable);
+
+    // 트랜잭션 안에서만 사용 가능하며, 사용 후 반드시 close 해야 한다.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.account.dto.TransactionReplay(" +
+            "t.id, t.transactionId, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot) " +
+            "from Transaction t where t.account.id = :accountId order by t.id")
+    Stream<TransactionReplay> streamReplayByAccountId(@Param("accountId") Long accountId);
+
+    // 잔액을 바꾼 거래의 hash chain (트랜잭션 안에서만 사용 가능하며, 사용 후 반드시 close 해야 한다.)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.account.dto.TransactionChainEntry(" +
+            "t.id, t.account.id, t.transactionId, t.transactionType, t.transactionResultType, " +
+            "t.amount, t.balanceSnapshot, t.transactedAt, t.pairedTransactionId, " +
+            "t.previousHash, t.hash) " +
+            "from Transaction t where t.account.id = :accountId " +
+            "and t.transactionResultType = com.example.account.type.TransactionResultType.S " +
+            "order by t.id")
+    Stream<TransactionChainEntry> streamChainByAccountId(@Param("accountId") Long accountId);
 }
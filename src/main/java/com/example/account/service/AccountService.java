@@ -1,10 +1,13 @@
 package com.example.account.service;
 
+import com.example.account.aop.ShardKey;
+import com.example.account.cache.SingleFlightCache;
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.AccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.shard.ShardContext;
 import com.example.account.type.AccountStatus;
 import com.example.account.domain.AccountUser;
 import com.example.account.repository.AccountRepository;
@@ -12,21 +15,31 @@ import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.*;
+import static com.example.account.type.ShardKeyType.USER_ID;
 
 @Slf4j
 @Service
 
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final RedisBalanceEngine redisBalanceEngine;
+
+    // 사용자별 계좌 목록 polling을 짧은 시간 동안 하나의 조회로 묶는다.
+    private final SingleFlightCache<Long, List<AccountInfo>> accountsCache =
+            new SingleFlightCache<>(Duration.ofMillis(500), 10_000);
 
     /**
      * 사용자가 있는지 조회
@@ -39,16 +52,18 @@ public class AccountService {
     // 또한 필요한 정보가 적을 수도 많을 수도 있기 때문에 dto클래스를 사용한다.
     // 레이어 간에 데이터를 넘길 때 Entity 클래스는 잘 쓰지 않는다.
     @Transactional
-    public AccountDto createAccount(Long userId, Long initialBalance) {
+    public AccountDto createAccount(@ShardKey(USER_ID) Long userId, Long initialBalance) {
         // user가 있다면 user를 반환하고 없다면 예외를 던진다.
         AccountUser accountUser = getAccountUser(userId);
 
         validateCreateAccount(accountUser);
 
         // 최근에 등록된 계좌번호를 조회하고 거기에 1을 더해서 새로운 계좌번호를 얻는다.
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> Integer.parseInt(account.getAccountNumber()) + 1 + "")
-                .orElse("1000000000"); // 처음 등록되는 계좌번호
+        String newAccountNumber = nextAccountNumber(accountRepository.findFirstByOrderByIdDesc()
+                .map(account -> Integer.parseInt(account.getAccountNumber()) + 1)
+                .orElse(1000000000)); // 처음 등록되는 계좌번호
+
+        evictAccountsByUserId(userId);
 
         return AccountDto.fromEntity(
                 accountRepository.save(
@@ -63,22 +78,35 @@ public class AccountService {
         );
     }
 
+    // shard를 나눈 경우 이 shard(사용자의 shard)로 hash되는 번호까지 건너뛴다.
+    // 다른 shard의 계좌번호는 이 shard로 hash되지 않으므로 shard 간에 번호가 겹치지 않는다.
+    private static String nextAccountNumber(int candidate) {
+        Integer shard = ShardContext.current();
+        if (shard != null) {
+            while (ShardContext.shardOf(String.valueOf(candidate)) != shard) {
+                candidate++;
+            }
+        }
+        return String.valueOf(candidate);
+    }
+
     private AccountUser getAccountUser(Long userId) {
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         return accountUser;
     }
 
+    // 계좌 수를 세지 않고, 사용자에 저장된 계좌 수를 조건부로 증가시켜서 최대 계좌 수를 확인한다.
+    // 트랜잭션이 롤백되면 증가시킨 계좌 수도 함께 롤백된다.
     private void validateCreateAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
+        if (accountUserRepository.incrementAccountCount(
+                accountUser.getId(), MAX_ACCOUNT_PER_USER) == 0) {
             throw new AccountException(MAX_ACCOUNT_PER_USER_10);
         }
     }
 
     @Transactional
     public Account getAccount(Long id) {
-        log.info("[AccountController])");
-
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
@@ -86,7 +114,7 @@ public class AccountService {
     }
 
     @Transactional
-    public AccountDto deleteAccount(Long userId, String accountNumber) {
+    public AccountDto deleteAccount(Long userId, @ShardKey String accountNumber) {
         AccountUser accountUser = getAccountUser(userId);
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
@@ -97,6 +125,9 @@ public class AccountService {
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountUserRepository.decrementAccountCount(accountUser.getId());
+        redisBalanceEngine.markUnregistered(accountNumber);
+        evictAccountsByUserId(userId);
 
         return AccountDto.fromEntity(account);
     }
@@ -108,19 +139,44 @@ public class AccountService {
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() > 0) {
+        // redis 엔진을 쓰면 아직 DB에 반영되지 않은 잔액이 있을 수 있어 redis의 잔액으로 확인한다.
+        long balance = redisBalanceEngine.getBalance(account.getAccountNumber())
+                .orElse(account.getBalance());
+        if (balance > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
 
-    public List<AccountDto> getAccountsByUserId(Long id) {
-        AccountUser accountUser = getAccountUser(id);
+    public List<AccountInfo> getAccountsByUserId(@ShardKey(USER_ID) Long id) {
+        return accountsCache.get(id, this::findAccountsByUserId);
+    }
 
-        List<Account> accounts =
-                accountRepository.findByAccountUser(accountUser);
+    /**
+     * 계좌 목록이 바뀌었을 때 캐시를 지운다.
+     * 커밋 전에 다른 요청이 이전 값을 다시 캐시할 수 있으므로 커밋 후에 한 번 더 지운다.
+     */
+    public void evictAccountsByUserId(Long userId) {
+        accountsCache.invalidate(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            accountsCache.invalidate(userId);
+                        }
+                    });
+        }
+    }
+
+    // 계좌가 있는 사용자는 projection 조회 한 번으로 끝나고,
+    // 계좌가 없을 때만 사용자가 있는지 확인한다.
+    private List<AccountInfo> findAccountsByUserId(Long id) {
+        List<AccountInfo> accounts = accountRepository.findAccountInfosByUserId(id);
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+        if (accounts.isEmpty() && !accountUserRepository.existsById(id)) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+        return accounts;
     }
 }
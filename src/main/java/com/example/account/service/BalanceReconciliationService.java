@@ -0,0 +1,230 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.ReconciliationReport;
+import com.example.account.dto.TransactionReplay;
+import com.example.account.logging.MdcTaskDecorator;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 거래내역을 다시 재생해서 계좌 잔액(Account.balance)이 맞는지 검증한다.
+ * 계좌를 chunk 단위로 읽고, chunk 안의 계좌들은 ForkJoinPool에서 병렬로 검증한다.
+ * chunk가 끝날 때마다 커서(마지막 계좌 id)를 redis에 저장하므로 중간에 멈춰도 이어서 진행할 수 있다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceReconciliationService {
+    private static final String CURSOR_KEY = "RECON:CURSOR";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RedissonClient redissonClient;
+
+    @Value("${reconciliation.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${reconciliation.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${reconciliation.balance-retries:3}")
+    private int balanceRetries = 3;
+
+    @Scheduled(cron = "${reconciliation.cron:-}")
+    public void reconcileScheduled() {
+        MdcTaskDecorator.runWithNewCorrelationId(this::reconcile);
+    }
+
+    public ReconciliationReport reconcile() {
+        ReconciliationReport report = ReconciliationReport.builder()
+                .startedAt(LocalDateTime.now())
+                .resumedFromAccountId(redissonClient.getAtomicLong(CURSOR_KEY).get())
+                .mismatches(new ArrayList<>())
+                .failedShards(new ArrayList<>())
+                .build();
+        AtomicLong replayed = new AtomicLong();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ?
+                parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            // shard를 나눈 경우 shard마다 따로 커서를 두고 차례로 검증한다.
+            ShardContext.forEachShard(() -> reconcileShard(report, replayed, pool));
+        } finally {
+            pool.shutdown();
+        }
+
+        report.setTransactionsReplayed(replayed.get());
+        report.setFinishedAt(LocalDateTime.now());
+
+        report.getMismatches().forEach(mismatch ->
+                log.warn("Balance mismatch account: {}, transaction: {}, expected: {}, actual: {}",
+                        mismatch.getAccountNumber(), mismatch.getTransactionId(),
+                        mismatch.getExpected(), mismatch.getActual()));
+        if (report.isIncomplete()) {
+            log.error("Reconciliation incomplete. failed shards: {}, accounts: {}, mismatches: {}",
+                    report.getFailedShards(), report.getAccountsChecked(), report.getMismatches().size());
+        } else {
+            log.info("Reconciliation finished. accounts: {}, transactions: {}, mismatches: {}",
+                    report.getAccountsChecked(), report.getTransactionsReplayed(),
+                    report.getMismatches().size());
+        }
+
+        return report;
+    }
+
+    private void reconcileShard(ReconciliationReport report, AtomicLong replayed, ForkJoinPool pool) {
+        Integer shard = ShardContext.current();
+        RAtomicLong cursor = redissonClient.getAtomicLong(
+                shard == null || shard == 0 ? CURSOR_KEY : CURSOR_KEY + ":" + shard);
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        try {
+            long lastId = cursor.get();
+            while (true) {
+                List<AccountBalance> chunk =
+                        accountRepository.findBalancesAfter(lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                // pool의 스레드에서도 같은 shard와 correlation id를 사용한다.
+                List<ReconciliationReport.Mismatch> mismatches = pool.submit(() ->
+                        chunk.parallelStream()
+                                .flatMap(account -> MdcTaskDecorator.call(mdc, () -> ShardContext.call(shard,
+                                        () -> reconcileAccount(account, replayed))).stream())
+                                .collect(Collectors.toList())
+                ).get();
+
+                report.getMismatches().addAll(mismatches);
+                report.setAccountsChecked(report.getAccountsChecked() + chunk.size());
+
+                lastId = chunk.get(chunk.size() - 1).getId();
+                cursor.set(lastId);
+            }
+            // 모든 계좌를 검증했으므로 다음 실행은 처음부터 시작한다.
+            cursor.set(0L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markFailed(report, shard);
+            log.warn("Reconciliation interrupted, resume from account id {}", cursor.get());
+        } catch (ExecutionException | RuntimeException e) {
+            // 끝까지 검증하지 못한 shard는 리포트에 남겨서 불일치가 없는 것으로 보이지 않게 한다.
+            markFailed(report, shard);
+            log.error("Reconciliation failed, resume from account id {}", cursor.get(), e);
+        }
+    }
+
+    private static void markFailed(ReconciliationReport report, Integer shard) {
+        report.setIncomplete(true);
+        report.getFailedShards().add(shard == null ? 0 : shard);
+    }
+
+    /**
+     * chunk를 읽은 뒤에 거래가 커밋되면 stream에는 새 거래가 보이지만 미리 읽은 잔액은 이전 값이다.
+     * 최종 잔액이 어긋나면 잔액을 다시 읽어서, 그 사이에 바뀌었으면 새 잔액으로 다시 검증한다.
+     * 다시 읽은 잔액이 그대로라면 그 사이에 커밋된 거래가 없으므로 실제로 어긋난 것이다.
+     */
+    private List<ReconciliationReport.Mismatch> reconcileAccount(
+            AccountBalance account, AtomicLong replayed) {
+        AccountBalance balance = account;
+        for (int attempt = 0; ; attempt++) {
+            AtomicLong attemptReplayed = new AtomicLong();
+            List<ReconciliationReport.Mismatch> mismatches = replayAgainst(balance, attemptReplayed);
+            if (attempt >= balanceRetries || mismatches.stream()
+                    .noneMatch(m -> m.getTransactionId() == null)) {
+                replayed.addAndGet(attemptReplayed.get());
+                return mismatches;
+            }
+
+            AccountBalance current = accountRepository.findBalanceById(account.getId())
+                    .orElse(balance);
+            if (Objects.equals(current.getBalance(), balance.getBalance())) {
+                replayed.addAndGet(attemptReplayed.get());
+                return mismatches;
+            }
+            log.debug("Balance of account {} moved while reconciling, retry", account.getAccountNumber());
+            balance = current;
+        }
+    }
+
+    private List<ReconciliationReport.Mismatch> replayAgainst(
+            AccountBalance account, AtomicLong replayed) {
+        return transactionTemplate.execute(status -> {
+            try (Stream<TransactionReplay> transactions =
+                         transactionRepository.streamReplayByAccountId(account.getId())) {
+                return replay(account, transactions.iterator(), replayed);
+            }
+        });
+    }
+
+    /**
+     * 성공한 거래만 순서대로 재생한다.
+     * 첫 거래(아카이브 이후 남아있는 첫 거래)의 balanceSnapshot을 체크포인트로 삼고,
+     * 이후 거래는 직전 잔액에서 사용/취소/이체 금액을 반영한 값이 balanceSnapshot과 같은지 비교한다.
+     */
+    static List<ReconciliationReport.Mismatch> replay(
+            AccountBalance account, Iterator<TransactionReplay> transactions, AtomicLong replayed) {
+        List<ReconciliationReport.Mismatch> mismatches = new ArrayList<>();
+        Long expected = null;
+
+        while (transactions.hasNext()) {
+            TransactionReplay transaction = transactions.next();
+            replayed.incrementAndGet();
+
+            if (transaction.getTransactionResultType() != S) {
+                continue;
+            }
+            if (expected != null) {
+                expected = transaction.getTransactionType().isDebit() ?
+                        expected - transaction.getAmount() :
+                        expected + transaction.getAmount();
+
+                if (!expected.equals(transaction.getBalanceSnapshot())) {
+                    mismatches.add(ReconciliationReport.Mismatch.builder()
+                            .accountNumber(account.getAccountNumber())
+                            .transactionId(transaction.getTransactionId())
+                            .expected(expected)
+                            .actual(transaction.getBalanceSnapshot())
+                            .build());
+                }
+            }
+            // 어긋난 경우에도 기록된 값을 새 체크포인트로 삼아 이후 거래를 계속 검증한다.
+            expected = transaction.getBalanceSnapshot();
+        }
+
+        if (expected != null && !expected.equals(account.getBalance())) {
+            mismatches.add(ReconciliationReport.Mismatch.builder()
+                    .accountNumber(account.getAccountNumber())
+                    .expected(expected)
+                    .actual(account.getBalance())
+                    .build());
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.logging.CorrelationIdFilter;
+import com.example.account.shard.ShardContext;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 실패 거래를 요청 스레드에서 바로 저장하지 않고 큐에 넣은 뒤,
+ * 별도 스레드에서 모아서(batch) 한 트랜잭션으로 저장한다.
+ * 요청 스레드는 계좌 lock을 잡은 채로 DB를 기다리지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FailedTransactionRecorder {
+    private final TransactionService transactionService;
+
+    @Value("${transaction.failed.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${transaction.failed.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${transaction.failed.flush-interval-ms:200}")
+    private long flushIntervalMs = 200L;
+
+    @Value("${transaction.failed.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<FailedTransaction> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::run, "failed-transaction-recorder");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // 종료 전에 남아있는 실패 거래를 모두 저장한다.
+        flush();
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = FailedTransaction.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .transactedAt(LocalDateTime.now())
+                .correlationId(MDC.get(CorrelationIdFilter.MDC_KEY))
+                .build();
+
+        if (queue.offer(failedTransaction)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                // 버린 실패 거래도 계좌와 correlation id를 로그로 남겨서 추적할 수 있게 한다.
+                FailedTransaction evicted = queue.poll();
+                if (!queue.offer(failedTransaction)) {
+                    drop(failedTransaction);
+                }
+                if (evicted != null) {
+                    drop(evicted);
+                }
+                break;
+            case CALLER_RUNS:
+                save(List.of(failedTransaction));
+                break;
+            default:
+                drop(failedTransaction);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 큐에 쌓인 실패 거래를 batch 단위로 모두 저장한다.
+     */
+    public void flush() {
+        while (!queue.isEmpty()) {
+            List<FailedTransaction> batch = new ArrayList<>(batchSize);
+            if (queue.drainTo(batch, batchSize) == 0) {
+                return;
+            }
+            save(batch);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                FailedTransaction first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<FailedTransaction> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                save(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void save(List<FailedTransaction> batch) {
+        if (!ShardContext.isSharded()) {
+            saveBatch(batch);
+            return;
+        }
+        // 계좌가 있는 shard별로 나누어 저장한다.
+        batch.stream()
+                .collect(Collectors.groupingBy(failed -> ShardContext.shardOf(failed.getAccountNumber())))
+                .forEach((shard, failedTransactions) ->
+                        ShardContext.run(shard, () -> saveBatch(failedTransactions)));
+    }
+
+    private void saveBatch(List<FailedTransaction> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+        } catch (Exception e) {
+            log.error("Failed to save {} failed transactions. correlation ids: {}", batch.size(),
+                    batch.stream().map(FailedTransaction::getCorrelationId).collect(Collectors.toList()), e);
+        }
+    }
+
+    private void drop(FailedTransaction failedTransaction) {
+        long count = dropped.incrementAndGet();
+        log.warn("Failed transaction queue is full. dropped: {}, account: {}, correlation id: {}",
+                count, failedTransaction.getAccountNumber(), failedTransaction.getCorrelationId());
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.account.service;
+
+import com.example.account.domain.Hold;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.HoldRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.timer.TimerWheel;
+import com.example.account.type.HoldStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 만료 시각이 지난 승인(hold)을 timer wheel로 찾아서 batch 단위로 해제한다.
+ * 승인마다 DB를 polling하지 않고, 만료된 승인만 한 번의 조회로 가져와 계좌 lock을 잡고 한 트랜잭션으로 해제한다.
+ * 기동 시에는 남아있는 승인을 DB에서 한 번 읽어 wheel에 등록한다.
+ * wheel은 서버마다 따로 있으므로, 승인을 등록한 서버가 내려가도 해제되도록 만료된 승인을 주기적으로 DB에서도 찾는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HoldExpiryService {
+    private final HoldRepository holdRepository;
+    private final LockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final SpendLimitService spendLimitService;
+
+    @Value("${hold.expiry.tick-ms:1000}")
+    private long tickMs = 1000L;
+
+    // 한 바퀴에 담는 slot 수 (tick-ms * wheel-size 보다 먼 만료는 다음 바퀴에서 확인한다)
+    @Value("${hold.expiry.wheel-size:3600}")
+    private int wheelSize = 3600;
+
+    @Value("${hold.expiry.batch-size:100}")
+    private int batchSize = 100;
+
+    // 만료 시각이 이만큼 지나도 남아있는 승인만 DB에서 찾는다. (등록한 서버의 wheel이 먼저 해제하도록)
+    @Value("${hold.expiry.sweep-grace-ms:10000}")
+    private long sweepGraceMs = 10000L;
+
+    private TimerWheel<String> wheel;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimerWheel<>(Duration.ofMillis(tickMs), wheelSize, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveHolds() {
+        ShardContext.forEachShard(() -> {
+            List<Hold> holds = holdRepository.findByStatus(HoldStatus.HELD);
+            holds.forEach(hold -> schedule(hold.getHoldId(), hold.getExpiresAt()));
+            log.info("Scheduled {} active holds for expiry", holds.size());
+        });
+    }
+
+    public void schedule(String holdId, LocalDateTime expiresAt) {
+        wheel.schedule(holdId, toEpochMillis(expiresAt));
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedDelayString = "${hold.expiry.tick-ms:1000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        List<String> holdIds;
+        while (!(holdIds = wheel.poll(now, batchSize)).isEmpty()) {
+            if (!ShardContext.isSharded()) {
+                expireOrRetry(holdIds, now);
+                continue;
+            }
+            // 승인 id에 들어있는 shard별로 나누어 해제한다.
+            holdIds.stream()
+                    .collect(Collectors.groupingBy(ShardContext::shardOfId))
+                    .forEach((shard, shardHoldIds) ->
+                            ShardContext.run(shard, () -> expireOrRetry(shardHoldIds, now)));
+        }
+    }
+
+    /**
+     * 어느 서버의 wheel에도 등록되어 있지 않은 승인(등록한 서버가 내려간 경우 등)을 shard마다 DB에서 찾아 해제한다.
+     * 여러 서버가 함께 실행해도 expireBatch가 계좌 lock을 잡고 상태를 다시 확인하므로 한 번만 해제된다.
+     */
+    @Scheduled(fixedDelayString = "${hold.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(Duration.ofMillis(sweepGraceMs));
+        ShardContext.forEachShard(() -> {
+            long lastId = 0L;
+            int swept = 0;
+            while (true) {
+                List<Hold> holds = holdRepository.findByStatusAndExpiresAtBeforeAndIdGreaterThanOrderById(
+                        HoldStatus.HELD, expiredBefore, lastId, PageRequest.of(0, batchSize));
+                if (holds.isEmpty()) {
+                    break;
+                }
+                expireOrRetry(holds.stream().map(Hold::getHoldId).collect(Collectors.toList()), now);
+                swept += holds.size();
+                lastId = holds.get(holds.size() - 1).getId();
+            }
+            if (swept > 0) {
+                log.warn("Found {} expired holds left unreleased, expiring them", swept);
+            }
+        });
+    }
+
+    private void expireOrRetry(List<String> holdIds, long now) {
+        try {
+            expireBatch(holdIds, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to expire {} holds", holdIds.size(), e);
+            retryLater(holdIds, now);
+        }
+    }
+
+    /**
+     * 만료된 승인이 걸린 계좌들의 lock을 계좌번호 순서로 한 번에 잡고 한 트랜잭션으로 해제한다.
+     * 그 사이 매입/해제된 승인은 건너뛴다.
+     */
+    void expireBatch(List<String> holdIds, LocalDateTime now) {
+        Set<String> accountNumbers = holdRepository.findByHoldIdIn(holdIds).stream()
+                .filter(hold -> hold.getStatus() == HoldStatus.HELD)
+                .map(hold -> hold.getAccount().getAccountNumber())
+                .collect(Collectors.toSet());
+        if (accountNumbers.isEmpty()) {
+            return;
+        }
+
+        try {
+            lockService.lock(accountNumbers);
+        } catch (AccountException e) {
+            // 사용중인 계좌가 있으면 다음 tick에 다시 시도한다.
+            retryLater(holdIds, System.currentTimeMillis());
+            return;
+        }
+        try {
+            Integer expired = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Hold hold : holdRepository.findByHoldIdIn(holdIds)) {
+                    if (hold.getStatus() != HoldStatus.HELD) {
+                        continue;
+                    }
+                    if (hold.getExpiresAt().isAfter(now)) {
+                        schedule(hold.getHoldId(), hold.getExpiresAt());
+                        continue;
+                    }
+                    hold.getAccount().releaseHold(hold.getAmount());
+                    hold.close(HoldStatus.EXPIRED, now);
+                    spendLimitService.restore(hold.getAccount().getAccountUser().getId(),
+                            hold.getAccount().getAccountNumber(), hold.getAmount(), hold.getHeldAt());
+                    count++;
+                }
+                return count;
+            });
+            log.info("Expired {} holds on {} accounts", expired, accountNumbers.size());
+        } finally {
+            lockService.unlock(accountNumbers);
+        }
+    }
+
+    private void retryLater(List<String> holdIds, long now) {
+        holdIds.forEach(holdId -> wheel.schedule(holdId, now + tickMs));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.account.service;
+
+import com.example.account.dto.HotAccount;
+import com.example.account.sketch.CountMinSketch;
+import com.example.account.sketch.HeavyHitters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌 lock을 기다린 시간과 잡고 있던 시간이 가장 긴 계좌(hot account)를 근사해서 찾는다.
+ * LockAopAspect가 요청마다 기록하고, window-ms마다 현재 구간의 상위 계좌를 redis hash에 더한 뒤 새 구간을 시작한다.
+ * 여러 서버가 같은 구간의 hash에 더하므로 redis에서 읽으면 전체 서버의 합이 된다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotAccountTracker {
+    private static final String KEY_PREFIX = "HOTACC:";
+
+    // KEYS: window hash
+    // ARGV: ttl(ms), field1, delta1, field2, delta2, ...
+    private static final String MERGE_SCRIPT =
+            "for i = 2, #ARGV, 2 do " +
+            "redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "end " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+
+    @Value("${hot-account.top-k:20}")
+    private int topK = 20;
+
+    @Value("${hot-account.window-ms:60000}")
+    private long windowMs = 60000L;
+
+    @Value("${hot-account.sketch-depth:4}")
+    private int sketchDepth = 4;
+
+    @Value("${hot-account.sketch-width:2048}")
+    private int sketchWidth = 2048;
+
+    private volatile Window current;
+
+    @PostConstruct
+    public void init() {
+        current = newWindow();
+    }
+
+    public void record(String accountNumber, long waitNanos, long holdNanos, boolean lockFailed) {
+        current.record(accountNumber, waitNanos, holdNanos, lockFailed);
+    }
+
+    // 이 서버의 현재 구간
+    public List<HotAccount> getLocalHotAccounts() {
+        return current.top();
+    }
+
+    // 모든 서버의 최근 두 구간
+    public List<HotAccount> getClusterHotAccounts() {
+        long windowId = System.currentTimeMillis() / windowMs;
+        Map<String, HotAccount> merged = new HashMap<>();
+        for (long id = windowId - 1; id <= windowId; id++) {
+            Map<String, String> fields = redissonClient
+                    .<String, String>getMap(KEY_PREFIX + id, StringCodec.INSTANCE)
+                    .readAllMap();
+            fields.forEach((field, value) -> merge(merged, field, Long.parseLong(value)));
+        }
+        return merged.values().stream()
+                .sorted(Comparator.comparingLong(HotAccountTracker::score).reversed())
+                .limit(topK)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${hot-account.window-ms:60000}")
+    public void rotate() {
+        Window finished = current;
+        current = newWindow();
+
+        List<HotAccount> hotAccounts = finished.top();
+        if (hotAccounts.isEmpty()) {
+            return;
+        }
+        try {
+            publish(System.currentTimeMillis() / windowMs, hotAccounts);
+        } catch (Exception e) {
+            log.warn("Failed to publish {} hot accounts", hotAccounts.size(), e);
+        }
+    }
+
+    private void publish(long windowId, List<HotAccount> hotAccounts) {
+        List<Object> args = new ArrayList<>();
+        // 최근 두 구간을 읽으므로 세 구간 동안 남겨둔다.
+        args.add(String.valueOf(windowMs * 3));
+        for (HotAccount hotAccount : hotAccounts) {
+            String accountNumber = hotAccount.getAccountNumber();
+            Collections.addAll(args,
+                    accountNumber + "|locks", String.valueOf(hotAccount.getLockCount()),
+                    accountNumber + "|wait", String.valueOf(hotAccount.getLockWaitMillis()),
+                    accountNumber + "|hold", String.valueOf(hotAccount.getLockHoldMillis()),
+                    accountNumber + "|failures", String.valueOf(hotAccount.getLockFailures()));
+        }
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                MERGE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(KEY_PREFIX + windowId), args.toArray());
+    }
+
+    private static void merge(Map<String, HotAccount> merged, String field, long value) {
+        int separator = field.lastIndexOf('|');
+        String accountNumber = field.substring(0, separator);
+        HotAccount hotAccount = merged.computeIfAbsent(accountNumber,
+                k -> HotAccount.builder().accountNumber(k).build());
+        switch (field.substring(separator + 1)) {
+            case "locks":
+                hotAccount.setLockCount(hotAccount.getLockCount() + value);
+                break;
+            case "wait":
+                hotAccount.setLockWaitMillis(hotAccount.getLockWaitMillis() + value);
+                break;
+            case "hold":
+                hotAccount.setLockHoldMillis(hotAccount.getLockHoldMillis() + value);
+                break;
+            default:
+                hotAccount.setLockFailures(hotAccount.getLockFailures() + value);
+        }
+    }
+
+    private static long score(HotAccount hotAccount) {
+        return hotAccount.getLockWaitMillis() + hotAccount.getLockHoldMillis();
+    }
+
+    private Window newWindow() {
+        return new Window(topK, sketchDepth, sketchWidth);
+    }
+
+    // 한 구간의 기록, 점수는 lock을 기다린 시간 + 잡고 있던 시간(us)
+    private static class Window {
+        private final HeavyHitters score;
+        private final CountMinSketch locks;
+        private final CountMinSketch waitMicros;
+        private final CountMinSketch holdMicros;
+        private final CountMinSketch failures;
+
+        Window(int topK, int depth, int width) {
+            score = new HeavyHitters(topK, depth, width);
+            locks = new CountMinSketch(depth, width);
+            waitMicros = new CountMinSketch(depth, width);
+            holdMicros = new CountMinSketch(depth, width);
+            failures = new CountMinSketch(depth, width);
+        }
+
+        void record(String accountNumber, long waitNanos, long holdNanos, boolean lockFailed) {
+            long wait = TimeUnit.NANOSECONDS.toMicros(waitNanos);
+            long hold = TimeUnit.NANOSECONDS.toMicros(holdNanos);
+            locks.add(accountNumber, 1);
+            waitMicros.add(accountNumber, wait);
+            holdMicros.add(accountNumber, hold);
+            if (lockFailed) {
+                failures.add(accountNumber, 1);
+            }
+            // 0이면 후보에 들어가지 못하므로 최소 1을 더한다.
+            score.add(accountNumber, Math.max(1, wait + hold));
+        }
+
+        List<HotAccount> top() {
+            return score.top().stream()
+                    .map(accountNumber -> HotAccount.builder()
+                            .accountNumber(accountNumber)
+                            .lockCount(locks.estimate(accountNumber))
+                            .lockWaitMillis(waitMicros.estimate(accountNumber) / 1000)
+                            .lockHoldMillis(holdMicros.estimate(accountNumber) / 1000)
+                            .lockFailures(failures.estimate(accountNumber))
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -1,32 +1,106 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.tracing.Span;
+import com.example.account.tracing.Tracer;
+import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.MDC;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+
 @Aspect
 @Component
 @Slf4j
+@Order(2)
 @RequiredArgsConstructor
 public class LockAopAspect {
+    private static final String ACCOUNT_NUMBER_MDC_KEY = "accountNumber";
+
     private final LockService lockService;
+    private final RedisBalanceEngine redisBalanceEngine;
+    private final HotAccountTracker hotAccountTracker;
+    private final UseBalanceGroupCommitter groupCommitter;
 
     // aspectJ
     @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
             AccountLockIdInterface request) throws Throwable {
+        // 요청의 correlation id와 함께 계좌번호도 로그에 남도록 MDC에 넣는다.
+        MDC.put(ACCOUNT_NUMBER_MDC_KEY, request.getAccountNumber());
+        try (Span span = Tracer.start("LockAopAspect.aroundMethod")) {
+            span.setAttribute("account.number", request.getAccountNumber());
+
+            // redis 잔액 엔진은 lua 스크립트가 원자적으로 처리하므로 lock이 필요없다.
+            if (redisBalanceEngine.isEnabled()) {
+                return pjp.proceed();
+            }
+            // group commit은 쌓인 요청을 처리할 때 한 번만 lock을 잡는다. (UseBalanceGroupCommitter)
+            if (groupCommitter.handles(request)) {
+                return pjp.proceed();
+            }
+
+            // 여러 계좌를 다루는 요청(이체)은 모든 계좌의 lock을 정해진 순서로 한 번에 잡는다.
+            List<String> accountNumbers = request.getAccountNumbers();
+            if (accountNumbers.size() > 1) {
+                return lockAndProceed(pjp, accountNumbers,
+                        () -> lockService.lock(accountNumbers),
+                        () -> lockService.unlock(accountNumbers));
+            }
+
+            String accountNumber = request.getAccountNumber();
+            return lockAndProceed(pjp, Collections.singletonList(accountNumber),
+                    () -> lockService.lock(accountNumber),
+                    () -> lockService.unlock(accountNumber));
+        } finally {
+            MDC.remove(ACCOUNT_NUMBER_MDC_KEY);
+        }
+    }
+
+    // lock을 기다린 시간과 잡고 있던 시간을 계좌별로 기록한다. (HotAccountTracker)
+    // trace에는 lock 대기 / 처리 / lock 해제 구간이 각각 span으로 남는다.
+    private Object lockAndProceed(
+            ProceedingJoinPoint pjp, List<String> accountNumbers,
+            Runnable lock, Runnable unlock) throws Throwable {
+        long start = System.nanoTime();
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
-        try{
+        Span waitSpan = Tracer.start("lock.wait");
+        try {
+            lock.run();
+        } catch (AccountException e) {
+            waitSpan.recordError(e);
+            if (e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_LOCK) {
+                record(accountNumbers, System.nanoTime() - start, 0, true);
+            }
+            throw e;
+        } finally {
+            waitSpan.close();
+        }
+
+        long locked = System.nanoTime();
+        try (Span ignored = Tracer.start("proceed")) {
             return pjp.proceed();
-        } finally{
+        } finally {
             // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            try (Span ignored = Tracer.start("lock.release")) {
+                unlock.run();
+            }
+            record(accountNumbers, locked - start, System.nanoTime() - locked, false);
+        }
+    }
+
+    private void record(List<String> accountNumbers, long waitNanos, long holdNanos, boolean lockFailed) {
+        for (String accountNumber : accountNumbers) {
+            hotAccountTracker.record(accountNumber, waitNanos, holdNanos, lockFailed);
         }
     }
 }
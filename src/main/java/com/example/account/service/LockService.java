@@ -1,43 +1,226 @@
 package com.example.account.service;
 
 
+import com.example.account.circuit.CircuitBreaker;
+import com.example.account.cluster.AccountOwnership;
+import com.example.account.dto.LockBackendHealth;
 import com.example.account.exception.AccountException;
+import com.example.account.lock.LocalLockRegistry;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockFallbackPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * 계좌 lock. 같은 서버 안의 요청은 로컬 lock으로, 서버 간에는 redis lock으로 막는다.
+ * 이 서버가 담당하는 계좌(AccountOwnership)는 다른 서버에서 처리되지 않으므로 로컬 lock만 잡는다.
+ * redis 호출이 연속으로 실패하면 circuit breaker가 redis 호출을 잠시 막고,
+ * 그동안은 fallback 정책에 따라 로컬 lock만으로 처리하거나(LOCAL) 바로 거절한다(FAIL_FAST).
+ * 차단 시간이 지나면 요청 하나로 redis가 복구되었는지 확인한다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
+    private static final long WAIT_SECONDS = 1;
+    private static final long LEASE_SECONDS = 15;
+
     private final RedissonClient redissonClient;
 
+    @Value("${lock.fallback:LOCAL}")
+    private LockFallbackPolicy fallbackPolicy = LockFallbackPolicy.LOCAL;
+
+    @Value("${lock.circuit.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${lock.circuit.open-ms:5000}")
+    private long openMs = 5000L;
+
+    @Value("${lock.local.stripes:1024}")
+    private int localStripes = 1024;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofMillis(5000));
+    private LocalLockRegistry localLocks = new LocalLockRegistry(1024);
+
+    // 현재 스레드가 redis lock까지 잡은 계좌들, 해제할 때 redis lock을 풀어야 하는지 판단한다.
+    private final ThreadLocal<Set<String>> redisHeld = ThreadLocal.withInitial(HashSet::new);
+
+    private final AtomicLong redisLocks = new AtomicLong();
+    private final AtomicLong localOnlyLocks = new AtomicLong();
+    private final AtomicLong ownerLocks = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openMs));
+        localLocks = new LocalLockRegistry(localStripes);
+    }
+
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        acquire(Collections.singletonList(accountNumber),
+                () -> redissonClient.getLock(getLockKey(accountNumber)));
+    }
+
+    public void unlock(String accountNumber) {
+        release(Collections.singletonList(accountNumber),
+                () -> redissonClient.getLock(getLockKey(accountNumber)));
+    }
 
+    /**
+     * 여러 계좌를 한 번에 잠근다.
+     * 항상 계좌번호 순서대로 잠그므로 같은 계좌들을 서로 반대 순서로 요청해도 교착 상태가 생기지 않고,
+     * 하나라도 실패하면 이미 잡은 lock은 모두 해제된다.
+     */
+    public void lock(Collection<String> accountNumbers) {
+        acquire(accountNumbers, () -> getMultiLock(accountNumbers));
+    }
+
+    public void unlock(Collection<String> accountNumbers) {
+        release(accountNumbers, () -> getMultiLock(accountNumbers));
+    }
+
+    public LockBackendHealth getHealth() {
+        return LockBackendHealth.builder()
+                .circuitState(circuitBreaker.getState())
+                .fallbackPolicy(fallbackPolicy)
+                .consecutiveFailures(circuitBreaker.getConsecutiveFailures())
+                .stateChangedAt(circuitBreaker.getStateChangedAt())
+                .redisLocks(redisLocks.get())
+                .localOnlyLocks(localOnlyLocks.get())
+                .ownerLocks(ownerLocks.get())
+                .rejected(rejected.get())
+                .redisFailures(redisFailures.get())
+                .build();
+    }
+
+    private void acquire(Collection<String> accountNumbers, Supplier<RLock> redisLock) {
+        log.debug("Trying lock for accountNumbers : {}", accountNumbers);
+
+        // 같은 서버의 요청은 먼저 로컬 lock으로 줄을 세운다.
+        // redis 장애 중에 로컬 lock만 잡은 요청과 복구 후 redis lock을 잡은 요청도 서로 겹치지 않는다.
+        lockLocal(accountNumbers);
+        if (AccountOwnership.ownsAll(accountNumbers)) {
+            ownerLocks.incrementAndGet();
+            return;
+        }
         try {
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+            if (lockRedis(redisLock)) {
+                redisHeld.get().add(heldKey(accountNumbers));
+            }
+        } catch (RuntimeException e) {
+            localLocks.unlock(accountNumbers);
+            throw e;
+        }
+    }
 
-            if (!isLock) {
+    private void lockLocal(Collection<String> accountNumbers) {
+        try {
+            if (!localLocks.tryLock(accountNumbers, WAIT_SECONDS, TimeUnit.SECONDS)) {
                 log.error("==============Lock acquisition failed==========");
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
-        } catch (AccountException e) {
-            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /**
+     * @return redis lock을 잡았으면 true, redis를 사용할 수 없어 로컬 lock만으로 처리하면 false
+     */
+    private boolean lockRedis(Supplier<RLock> redisLock) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return fallback();
+        }
+
+        boolean isLock;
+        try {
+            isLock = redisLock.get().tryLock(WAIT_SECONDS, LEASE_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
-            log.error("Redis lock failed");
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            redisFailures.incrementAndGet();
+            circuitBreaker.onFailure();
+            log.warn("Redis lock failed (circuit : {})", circuitBreaker.getState(), e);
+            return fallback();
+        }
+        circuitBreaker.onSuccess();
+
+        if (!isLock) {
+            log.error("==============Lock acquisition failed==========");
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
         }
+        redisLocks.incrementAndGet();
+        return true;
     }
 
-    public void unlock(String accountNumber) {
-        log.debug("Unlock for accountNumber : {} ", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    private boolean fallback() {
+        if (fallbackPolicy == LockFallbackPolicy.FAIL_FAST) {
+            rejected.incrementAndGet();
+            throw new AccountException(ErrorCode.LOCK_UNAVAILABLE);
+        }
+        localOnlyLocks.incrementAndGet();
+        return false;
+    }
+
+    private void release(Collection<String> accountNumbers, Supplier<RLock> redisLock) {
+        log.debug("Unlock for accountNumbers : {} ", accountNumbers);
+        try {
+            Set<String> held = redisHeld.get();
+            if (held.remove(heldKey(accountNumbers))) {
+                unlockRedis(redisLock);
+            }
+            if (held.isEmpty()) {
+                redisHeld.remove();
+            }
+        } finally {
+            localLocks.unlock(accountNumbers);
+        }
+    }
+
+    // 거래는 이미 끝났으므로 redis lock 해제에 실패해도 예외를 던지지 않는다. (lease 시간이 지나면 풀린다)
+    private void unlockRedis(Supplier<RLock> redisLock) {
+        try {
+            redisLock.get().unlock();
+        } catch (IllegalMonitorStateException e) {
+            log.error("Redis lock was already released (lease expired)");
+        } catch (Exception e) {
+            redisFailures.incrementAndGet();
+            circuitBreaker.onFailure();
+            log.warn("Redis unlock failed, lock will be released after lease time", e);
+        }
+    }
+
+    private RLock getMultiLock(Collection<String> accountNumbers) {
+        return redissonClient.getMultiLock(accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .map(accountNumber -> redissonClient.getLock(getLockKey(accountNumber)))
+                .toArray(RLock[]::new));
+    }
+
+    private static String heldKey(Collection<String> accountNumbers) {
+        return accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
     }
 
     private static String getLockKey(String accountNumber) {
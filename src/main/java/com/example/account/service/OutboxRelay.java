@@ -0,0 +1,128 @@
+package com.example.account.service;
+
+import com.example.account.domain.OutboxCheckpoint;
+import com.example.account.domain.OutboxEvent;
+import com.example.account.dto.BalanceChangeEvent;
+import com.example.account.logging.MdcTaskDecorator;
+import com.example.account.outbox.OutboxSink;
+import com.example.account.repository.OutboxCheckpointRepository;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.shard.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * outbox에 쌓인 잔액 변경 이벤트를 id 순서대로 batch로 꺼내 계좌별로 묶어서 sink에 발행한다.
+ * 발행이 끝난 이벤트만 id로 삭제하고, 실패한 계좌의 이벤트는 남겨서 다음 주기에 다시 발행한다. (at-least-once)
+ *
+ * id는 insert 시점에 정해지지만 commit 순서는 다를 수 있다.
+ * 남아있는 이벤트를 모두 다시 읽으므로, 늦게 commit된 이벤트도 다음 주기에 발행된다.
+ * (같은 계좌의 거래는 계좌 lock으로 차례로 commit되므로 계좌 안의 순서는 유지된다)
+ * 여러 서버에서 실행되므로 relay lock을 잡은 서버만 발행한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private static final String RELAY_LOCK_KEY = "OUTBOX:RELAY:";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final RedissonClient redissonClient;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize = 500;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relayScheduled() {
+        // 다른 서버가 발행 중이면 다음 주기에 다시 확인한다.
+        RLock lock = redissonClient.getLock(RELAY_LOCK_KEY + outboxSink.getName());
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            // outbox와 checkpoint는 거래와 함께 shard마다 있으므로 shard별로 발행한다.
+            MdcTaskDecorator.runWithNewCorrelationId(() -> ShardContext.forEachShard(this::relay));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 발행된 이벤트 수
+     */
+    public long relay() {
+        long published = 0;
+        while (true) {
+            int count = relayBatch();
+            published += count;
+            // 실패가 있었거나 남은 이벤트가 없으면 다음 주기에 이어서 발행한다.
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * @return 발행된 이벤트 수 (실패한 계좌가 있으면 batch 크기보다 작다)
+     */
+    int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findAllBy(
+                PageRequest.of(0, batchSize, Sort.by("id")));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // id 순서를 유지한 채 계좌별로 묶는다.
+        Map<String, List<BalanceChangeEvent>> eventsByAccount = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            eventsByAccount.computeIfAbsent(event.getAccountNumber(), k -> new ArrayList<>())
+                    .add(BalanceChangeEvent.from(event));
+        }
+
+        List<Long> publishedIds = new ArrayList<>();
+        for (Map.Entry<String, List<BalanceChangeEvent>> entry : eventsByAccount.entrySet()) {
+            try {
+                outboxSink.publish(entry.getKey(), entry.getValue());
+                entry.getValue().forEach(event -> publishedIds.add(event.getEventId()));
+            } catch (RuntimeException e) {
+                log.error("Failed to publish {} outbox events for account {}",
+                        entry.getValue().size(), entry.getKey(), e);
+            }
+        }
+        if (publishedIds.isEmpty()) {
+            return 0;
+        }
+
+        OutboxCheckpoint checkpoint = outboxCheckpointRepository.findById(outboxSink.getName())
+                .orElseGet(() -> OutboxCheckpoint.builder()
+                        .sinkName(outboxSink.getName())
+                        .lastEventId(0L)
+                        .build());
+        checkpoint.setLastEventId(Math.max(checkpoint.getLastEventId(), Collections.max(publishedIds)));
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxCheckpointRepository.save(checkpoint);
+            outboxEventRepository.deleteAllByIdInBatch(publishedIds);
+        });
+        return publishedIds.size();
+    }
+}
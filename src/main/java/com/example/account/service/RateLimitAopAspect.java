@@ -0,0 +1,38 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// LockAopAspect보다 먼저 실행되어, 제한된 요청은 lock이나 DB에 닿지 않는다.
+@Aspect
+@Component
+@Slf4j
+@Order(1)
+@RequiredArgsConstructor
+public class RateLimitAopAspect {
+    private final RateLimitService rateLimitService;
+
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            AccountLockIdInterface request) throws Throwable {
+        if (request.getUserId() != null
+                && !rateLimitService.tryAcquireUser(request.getUserId())) {
+            log.debug("Rate limited userId : {}", request.getUserId());
+            throw new AccountException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        if (!rateLimitService.tryAcquireAccount(request.getAccountNumber())) {
+            log.debug("Rate limited accountNumber : {}", request.getAccountNumber());
+            throw new AccountException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        return pjp.proceed();
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.account.service;
+
+import com.example.account.circuit.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 사용자/계좌별 요청량을 2단계 token bucket으로 제한한다.
+ * 노드마다 로컬 bucket을 두고, 로컬 permit이 떨어졌을 때만 redis의 전역 bucket에서 permit을 묶음으로 빌려온다.
+ * 대부분의 요청은 redis를 거치지 않고 로컬에서 판단한다.
+ * redis 장애 시에는 요청량 제한 때문에 서비스가 멈추지 않도록 통과시키고, 연속으로 실패하면 한동안 redis를 호출하지 않는다.
+ * 전역 bucket이 비어있으면 다시 채워질 때까지 redis를 호출하지 않고 로컬에서 거절한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitService {
+    private static final String RATE_LIMIT_KEY = "RATE:";
+
+    // 전역 token bucket (redis 2.8은 스크립트 안에서 TIME 후 쓰기가 불가능해서 현재 시간은 인자로 받는다)
+    // KEYS: bucket
+    // ARGV: capacity, refillPerSecond, now(epoch ms), requested
+    private static final String LEASE_SCRIPT =
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) " +
+            "local now = tonumber(ARGV[3]) " +
+            "local data = redis.call('hmget', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(data[1]) or capacity " +
+            "local ts = tonumber(data[2]) or now " +
+            "if now > ts then " +
+            "tokens = math.min(capacity, tokens + (now - ts) * rate / 1000) ts = now end " +
+            "local granted = math.min(tonumber(ARGV[4]), math.floor(tokens)) " +
+            "tokens = tokens - granted " +
+            "redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', ts) " +
+            "redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) " +
+            "return granted";
+
+    private final RedissonClient redissonClient;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${rate-limit.account.capacity:20}")
+    private long accountCapacity = 20;
+
+    @Value("${rate-limit.account.refill-per-second:10}")
+    private long accountRefillPerSecond = 10;
+
+    @Value("${rate-limit.user.capacity:50}")
+    private long userCapacity = 50;
+
+    @Value("${rate-limit.user.refill-per-second:25}")
+    private long userRefillPerSecond = 25;
+
+    // redis에서 한 번에 빌려오는 permit 수
+    @Value("${rate-limit.lease-size:5}")
+    private long leaseSize = 5;
+
+    // 빌려온 permit을 사용할 수 있는 시간 (오래 쌓아두면 전역 제한이 부정확해진다)
+    @Value("${rate-limit.lease-ttl-ms:1000}")
+    private long leaseTtlMs = 1000;
+
+    // 다른 스레드가 빌려오는 permit을 기다리는 최대 시간 (넘으면 거절한다)
+    @Value("${rate-limit.lease-wait-ms:100}")
+    private long leaseWaitMs = 100;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofMillis(5000));
+
+    private final Map<String, LocalBucket> localBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    public boolean tryAcquireAccount(String accountNumber) {
+        return tryAcquire("ACCT:" + accountNumber, accountCapacity, accountRefillPerSecond);
+    }
+
+    public boolean tryAcquireUser(Long userId) {
+        return tryAcquire("USER:" + userId, userCapacity, userRefillPerSecond);
+    }
+
+    public long getRedisFailureCount() {
+        return redisFailures.get();
+    }
+
+    private boolean tryAcquire(String key, long capacity, long refillPerSecond) {
+        if (!enabled) {
+            return true;
+        }
+        LocalBucket bucket = localBuckets.computeIfAbsent(key, k -> new LocalBucket());
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (bucket.tryTake(now)) {
+                return true;
+            }
+            if (bucket.isEmpty(now)) {
+                return false;
+            }
+
+            // 같은 key에 대해서는 한 스레드만 redis에서 permit을 빌려오고, 나머지는 그 결과를 기다렸다가 다시 확인한다.
+            // (redis 호출 중에 bucket의 lock을 잡고 있지 않는다)
+            // lease의 결과는 redis를 사용할 수 있었는지 여부이다.
+            CompletableFuture<Boolean> lease = new CompletableFuture<>();
+            CompletableFuture<Boolean> inFlight = bucket.startLease(lease);
+            if (inFlight != lease) {
+                Boolean available = awaitLease(key, inFlight);
+                if (available == null) {
+                    return false;
+                }
+                if (!available) {
+                    return true;
+                }
+                continue;
+            }
+
+            boolean available = false;
+            try {
+                Long granted = lease(key, capacity, refillPerSecond, now);
+                if (granted == null) {
+                    return true;
+                }
+                available = true;
+                if (granted == 0) {
+                    // token 하나가 다시 채워질 때까지는 redis를 호출해도 빌려올 permit이 없다.
+                    bucket.markEmpty(now + Math.max(1, 1000 / refillPerSecond));
+                    return false;
+                }
+                bucket.refill(granted, now + leaseTtlMs);
+                return bucket.tryTake(now);
+            } finally {
+                bucket.endLease();
+                lease.complete(available);
+            }
+        }
+    }
+
+    /**
+     * 다른 스레드가 빌려오는 permit을 기다린다.
+     * 오래 걸리는 것만으로는 redis 장애로 보지 않으므로 통과시키지 않는다. (redis를 사용할 수 없을 때만 통과)
+     *
+     * @return redis를 사용할 수 있었는지 여부, 기다리는 시간이 지나면 null
+     */
+    private Boolean awaitLease(String key, CompletableFuture<Boolean> inFlight) {
+        try {
+            return inFlight.get(leaseWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Rate limit lease for {} is slow, reject the request", key);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * @return 빌려온 permit 수, redis를 사용할 수 없으면 null
+     */
+    private Long lease(String key, long capacity, long refillPerSecond, long now) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+
+        Long granted;
+        try {
+            granted = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE, LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(RATE_LIMIT_KEY + key),
+                    String.valueOf(capacity), String.valueOf(refillPerSecond),
+                    String.valueOf(now), String.valueOf(Math.min(leaseSize, capacity)));
+        } catch (Exception e) {
+            redisFailures.incrementAndGet();
+            circuitBreaker.onFailure();
+            log.warn("Rate limit lease failed for {} (circuit : {})", key, circuitBreaker.getState(), e);
+            return null;
+        }
+        circuitBreaker.onSuccess();
+        return granted == null ? 0L : granted;
+    }
+
+    // 빌려온 permit이 만료되어 남아있는 것이 없는 bucket은 정리한다.
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        localBuckets.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+    }
+
+    private static class LocalBucket {
+        private long permits;
+        private long expiresAt;
+        // 전역 bucket이 비어있어서 이 시각까지는 로컬에서 거절한다.
+        private long emptyUntil;
+        private CompletableFuture<Boolean> leasing;
+
+        // 진행 중인 lease가 없으면 주어진 lease를 등록한다. 진행 중인 lease를 돌려준다.
+        synchronized CompletableFuture<Boolean> startLease(CompletableFuture<Boolean> lease) {
+            if (leasing == null) {
+                leasing = lease;
+            }
+            return leasing;
+        }
+
+        synchronized void endLease() {
+            leasing = null;
+        }
+
+        synchronized boolean tryTake(long now) {
+            if (permits > 0 && now < expiresAt) {
+                permits--;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void refill(long granted, long expiresAt) {
+            this.permits = granted;
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized void markEmpty(long emptyUntil) {
+            this.permits = 0;
+            this.emptyUntil = emptyUntil;
+        }
+
+        synchronized boolean isEmpty(long now) {
+            return now < emptyUntil;
+        }
+
+        synchronized boolean isExpired(long now) {
+            return now >= expiresAt && now >= emptyUntil;
+        }
+    }
+}
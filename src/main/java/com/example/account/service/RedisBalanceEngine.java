@@ -0,0 +1,532 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.OutboxEvent;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceChangeEvent;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.stream.BalanceChangedEvent;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.example.account.service.TransactionService.CANCEL_AVAILABLE_YEARS;
+import static com.example.account.type.ErrorCode.*;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * account.balance-engine=redis 일 때 잔액을 redis에 두고
+ * 잔액 사용/취소를 하나의 lua 스크립트로 원자적으로 처리한다. (lock + 조회 + 저장 + unlock 대신 한 번의 왕복)
+ * 처리된 거래는 계좌별 journal(list)에 쌓이고, flush()가 주기적으로 DB(Account, Transaction)에 반영한다.
+ * 내장 redis(2.8)는 stream을 지원하지 않아 journal은 list로 구현했다.
+ * 사용 한도는 스크립트 실행 전에 SpendLimitService로 누적하고, 스크립트가 거절하면 되돌린다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedisBalanceEngine {
+    private static final String BALANCE_KEY = "ACBAL:";
+    private static final String JOURNAL_KEY = "ACJNL:";
+    private static final String DIRTY_KEY = "ACJNL:DIRTY";
+    private static final String PENDING_TRANSACTION_KEY = "ACTX:";
+    private static final String FLUSH_LOCK_KEY = "ACJNL:LOCK:";
+
+    private static final long NOT_LOADED = -1L;
+    private static final long USER_UN_MATCH = -2L;
+    private static final long UNREGISTERED = -3L;
+    private static final long EXCEED_BALANCE = -4L;
+
+    // KEYS: balance, journal, dirty, pendingTransaction
+    // ARGV: userId, amount, transactionId, transactedAt(epoch ms), pendingTtl(ms), accountNumber
+    private static final String USE_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return {-1} end " +
+            "if redis.call('hget', KEYS[1], 'userId') ~= ARGV[1] then return {-2} end " +
+            "local balance = tonumber(redis.call('hget', KEYS[1], 'balance')) " +
+            "if balance < tonumber(ARGV[2]) then return {-4} end " +
+            "if redis.call('hget', KEYS[1], 'status') == 'UNREGISTERED' then return {-3} end " +
+            "balance = redis.call('hincrby', KEYS[1], 'balance', -tonumber(ARGV[2])) " +
+            "redis.call('rpush', KEYS[2], 'USE|' .. ARGV[2] .. '|' .. balance .. '|' .. ARGV[3] .. '|' .. ARGV[4]) " +
+            "redis.call('sadd', KEYS[3], ARGV[6]) " +
+            "redis.call('hmset', KEYS[4], 'accountNumber', ARGV[6], 'amount', ARGV[2], 'transactedAt', ARGV[4], 'userId', ARGV[1]) " +
+            "redis.call('pexpire', KEYS[4], ARGV[5]) " +
+            "return {0, balance}";
+
+    // KEYS: balance, journal, dirty
+    // ARGV: amount, transactionId, transactedAt(epoch ms), accountNumber
+    private static final String CANCEL_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return {-1} end " +
+            "local balance = redis.call('hincrby', KEYS[1], 'balance', tonumber(ARGV[1])) " +
+            "redis.call('rpush', KEYS[2], 'CANCEL|' .. ARGV[1] .. '|' .. balance .. '|' .. ARGV[2] .. '|' .. ARGV[3]) " +
+            "redis.call('sadd', KEYS[3], ARGV[4]) " +
+            "return {0, balance}";
+
+    // 출금/입금 계좌의 잔액 변경과 journal 기록을 한 번에 처리한다.
+    // KEYS: fromBalance, toBalance, fromJournal, toJournal, dirty
+    // ARGV: userId, amount, withdrawalTransactionId, depositTransactionId, transactedAt(epoch ms),
+    //       fromAccountNumber, toAccountNumber
+    private static final String TRANSFER_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 or redis.call('exists', KEYS[2]) == 0 then return {-1} end " +
+            "if redis.call('hget', KEYS[1], 'userId') ~= ARGV[1] then return {-2} end " +
+            "local balance = tonumber(redis.call('hget', KEYS[1], 'balance')) " +
+            "if balance < tonumber(ARGV[2]) then return {-4} end " +
+            "if redis.call('hget', KEYS[1], 'status') == 'UNREGISTERED' " +
+            "or redis.call('hget', KEYS[2], 'status') == 'UNREGISTERED' then return {-3} end " +
+            "balance = redis.call('hincrby', KEYS[1], 'balance', -tonumber(ARGV[2])) " +
+            "local toBalance = redis.call('hincrby', KEYS[2], 'balance', tonumber(ARGV[2])) " +
+            "redis.call('rpush', KEYS[3], 'TRANSFER_OUT|' .. ARGV[2] .. '|' .. balance .. '|' .. ARGV[3] .. '|' .. ARGV[5] .. '|' .. ARGV[4]) " +
+            "redis.call('rpush', KEYS[4], 'TRANSFER_IN|' .. ARGV[2] .. '|' .. toBalance .. '|' .. ARGV[4] .. '|' .. ARGV[5] .. '|' .. ARGV[3]) " +
+            "redis.call('sadd', KEYS[5], ARGV[6], ARGV[7]) " +
+            "return {0, balance}";
+
+    // KEYS: balance
+    // ARGV: accountId, userId, balance, status
+    private static final String LOAD_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "redis.call('hmset', KEYS[1], 'accountId', ARGV[1], 'userId', ARGV[2], " +
+            "'balance', ARGV[3], 'status', ARGV[4]) end " +
+            "return 0";
+
+    // 해지 전에 redis의 잔액이 남아있지 않은지 확인하고 상태를 바꾼다.
+    // KEYS: balance
+    // ARGV: status
+    private static final String UNREGISTER_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+            "if tonumber(redis.call('hget', KEYS[1], 'balance')) > 0 then return 1 end " +
+            "redis.call('hset', KEYS[1], 'status', ARGV[1]) end " +
+            "return 0";
+
+    // 마지막으로 반영한 거래까지 journal 앞부분을 지우고, 남은 것이 없으면 dirty 목록에서 뺀다.
+    // 개수가 아니라 거래 id로 지우므로 이미 다른 곳에서 지운 journal을 한 번 더 지우지 않는다.
+    // KEYS: journal, dirty
+    // ARGV: lastTransactionId(없으면 빈 문자열), accountNumber, batchSize
+    private static final String TRIM_SCRIPT =
+            "if ARGV[1] ~= '' then " +
+            "local entries = redis.call('lrange', KEYS[1], 0, tonumber(ARGV[3]) - 1) " +
+            "for i, entry in ipairs(entries) do " +
+            "if string.match(entry, '^[^|]*|[^|]*|[^|]*|([^|]*)') == ARGV[1] then " +
+            "redis.call('ltrim', KEYS[1], i, -1) break end end end " +
+            "if redis.call('llen', KEYS[1]) == 0 then redis.call('srem', KEYS[2], ARGV[2]) end " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SpendLimitService spendLimitService;
+
+    @Value("${account.balance-engine:db}")
+    private String balanceEngine = "db";
+
+    @Value("${account.balance-engine.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    // DB에 반영되기 전까지 취소 요청에서 원거래를 찾을 수 있도록 남겨두는 시간
+    @Value("${account.balance-engine.pending-ttl-ms:600000}")
+    private long pendingTtlMs = 600_000L;
+
+    public boolean isEnabled() {
+        return "redis".equalsIgnoreCase(balanceEngine);
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        String transactionId = newTransactionId(accountNumber);
+        LocalDateTime spendChargedAt = spendLimitService.reserve(userId, accountNumber, amount);
+        long transactedAt = transactedAtOf(spendChargedAt);
+
+        List<Object> result = evalCharged(userId, accountNumber, amount, spendChargedAt, () ->
+                evalWithLoad(accountNumber, USE_SCRIPT,
+                        Arrays.asList(balanceKey(accountNumber), journalKey(accountNumber),
+                                DIRTY_KEY, PENDING_TRANSACTION_KEY + transactionId),
+                        String.valueOf(userId), String.valueOf(amount), transactionId,
+                        String.valueOf(transactedAt), String.valueOf(pendingTtlMs), accountNumber));
+
+        return toTransactionDto(USE, accountNumber, amount, result, transactionId, transactedAt);
+    }
+
+    public TransactionDto transferBalance(
+            Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new AccountException(TRANSFER_SAME_ACCOUNT);
+        }
+        String withdrawalTransactionId = newTransactionId(fromAccountNumber);
+        String depositTransactionId = newTransactionId(toAccountNumber);
+        // 이체 출금도 출금 계좌의 사용 한도를 사용한다. (이체는 취소할 수 없으므로 되돌리지 않는다)
+        LocalDateTime spendChargedAt = spendLimitService.reserve(userId, fromAccountNumber, amount);
+        long transactedAt = transactedAtOf(spendChargedAt);
+
+        List<Object> result = evalCharged(userId, fromAccountNumber, amount, spendChargedAt, () ->
+                evalWithLoad(List.of(fromAccountNumber, toAccountNumber), TRANSFER_SCRIPT,
+                        Arrays.asList(balanceKey(fromAccountNumber), balanceKey(toAccountNumber),
+                                journalKey(fromAccountNumber), journalKey(toAccountNumber), DIRTY_KEY),
+                        String.valueOf(userId), String.valueOf(amount),
+                        withdrawalTransactionId, depositTransactionId, String.valueOf(transactedAt),
+                        fromAccountNumber, toAccountNumber));
+
+        return toTransactionDto(TRANSFER_OUT, fromAccountNumber, amount, result,
+                withdrawalTransactionId, transactedAt);
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        CanceledUse canceled = validateCancelBalance(transactionId, accountNumber, amount);
+
+        String cancelTransactionId = newTransactionId(accountNumber);
+        long transactedAt = System.currentTimeMillis();
+
+        List<Object> result = evalWithLoad(accountNumber, CANCEL_SCRIPT,
+                Arrays.asList(balanceKey(accountNumber), journalKey(accountNumber), DIRTY_KEY),
+                String.valueOf(amount), cancelTransactionId,
+                String.valueOf(transactedAt), accountNumber);
+
+        TransactionDto transactionDto = toTransactionDto(CANCEL, accountNumber, amount, result,
+                cancelTransactionId, transactedAt);
+        // 한도를 누적한 날(달)의 한도에서 되돌린다.
+        if (canceled.userId != null) {
+            spendLimitService.restore(canceled.userId, accountNumber, amount, canceled.spendChargedAt);
+        }
+        return transactionDto;
+    }
+
+    /**
+     * 한도를 누적한 뒤 스크립트를 실행하고, 스크립트가 거절하면 누적한 금액을 되돌린다.
+     * redis 오류로 결과를 알 수 없으면 처리되었을 수 있으므로 되돌리지 않는다. (기간이 끝나면 counter와 함께 사라진다)
+     */
+    private List<Object> evalCharged(
+            Long userId, String accountNumber, Long amount, LocalDateTime spendChargedAt,
+            Supplier<List<Object>> eval) {
+        List<Object> result;
+        try {
+            result = eval.get();
+        } catch (AccountException e) {
+            restoreSpend(userId, accountNumber, amount, spendChargedAt);
+            throw e;
+        }
+        if (code(result) != 0) {
+            restoreSpend(userId, accountNumber, amount, spendChargedAt);
+        }
+        return result;
+    }
+
+    private void restoreSpend(Long userId, String accountNumber, Long amount, LocalDateTime spendChargedAt) {
+        if (spendChargedAt != null) {
+            spendLimitService.restore(userId, accountNumber, amount, spendChargedAt);
+        }
+    }
+
+    // 한도를 누적한 시각을 거래 시각으로 써서, 취소할 때 같은 기간의 한도에서 되돌린다.
+    private static long transactedAtOf(LocalDateTime spendChargedAt) {
+        return spendChargedAt == null ? System.currentTimeMillis()
+                : spendChargedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * redis에 올라가 있는 계좌의 잔액을 조회한다. (DB의 잔액은 flush 전까지 이전 값일 수 있다)
+     * redis 엔진을 쓰지 않거나 아직 올라가지 않은 계좌는 비어있다.
+     */
+    public OptionalLong getBalance(String accountNumber) {
+        if (!isEnabled()) {
+            return OptionalLong.empty();
+        }
+        String balance = redissonClient.<String, String>getMap(balanceKey(accountNumber), StringCodec.INSTANCE)
+                .get("balance");
+        return balance == null ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(balance));
+    }
+
+    /**
+     * 계좌 해지를 redis에 있는 계좌 정보에도 반영한다. (캐시되지 않은 계좌는 다음 로딩 때 DB 상태를 읽는다)
+     * 확인한 뒤에 redis에서 잔액이 생겼으면 해지하지 않는다.
+     */
+    public void markUnregistered(String accountNumber) {
+        if (!isEnabled()) {
+            return;
+        }
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                UNREGISTER_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(balanceKey(accountNumber)),
+                AccountStatus.UNREGISTERED.name());
+        if (result != null && result != 0) {
+            throw new AccountException(BALANCE_NOT_EMPTY);
+        }
+    }
+
+    /**
+     * journal에 쌓인 거래를 계좌별로 DB에 반영한다.
+     * DB 반영이 끝난 뒤에 journal을 지우므로 중간에 실패하면 다음 flush에서 다시 시도한다.
+     * 모든 서버에서 실행되므로 계좌별 lock을 잡은 서버만 그 계좌를 반영한다.
+     */
+    @Scheduled(fixedDelayString = "${account.balance-engine.flush-interval-ms:100}")
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        Set<String> dirtyAccounts = redissonClient.<String>getSet(DIRTY_KEY, StringCodec.INSTANCE)
+                .readAll();
+
+        for (String accountNumber : dirtyAccounts) {
+            try {
+                flushAccount(accountNumber);
+            } catch (Exception e) {
+                log.error("Failed to flush balance journal for account {}", accountNumber, e);
+            }
+        }
+    }
+
+    private void flushAccount(String accountNumber) {
+        // 다른 서버가 반영 중인 계좌는 건너뛰고 다음 flush에서 다시 확인한다.
+        RLock lock = redissonClient.getLock(FLUSH_LOCK_KEY + accountNumber);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            List<String> entries = redissonClient
+                    .<String>getList(journalKey(accountNumber), StringCodec.INSTANCE)
+                    .range(0, flushBatchSize - 1);
+            if (entries.isEmpty()) {
+                trim(accountNumber, "");
+                return;
+            }
+
+            // 계좌가 있는 shard에 반영한다.
+            ShardContext.run(ShardContext.shardOf(accountNumber), () -> persist(accountNumber, entries));
+            trim(accountNumber, transactionIdOf(entries.get(entries.size() - 1)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void persist(String accountNumber, List<String> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+            List<Transaction> transactions = entries.stream()
+                    .map(entry -> toTransaction(account, entry))
+                    .collect(Collectors.toList());
+
+            // 이전 flush가 DB 반영 후 journal 정리 전에 실패했다면 이미 저장된 거래는 건너뛴다.
+            Set<String> persisted = transactionRepository.findByTransactionIdIn(
+                            transactions.stream()
+                                    .map(Transaction::getTransactionId)
+                                    .collect(Collectors.toList()))
+                    .stream()
+                    .map(Transaction::getTransactionId)
+                    .collect(Collectors.toSet());
+
+            List<Transaction> unsaved = transactions.stream()
+                    .filter(transaction -> !persisted.contains(transaction.getTransactionId()))
+                    .collect(Collectors.toList());
+            // 모두 반영된 journal이면 이후에 반영된 잔액을 이전 값으로 덮어쓰지 않는다.
+            if (unsaved.isEmpty()) {
+                return;
+            }
+            unsaved.forEach(account::chain);
+            transactionRepository.saveAll(unsaved);
+            List<OutboxEvent> outboxEvents = unsaved.stream()
+                    .map(OutboxEvent::from)
+                    .collect(Collectors.toList());
+            outboxEventRepository.saveAll(outboxEvents);
+            // commit 후 잔액 구독자에게 전달된다.
+            outboxEvents.forEach(outboxEvent -> eventPublisher.publishEvent(new BalanceChangedEvent(
+                    account.getAccountUser().getId(), BalanceChangeEvent.from(outboxEvent))));
+            account.setBalance(unsaved.get(unsaved.size() - 1).getBalanceSnapshot());
+        });
+    }
+
+    private void trim(String accountNumber, String lastTransactionId) {
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                TRIM_SCRIPT, RScript.ReturnType.INTEGER,
+                Arrays.asList(journalKey(accountNumber), DIRTY_KEY),
+                lastTransactionId, accountNumber, String.valueOf(flushBatchSize));
+    }
+
+    private CanceledUse validateCancelBalance(String transactionId, String accountNumber, Long amount) {
+        // 아직 DB에 반영되지 않은 거래는 redis에서 먼저 찾는다.
+        Map<String, String> pending = redissonClient
+                .<String, String>getMap(PENDING_TRANSACTION_KEY + transactionId, StringCodec.INSTANCE)
+                .readAllMap();
+
+        String originAccountNumber;
+        Long originAmount;
+        LocalDateTime originTransactedAt;
+        CanceledUse canceled;
+
+        if (!pending.isEmpty()) {
+            originAccountNumber = pending.get("accountNumber");
+            originAmount = Long.valueOf(pending.get("amount"));
+            originTransactedAt = toLocalDateTime(Long.parseLong(pending.get("transactedAt")));
+            canceled = new CanceledUse(
+                    pending.get("userId") == null ? null : Long.valueOf(pending.get("userId")),
+                    originTransactedAt);
+        } else {
+            Transaction transaction = ShardContext.call(ShardContext.shardOfId(transactionId), () ->
+                    transactionRepository.findByTransactionId(transactionId)
+                            .orElseThrow(() -> archivedTransactionRepository.findByTransactionId(transactionId)
+                                    .map(archived -> new AccountException(TOO_OLD_ORDER_TO_CANCEL))
+                                    .orElseGet(() -> new AccountException(TRANSACTION_NOT_FOUND))));
+            if (transaction.getTransactionType().isTransfer()) {
+                throw new AccountException(TRANSFER_NOT_CANCELABLE);
+            }
+            originAccountNumber = transaction.getAccount().getAccountNumber();
+            originAmount = transaction.getAmount();
+            originTransactedAt = transaction.getTransactedAt();
+            canceled = new CanceledUse(
+                    transaction.getTransactionType() == USE && transaction.getTransactionResultType() == S
+                            ? transaction.getAccount().getAccountUser().getId() : null,
+                    transaction.getSpendChargedAt() != null
+                            ? transaction.getSpendChargedAt() : originTransactedAt);
+        }
+
+        if (!originAccountNumber.equals(accountNumber)) {
+            throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (!originAmount.equals(amount)) {
+            throw new AccountException(CANCEL_MUST_FULLY);
+        }
+        if (originTransactedAt.isBefore(LocalDateTime.now().minusYears(CANCEL_AVAILABLE_YEARS))) {
+            throw new AccountException(TOO_OLD_ORDER_TO_CANCEL);
+        }
+        return canceled;
+    }
+
+    private List<Object> evalWithLoad(
+            String accountNumber, String script, List<Object> keys, Object... args) {
+        return evalWithLoad(Collections.singletonList(accountNumber), script, keys, args);
+    }
+
+    /**
+     * 스크립트를 실행하고, 계좌가 아직 redis에 없으면 DB에서 읽어와 한 번 더 실행한다.
+     * (이미 올라가 있는 계좌는 LOAD_SCRIPT가 덮어쓰지 않는다)
+     */
+    private List<Object> evalWithLoad(
+            List<String> accountNumbers, String script, List<Object> keys, Object... args) {
+        List<Object> result = eval(script, keys, args);
+        if (code(result) != NOT_LOADED) {
+            return result;
+        }
+
+        accountNumbers.forEach(this::load);
+        return eval(script, keys, args);
+    }
+
+    private void load(String accountNumber) {
+        Account account = ShardContext.call(ShardContext.shardOf(accountNumber),
+                        () -> accountRepository.findByAccountNumber(accountNumber))
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(balanceKey(accountNumber)),
+                String.valueOf(account.getId()),
+                String.valueOf(account.getAccountUser().getId()),
+                String.valueOf(account.getBalance()),
+                account.getAccountStatus().name());
+    }
+
+    private List<Object> eval(String script, List<Object> keys, Object... args) {
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                script, RScript.ReturnType.MULTI, keys, args);
+    }
+
+    private TransactionDto toTransactionDto(
+            TransactionType transactionType, String accountNumber, Long amount,
+            List<Object> result, String transactionId, long transactedAt) {
+        long code = code(result);
+        if (code == NOT_LOADED) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        } else if (code == USER_UN_MATCH) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        } else if (code == UNREGISTERED) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        } else if (code == EXCEED_BALANCE) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .amount(amount)
+                .balanceSnapshot(((Number) result.get(1)).longValue())
+                .transactionId(transactionId)
+                .transactedAt(toLocalDateTime(transactedAt))
+                .build();
+    }
+
+    // journal 형식: TYPE|amount|balanceSnapshot|transactionId|transactedAt(epoch ms)[|pairedTransactionId]
+    private static Transaction toTransaction(Account account, String entry) {
+        String[] fields = entry.split("\\|");
+        return Transaction.builder()
+                .transactionType(TransactionType.valueOf(fields[0]))
+                .transactionResultType(S)
+                .account(account)
+                .amount(Long.valueOf(fields[1]))
+                .balanceSnapshot(Long.valueOf(fields[2]))
+                .transactionId(fields[3])
+                .transactedAt(toLocalDateTime(Long.parseLong(fields[4])))
+                .pairedTransactionId(fields.length > 5 ? fields[5] : null)
+                .build();
+    }
+
+    private static String transactionIdOf(String entry) {
+        return entry.split("\\|")[3];
+    }
+
+    private static long code(List<Object> result) {
+        return ((Number) result.get(0)).longValue();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    // 거래가 DB에 반영될 계좌의 shard를 id에 넣는다.
+    private static String newTransactionId(String accountNumber) {
+        return ShardContext.newId(ShardContext.shardOf(accountNumber));
+    }
+
+    private static String balanceKey(String accountNumber) {
+        return BALANCE_KEY + accountNumber;
+    }
+
+    private static String journalKey(String accountNumber) {
+        return JOURNAL_KEY + accountNumber;
+    }
+
+    // 취소할 원거래의 사용 한도를 되돌릴 사용자와 기간 (한도를 사용하지 않은 거래는 userId가 null)
+    private static class CanceledUse {
+        private final Long userId;
+        private final LocalDateTime spendChargedAt;
+
+        private CanceledUse(Long userId, LocalDateTime spendChargedAt) {
+            this.userId = userId;
+            this.spendChargedAt = spendChargedAt;
+        }
+    }
+}
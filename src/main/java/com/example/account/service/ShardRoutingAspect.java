@@ -0,0 +1,104 @@
+package com.example.account.service;
+
+import com.example.account.aop.ShardKey;
+import com.example.account.exception.AccountException;
+import com.example.account.shard.ShardContext;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ShardKey 파라미터로 shard를 골라서 메소드를 실행한다.
+ * 트랜잭션이 시작되기 전에 shard가 정해져야 하므로 @Transactional보다 먼저 실행된다.
+ * shard key가 여러 개이면(이체) 모두 같은 shard에 있어야 한다.
+ */
+@Aspect
+@Component
+@Slf4j
+@Order(0)
+public class ShardRoutingAspect {
+    private static final ShardKey[] NO_KEYS = new ShardKey[0];
+
+    // 메소드별 파라미터의 @ShardKey (없는 파라미터는 null)
+    private final Map<Method, ShardKey[]> shardKeys = new ConcurrentHashMap<>();
+
+    @Around("execution(* com.example.account.service..*(.., @com.example.account.aop.ShardKey (*), ..))")
+    public Object aroundShardKey(ProceedingJoinPoint pjp) throws Throwable {
+        if (!ShardContext.isSharded()) {
+            return pjp.proceed();
+        }
+
+        int shard = shardOf(pjp);
+        Integer current = ShardContext.current();
+        if (current != null) {
+            // 이미 shard 안에서 실행 중이면(서비스 간 호출) 다른 shard로 옮겨갈 수 없다.
+            if (current != shard) {
+                throw new AccountException(ErrorCode.CROSS_SHARD_NOT_SUPPORTED);
+            }
+            return pjp.proceed();
+        }
+
+        Integer previous = ShardContext.bind(shard);
+        try {
+            return pjp.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private int shardOf(ProceedingJoinPoint pjp) {
+        ShardKey[] keys = shardKeys.computeIfAbsent(
+                ((MethodSignature) pjp.getSignature()).getMethod(), ShardRoutingAspect::findShardKeys);
+        Object[] args = pjp.getArgs();
+
+        int shard = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || args[i] == null) {
+                continue;
+            }
+            int argShard = shardOf(keys[i], args[i]);
+            if (shard >= 0 && shard != argShard) {
+                log.debug("Cross shard request {}: {} != {}", pjp.getSignature().getName(), shard, argShard);
+                throw new AccountException(ErrorCode.CROSS_SHARD_NOT_SUPPORTED);
+            }
+            shard = argShard;
+        }
+        return Math.max(shard, 0);
+    }
+
+    private static int shardOf(ShardKey key, Object arg) {
+        switch (key.value()) {
+            case USER_ID:
+                return ShardContext.shardOfUser((Long) arg);
+            case SHARDED_ID:
+                return ShardContext.shardOfId(arg.toString());
+            default:
+                return ShardContext.shardOf(arg.toString());
+        }
+    }
+
+    private static ShardKey[] findShardKeys(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        ShardKey[] keys = new ShardKey[annotations.length];
+        boolean found = false;
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    keys[i] = (ShardKey) annotation;
+                    found = true;
+                }
+            }
+        }
+        return found ? keys : NO_KEYS;
+    }
+}
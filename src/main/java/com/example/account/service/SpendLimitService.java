@@ -0,0 +1,346 @@
+package com.example.account.service;
+
+import com.example.account.circuit.CircuitBreaker;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 사용자/계좌별 일/월 사용 한도.
+ * 사용 금액은 거래를 합산하지 않고 기간(일/월)별 누적 counter로 관리한다. (redis, 기간이 끝나면 만료)
+ * 한도 확인과 누적은 스크립트 한 번으로 함께 처리하고, 응답받은 누적 금액을 로컬 counter에도 맞춰둔다.
+ * redis를 사용할 수 없는 동안은 로컬 counter만으로 이 서버의 한도를 확인한다.
+ * 잔액 사용, 승인, 이체 출금이 출금한 사용자/계좌의 한도를 사용한다. (이체는 취소할 수 없으므로 되돌리지 않는다)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpendLimitService {
+    private static final String SPEND_KEY = "SPEND:";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // 모든 counter가 한도 안이면 함께 누적한다. 결과는 {넘은 counter 번호(없으면 0), 누적 금액...}
+    // KEYS: counters
+    // ARGV: amount, (limit, expireAt(epoch ms)) * counter
+    private static final String RESERVE_SCRIPT =
+            "local amount = tonumber(ARGV[1]) " +
+            "local exceeded = 0 " +
+            "local values = {} " +
+            "for i = 1, #KEYS do " +
+            "values[i] = tonumber(redis.call('get', KEYS[i])) or 0 " +
+            "if exceeded == 0 and values[i] + amount > tonumber(ARGV[i * 2]) then exceeded = i end end " +
+            "if exceeded == 0 then for i = 1, #KEYS do " +
+            "values[i] = redis.call('incrby', KEYS[i], amount) " +
+            "redis.call('pexpireat', KEYS[i], ARGV[i * 2 + 1]) end end " +
+            "table.insert(values, 1, exceeded) " +
+            "return values";
+
+    // 만료되지 않은 counter에서만 되돌린다. (0 아래로는 내려가지 않는다, incrby는 만료 시각을 유지한다)
+    // KEYS: counters
+    // ARGV: amount
+    private static final String RESTORE_SCRIPT =
+            "for i = 1, #KEYS do " +
+            "if redis.call('exists', KEYS[i]) == 1 then " +
+            "local value = redis.call('decrby', KEYS[i], ARGV[1]) " +
+            "if value < 0 then redis.call('incrby', KEYS[i], -value) end end end " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+
+    @Value("${spend-limit.enabled:false}")
+    private boolean enabled = false;
+
+    // 한도 (0이면 제한 없음)
+    @Value("${spend-limit.user.daily:0}")
+    private long userDailyLimit = 0;
+
+    @Value("${spend-limit.user.monthly:0}")
+    private long userMonthlyLimit = 0;
+
+    @Value("${spend-limit.account.daily:0}")
+    private long accountDailyLimit = 0;
+
+    @Value("${spend-limit.account.monthly:0}")
+    private long accountMonthlyLimit = 0;
+
+    @Value("${spend-limit.local.stripes:256}")
+    private int localStripes = 256;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofMillis(5000));
+
+    // 한 요청이 다루는 counter는 모두 같은 사용자의 것이므로 사용자별 stripe lock 하나로 묶어서 바꾼다.
+    // (redis 호출은 스크립트가 원자적으로 처리하므로 lock 밖에서 한다)
+    private Object[] stripes = newStripes(256);
+    private final Map<String, LocalCounter> localCounters = new ConcurrentHashMap<>();
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        stripes = newStripes(localStripes);
+    }
+
+    private static Object[] newStripes(int count) {
+        Object[] stripes = new Object[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Object();
+        }
+        return stripes;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getRedisFailureCount() {
+        return redisFailures.get();
+    }
+
+    /**
+     * 오늘 사용 금액에 amount를 더했을 때 한도를 넘으면 거절하고, 넘지 않으면 누적한다.
+     * 트랜잭션 안에서 호출되면 롤백될 때 누적한 금액을 되돌린다.
+     *
+     * @return 누적한 기간의 기준 시각 (되돌릴 때 restore에 넘긴다), 누적하지 않았으면 null
+     */
+    public LocalDateTime reserve(Long userId, String accountNumber, Long amount) {
+        if (!enabled) {
+            return null;
+        }
+        LocalDateTime spentAt = LocalDateTime.now();
+        List<Window> windows = windows(userId, accountNumber, spentAt);
+        if (windows.isEmpty()) {
+            return null;
+        }
+
+        int exceeded = reserveRedis(userId, windows, amount);
+        if (exceeded < 0) {
+            exceeded = reserveLocal(userId, windows, amount);
+        }
+        if (exceeded > 0) {
+            rejected.incrementAndGet();
+            log.info("Spend limit exceeded {} : {} + {}", windows.get(exceeded - 1).key,
+                    localValue(windows.get(exceeded - 1)), amount);
+            throw new AccountException(ErrorCode.SPEND_LIMIT_EXCEEDED);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status == STATUS_ROLLED_BACK) {
+                                restoreNow(userId, accountNumber, amount, spentAt);
+                            }
+                        }
+                    });
+        }
+        return spentAt;
+    }
+
+    /**
+     * spentAt에 사용한 금액을 되돌린다. (취소, 승인 해제)
+     * 이미 끝난 기간의 사용 금액은 되돌리지 않는다. 트랜잭션 안에서 호출되면 커밋된 후에 되돌린다.
+     */
+    public void restore(Long userId, String accountNumber, Long amount, LocalDateTime spentAt) {
+        if (!enabled || amount <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            restoreNow(userId, accountNumber, amount, spentAt);
+                        }
+                    });
+            return;
+        }
+        restoreNow(userId, accountNumber, amount, spentAt);
+    }
+
+    private void restoreNow(Long userId, String accountNumber, Long amount, LocalDateTime spentAt) {
+        long now = System.currentTimeMillis();
+        List<Window> windows = new ArrayList<>();
+        for (Window window : windows(userId, accountNumber, spentAt)) {
+            if (window.expireAt > now) {
+                windows.add(window);
+            }
+        }
+        if (windows.isEmpty()) {
+            return;
+        }
+
+        synchronized (stripeOf(userId)) {
+            for (Window window : windows) {
+                LocalCounter counter = localCounters.get(window.key);
+                if (counter != null) {
+                    counter.value = Math.max(0, counter.value - amount);
+                }
+            }
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return;
+        }
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE, RESTORE_SCRIPT, RScript.ReturnType.INTEGER,
+                    keysOf(windows), String.valueOf(amount));
+            circuitBreaker.onSuccess();
+        } catch (Exception e) {
+            // 되돌리지 못한 금액만큼 한도가 덜 남는다. (기간이 끝나면 counter와 함께 사라진다)
+            redisFailures.incrementAndGet();
+            circuitBreaker.onFailure();
+            log.warn("Failed to restore spend {} of {}", amount, accountNumber, e);
+        }
+    }
+
+    /**
+     * @return 넘은 counter의 번호(1부터), 한도 안이면 0, redis를 사용할 수 없으면 -1
+     */
+    private int reserveRedis(Long userId, List<Window> windows, Long amount) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return -1;
+        }
+
+        List<Long> result;
+        try {
+            List<String> args = new ArrayList<>(windows.size() * 2 + 1);
+            args.add(String.valueOf(amount));
+            for (Window window : windows) {
+                args.add(String.valueOf(window.limit));
+                args.add(String.valueOf(window.expireAt));
+            }
+            result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE, RESERVE_SCRIPT, RScript.ReturnType.MULTI,
+                    keysOf(windows), args.toArray());
+        } catch (Exception e) {
+            redisFailures.incrementAndGet();
+            circuitBreaker.onFailure();
+            log.warn("Redis spend limit failed (circuit : {})", circuitBreaker.getState(), e);
+            return -1;
+        }
+        circuitBreaker.onSuccess();
+
+        // 다른 서버가 누적한 금액까지 로컬 counter에 반영한다.
+        synchronized (stripeOf(userId)) {
+            for (int i = 0; i < windows.size(); i++) {
+                localCounter(windows.get(i)).value = result.get(i + 1);
+            }
+        }
+        return result.get(0).intValue();
+    }
+
+    private int reserveLocal(Long userId, List<Window> windows, Long amount) {
+        synchronized (stripeOf(userId)) {
+            for (int i = 0; i < windows.size(); i++) {
+                if (localValue(windows.get(i)) + amount > windows.get(i).limit) {
+                    return i + 1;
+                }
+            }
+            for (Window window : windows) {
+                localCounter(window).value += amount;
+            }
+            return 0;
+        }
+    }
+
+    private long localValue(Window window) {
+        LocalCounter counter = localCounters.get(window.key);
+        return counter == null ? 0 : counter.value;
+    }
+
+    private LocalCounter localCounter(Window window) {
+        return localCounters.computeIfAbsent(window.key, key -> new LocalCounter(window.expireAt));
+    }
+
+    // 한도가 있는 기간만 counter를 둔다.
+    private List<Window> windows(Long userId, String accountNumber, LocalDateTime spentAt) {
+        LocalDate day = spentAt.toLocalDate();
+        LocalDate month = day.withDayOfMonth(1);
+        long dayEnd = toEpochMillis(day.plusDays(1));
+        long monthEnd = toEpochMillis(month.plusMonths(1));
+
+        List<Window> windows = new ArrayList<>(4);
+        addWindow(windows, "USER:" + userId + ":D:" + DAY.format(day), userDailyLimit, dayEnd);
+        addWindow(windows, "USER:" + userId + ":M:" + MONTH.format(month), userMonthlyLimit, monthEnd);
+        addWindow(windows, "ACCT:" + accountNumber + ":D:" + DAY.format(day), accountDailyLimit, dayEnd);
+        addWindow(windows, "ACCT:" + accountNumber + ":M:" + MONTH.format(month), accountMonthlyLimit, monthEnd);
+        return windows;
+    }
+
+    private static void addWindow(List<Window> windows, String key, long limit, long expireAt) {
+        if (limit > 0) {
+            windows.add(new Window(SPEND_KEY + key, limit, expireAt));
+        }
+    }
+
+    private long toEpochMillis(LocalDate date) {
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static List<Object> keysOf(List<Window> windows) {
+        List<Object> keys = new ArrayList<>(windows.size());
+        for (Window window : windows) {
+            keys.add(window.key);
+        }
+        return keys;
+    }
+
+    private Object stripeOf(Long userId) {
+        return stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+    }
+
+    // 기간이 끝난 로컬 counter를 정리한다.
+    @Scheduled(fixedDelayString = "${spend-limit.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        localCounters.values().removeIf(counter -> counter.expireAt <= now);
+    }
+
+    private static class Window {
+        private final String key;
+        private final long limit;
+        private final long expireAt;
+
+        private Window(String key, long limit, long expireAt) {
+            this.key = key;
+            this.limit = limit;
+            this.expireAt = expireAt;
+        }
+    }
+
+    // stripe lock 안에서만 바꾼다.
+    private static class LocalCounter {
+        private final long expireAt;
+        private volatile long value;
+
+        private LocalCounter(long expireAt) {
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.account.service;
+
+import com.example.account.tracing.Span;
+import com.example.account.tracing.Tracer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 거래 서비스 메소드와 repository 호출마다 span을 남긴다.
+ * lock aspect 안쪽에서 실행되어 lock을 잡은 뒤의 처리 시간이 서비스/쿼리별로 나뉘어 보인다.
+ */
+@Aspect
+@Component
+@Order(3)
+@ConditionalOnProperty(name = "tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingAopAspect {
+    // repository 구현체(proxy) class별 span 이름 앞부분 (AccountRepository 등)
+    private final ConcurrentHashMap<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.example.account.service.TransactionService.*(..))")
+    public Object aroundTransactionService(ProceedingJoinPoint pjp) throws Throwable {
+        return proceed(pjp, Tracer.start(
+                "TransactionService." + pjp.getSignature().getName()));
+    }
+
+    // 요청 밖(배치 등)의 repository 호출은 trace를 새로 만들지 않는다.
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object aroundRepository(ProceedingJoinPoint pjp) throws Throwable {
+        if (!Tracer.isTracing()) {
+            return pjp.proceed();
+        }
+        return proceed(pjp, Tracer.start(
+                repositoryName(pjp.getTarget()) + "." + pjp.getSignature().getName()));
+    }
+
+    private static Object proceed(ProceedingJoinPoint pjp, Span span) throws Throwable {
+        try {
+            return pjp.proceed();
+        } catch (Throwable e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            span.close();
+        }
+    }
+
+    private String repositoryName(Object target) {
+        return repositoryNames.computeIfAbsent(target.getClass(), type -> {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(target);
+            return interfaces.length > 0 ? interfaces[0].getSimpleName() : type.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.account.service;
+
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.account.service.TransactionService.CANCEL_AVAILABLE_YEARS;
+
+/**
+ * 취소 가능 기간이 지난 거래를 거래 테이블에서 아카이브 테이블로 옮긴다.
+ * 거래 테이블에는 취소 가능한 거래만 남겨서 인덱스 조회와 insert를 빠르게 유지한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionArchiveService {
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.archive.batch-size:500}")
+    private int batchSize = 500;
+
+    @Scheduled(cron = "${transaction.archive.cron:0 0 3 * * *}")
+    public void archiveScheduled() {
+        LocalDateTime now = LocalDateTime.now();
+        ShardContext.forEachShard(() -> archive(now));
+    }
+
+    /**
+     * 배치 단위로 나누어 트랜잭션을 짧게 유지한다.
+     * @return 옮겨진 거래 수
+     */
+    public long archive(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusYears(CANCEL_AVAILABLE_YEARS);
+        long archived = 0;
+
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff, now));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} transactions before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff, LocalDateTime now) {
+        List<Transaction> transactions = transactionRepository
+                .findByTransactedMonthLessThanEqualAndTransactedAtBefore(
+                        Transaction.monthOf(cutoff), cutoff,
+                        PageRequest.of(0, batchSize, Sort.by("id")));
+
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+
+        archivedTransactionRepository.saveAll(transactions.stream()
+                .map(transaction -> ArchivedTransaction.from(transaction, now))
+                .collect(Collectors.toList()));
+        transactionRepository.deleteAllInBatch(transactions);
+
+        return transactions.size();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.account.service;
+
+import com.example.account.audit.TransactionHashChain;
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.dto.AccountChainHead;
+import com.example.account.dto.ChainVerificationReport;
+import com.example.account.dto.TransactionChainEntry;
+import com.example.account.logging.MdcTaskDecorator;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.type.ChainBreakType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 모든 계좌의 거래 hash chain을 검증한다. (거래내역이 수정/삭제되지 않았는지)
+ * 계좌를 chunk 단위로 읽고, chunk 안의 계좌들은 ForkJoinPool에서 병렬로 검증한다. (shard를 나눈 경우 shard마다 차례로)
+ * 계좌별 거래는 필요한 컬럼만 stream으로 읽어서 메모리에 쌓지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionChainVerifier {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction-chain.verify.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${transaction-chain.verify.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${transaction-chain.verify.head-retries:3}")
+    private int headRetries = 3;
+
+    @Scheduled(cron = "${transaction-chain.verify.cron:-}")
+    public void verifyScheduled() {
+        MdcTaskDecorator.runWithNewCorrelationId(this::verifyAll);
+    }
+
+    public ChainVerificationReport verifyAll() {
+        ChainVerificationReport report = ChainVerificationReport.builder()
+                .startedAt(LocalDateTime.now())
+                .breaks(new ArrayList<>())
+                .failedShards(new ArrayList<>())
+                .build();
+        AtomicLong checked = new AtomicLong();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ?
+                parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            ShardContext.forEachShard(() -> verifyShard(report, checked, pool));
+        } finally {
+            pool.shutdown();
+        }
+
+        report.setTransactionsChecked(checked.get());
+        report.setFinishedAt(LocalDateTime.now());
+
+        report.getBreaks().forEach(chainBreak ->
+                log.warn("Transaction chain broken account: {}, transaction: {}, type: {}",
+                        chainBreak.getAccountNumber(), chainBreak.getTransactionId(),
+                        chainBreak.getBreakType()));
+        if (report.isIncomplete()) {
+            log.error("Transaction chain verification incomplete. failed shards: {}, accounts: {}, breaks: {}",
+                    report.getFailedShards(), report.getAccountsChecked(), report.getBreaks().size());
+        } else {
+            log.info("Transaction chain verification finished. accounts: {}, transactions: {}, breaks: {}",
+                    report.getAccountsChecked(), report.getTransactionsChecked(),
+                    report.getBreaks().size());
+        }
+
+        return report;
+    }
+
+    private void verifyShard(ChainVerificationReport report, AtomicLong checked, ForkJoinPool pool) {
+        Integer shard = ShardContext.current();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        try {
+            long lastId = 0L;
+            while (true) {
+                List<AccountChainHead> chunk =
+                        accountRepository.findChainHeadsAfter(lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                // pool의 스레드에서도 같은 shard와 correlation id를 사용한다.
+                List<ChainVerificationReport.Break> breaks = pool.submit(() ->
+                        chunk.parallelStream()
+                                .flatMap(account -> MdcTaskDecorator.call(mdc, () -> ShardContext.call(shard,
+                                        () -> verifyAccount(account, checked))).stream())
+                                .collect(Collectors.toList())
+                ).get();
+
+                report.getBreaks().addAll(breaks);
+                report.setAccountsChecked(report.getAccountsChecked() + chunk.size());
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markFailed(report, shard);
+            log.warn("Transaction chain verification interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            // 끝까지 검증하지 못한 shard는 리포트에 남겨서 끊어진 곳이 없는 것으로 보이지 않게 한다.
+            markFailed(report, shard);
+            log.error("Transaction chain verification failed", e);
+        }
+    }
+
+    private static void markFailed(ChainVerificationReport report, Integer shard) {
+        report.setIncomplete(true);
+        report.getFailedShards().add(shard == null ? 0 : shard);
+    }
+
+    /**
+     * chunk를 읽은 뒤에 거래가 추가되면 stream에는 새 거래가 보이지만 미리 읽은 head는 이전 값이다.
+     * HEAD_MISMATCH가 나오면 head를 다시 읽어서, 그 사이에 바뀌었으면 새 head로 다시 검증한다.
+     * 다시 읽은 head가 그대로라면 그 사이에 추가된 거래가 없으므로 실제로 어긋난 것이다.
+     */
+    private List<ChainVerificationReport.Break> verifyAccount(
+            AccountChainHead account, AtomicLong checked) {
+        AccountChainHead head = account;
+        for (int attempt = 0; ; attempt++) {
+            AtomicLong attemptChecked = new AtomicLong();
+            List<ChainVerificationReport.Break> breaks = verifyAgainst(head, attemptChecked);
+            if (attempt >= headRetries || breaks.stream()
+                    .noneMatch(b -> b.getBreakType() == ChainBreakType.HEAD_MISMATCH)) {
+                checked.addAndGet(attemptChecked.get());
+                return breaks;
+            }
+
+            AccountChainHead current = accountRepository.findChainHeadById(account.getId())
+                    .orElse(head);
+            if (Objects.equals(current.getLastTransactionHash(), head.getLastTransactionHash())) {
+                checked.addAndGet(attemptChecked.get());
+                return breaks;
+            }
+            log.debug("Chain head of account {} moved while verifying, retry", account.getAccountNumber());
+            head = current;
+        }
+    }
+
+    private List<ChainVerificationReport.Break> verifyAgainst(
+            AccountChainHead account, AtomicLong checked) {
+        return transactionTemplate.execute(status -> {
+            try (Stream<TransactionChainEntry> transactions =
+                         transactionRepository.streamChainByAccountId(account.getId())) {
+                return verify(account, transactions.iterator(),
+                        () -> archivedTransactionRepository
+                                .findTopByAccountIdAndTransactionResultTypeOrderByIdDesc(account.getId(), S)
+                                .map(ArchivedTransaction::getHash)
+                                .orElse(null),
+                        checked);
+            }
+        });
+    }
+
+    /**
+     * 거래를 순서대로 읽으면서 내용이 hash와 맞는지, 직전 거래의 hash에 이어지는지 확인한다.
+     * 남아있는 첫 거래가 직전 hash를 가지고 있으면 마지막 아카이브 거래에 이어지는지 확인한다.
+     * 마지막 거래의 hash는 계좌에 저장된 hash와 같아야 한다. (마지막 거래가 지워지지 않았는지)
+     */
+    static List<ChainVerificationReport.Break> verify(
+            AccountChainHead account, Iterator<TransactionChainEntry> transactions,
+            Supplier<String> archivedHash, AtomicLong checked) {
+        List<ChainVerificationReport.Break> breaks = new ArrayList<>();
+        String previousHash = null;
+        String lastTransactionId = null;
+        boolean first = true;
+
+        while (transactions.hasNext()) {
+            TransactionChainEntry transaction = transactions.next();
+            checked.incrementAndGet();
+
+            String expectedPrevious = first
+                    ? (transaction.getPreviousHash() == null ? null : archivedHash.get())
+                    : previousHash;
+            if (!Objects.equals(expectedPrevious, transaction.getPreviousHash())) {
+                breaks.add(chainBreak(account, transaction.getTransactionId(), ChainBreakType.LINK_MISMATCH));
+            }
+            if (!TransactionHashChain.hash(transaction).equals(transaction.getHash())) {
+                breaks.add(chainBreak(account, transaction.getTransactionId(), ChainBreakType.HASH_MISMATCH));
+            }
+            // 어긋난 경우에도 기록된 hash를 기준으로 이후 거래를 계속 검증한다.
+            previousHash = transaction.getHash();
+            lastTransactionId = transaction.getTransactionId();
+            first = false;
+        }
+
+        // 남아있는 거래가 없으면 마지막 아카이브 거래가 chain의 끝이다.
+        String tail = first ? archivedHash.get() : previousHash;
+        if (!Objects.equals(tail, account.getLastTransactionHash())) {
+            breaks.add(chainBreak(account, lastTransactionId, ChainBreakType.HEAD_MISMATCH));
+        }
+        return breaks;
+    }
+
+    private static ChainVerificationReport.Break chainBreak(
+            AccountChainHead account, String transactionId, ChainBreakType breakType) {
+        return ChainVerificationReport.Break.builder()
+                .accountNumber(account.getAccountNumber())
+                .transactionId(transactionId)
+                .breakType(breakType)
+                .build();
+    }
+}
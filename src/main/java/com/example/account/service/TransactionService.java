@@ -1,27 +1,48 @@
 package com.example.account.service;
 
+import com.example.account.aop.ShardKey;
+import com.example.account.cache.SingleFlightCache;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.Hold;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceChangeEvent;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.GroupedUseBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.HoldRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.stream.BalanceChangedEvent;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.*;
+import static com.example.account.type.ShardKeyType.SHARDED_ID;
 import static com.example.account.type.TransactionResultType.*;
 import static com.example.account.type.TransactionType.*;
 
@@ -29,30 +50,97 @@ import static com.example.account.type.TransactionType.*;
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    // 거래 후 취소가 가능한 기간(년)
+    public static final long CANCEL_AVAILABLE_YEARS = 1L;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final AccountService accountService;
+    private final HoldRepository holdRepository;
+    private final HoldExpiryService holdExpiryService;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SpendLimitService spendLimitService;
+
+    // 승인 유효 시간(초)을 지정하지 않았을 때의 기본값
+    @Value("${hold.default-ttl-seconds:604800}")
+    private long defaultHoldTtlSeconds = 604800L;
+
+    // 거래는 저장 후 바뀌지 않으므로, 같은 거래의 동시 조회를 하나로 묶고 잠시 캐시한다.
+    private final SingleFlightCache<String, TransactionDto> transactionCache =
+            new SingleFlightCache<>(Duration.ofMillis(500), 10_000);
 
     @Transactional
-    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+    public TransactionDto useBalance(Long userId, @ShardKey String accountNumber, Long amount) {
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateUseBalance(accountUser, account, amount);
+        LocalDateTime spendChargedAt = validateUseBalance(accountUser, account, amount);
 
         account.useBalance(amount);
+        accountService.evictAccountsByUserId(userId);
+
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account, spendChargedAt));
+    }
+
+    /**
+     * 같은 계좌의 잔액 사용 요청 여러 건을 한 트랜잭션으로 처리한다. (UseBalanceGroupCommitter)
+     * 요청마다 순서대로 검증해서 성공한 요청만 잔액에 반영하고 거래를 남긴다.
+     * 실패한 요청은 다른 요청에 영향을 주지 않고 실패 코드만 채워진다.
+     */
+    @Transactional
+    public void useBalanceGroup(@ShardKey String accountNumber, List<GroupedUseBalance> uses) {
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElse(null);
+
+        boolean used = false;
+        for (GroupedUseBalance use : uses) {
+            try {
+                LocalDateTime spendChargedAt = validateGroupedUse(account, use.getUserId(), use.getAmount());
+
+                account.useBalance(use.getAmount());
+                use.setTransaction(TransactionDto.fromEntity(
+                        saveAndGetTransaction(USE, S, use.getAmount(), account, spendChargedAt)));
+                used = true;
+            } catch (AccountException e) {
+                use.setErrorCode(e.getErrorCode());
+            }
+        }
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account));
+        if (used) {
+            accountService.evictAccountsByUserId(account.getAccountUser().getId());
+        }
+    }
+
+    // 계좌 주인의 요청이면 사용자를 따로 조회하지 않는다.
+    private LocalDateTime validateGroupedUse(Account account, Long userId, Long amount) {
+        if (account == null || !account.getAccountUser().getId().equals(userId)) {
+            if (!accountUserRepository.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+            throw new AccountException(account == null ? ACCOUNT_NOT_FOUND : USER_ACCOUNT_UN_MATCH);
+        }
+        validateBalance(account, amount);
+        return spendLimitService.reserve(userId, account.getAccountNumber(), amount);
     }
 
-    private void validateUseBalance(AccountUser accountUser, Account account, Long amount) {
+    // 사용 한도를 누적한 기간의 기준 시각을 반환한다. (누적하지 않았으면 null)
+    private LocalDateTime validateUseBalance(AccountUser accountUser, Account account, Long amount) {
         if (accountUser.getId() != account.getAccountUser().getId()) {
             throw new AccountException(USER_ACCOUNT_UN_MATCH);
         }
-        if (account.getBalance() < amount) {
+        validateBalance(account, amount);
+        // 한도는 거래를 합산하지 않고 누적 counter로 확인한다. (DB 조회 없음, 마지막에 확인해서 다른 검증에 실패하면 누적하지 않는다)
+        return spendLimitService.reserve(account.getAccountUser().getId(), account.getAccountNumber(), amount);
+    }
+
+    private void validateBalance(Account account, Long amount) {
+        // 승인(hold)으로 묶인 금액은 사용할 수 없다. (heldBalance는 계좌와 함께 조회되므로 추가 조회가 없다)
+        if (account.getAvailableBalance() < amount) {
             throw new AccountException(AMOUNT_EXCEED_BALANCE);
         }
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
@@ -60,12 +148,162 @@ public class TransactionService {
         }
     }
 
+    /**
+     * 출금 계좌에서 입금 계좌로 이체한다.
+     * 두 계좌의 잔액 변경과 서로를 가리키는 출금/입금 거래 저장이 하나의 트랜잭션으로 처리된다.
+     * (두 계좌의 lock은 LockAopAspect가 계좌번호 순서대로 잡는다)
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    public TransactionDto transferBalance(
+            Long userId, @ShardKey String fromAccountNumber, @ShardKey String toAccountNumber, Long amount) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new AccountException(TRANSFER_SAME_ACCOUNT);
+        }
+
+        AccountUser accountUser = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+
+        // 두 계좌를 한 번의 조회로 가져온다.
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        List.of(fromAccountNumber, toAccountNumber))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+        Account fromAccount = accounts.get(fromAccountNumber);
+        Account toAccount = accounts.get(toAccountNumber);
+        if (fromAccount == null || toAccount == null) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+
+        // 이체 출금도 출금 계좌의 사용 한도를 사용한다. (이체는 취소할 수 없으므로 되돌리지 않는다)
+        validateUseBalance(accountUser, fromAccount, amount);
+        if (toAccount.getAccountStatus() == AccountStatus.UNREGISTERED) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        fromAccount.useBalance(amount);
+        toAccount.depositBalance(amount);
+        accountService.evictAccountsByUserId(userId);
+        accountService.evictAccountsByUserId(toAccount.getAccountUser().getId());
+
+        LocalDateTime transactedAt = LocalDateTime.now();
+        Transaction withdrawal = buildTransaction(
+                TRANSFER_OUT, S, amount, fromAccount, transactedAt);
+        Transaction deposit = buildTransaction(
+                TRANSFER_IN, S, amount, toAccount, transactedAt);
+        withdrawal.setPairedTransactionId(deposit.getTransactionId());
+        deposit.setPairedTransactionId(withdrawal.getTransactionId());
+        fromAccount.chain(withdrawal);
+        toAccount.chain(deposit);
+        transactionRepository.saveAll(List.of(withdrawal, deposit));
+        saveBalanceChange(withdrawal);
+        saveBalanceChange(deposit);
+
+        return TransactionDto.fromEntity(withdrawal);
+    }
+
+    /**
+     * 금액을 승인(hold)한다. 잔액은 그대로 두고 사용 가능한 잔액에서만 빠진다.
+     * 승인된 금액은 매입(capture), 해제(release) 되거나 만료 시각이 지나면 HoldExpiryService가 해제한다.
+     */
+    @Transactional
+    public HoldDto holdBalance(Long userId, @ShardKey String accountNumber, Long amount, Long ttlSeconds) {
+        AccountUser accountUser = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        validateUseBalance(accountUser, account, amount);
+
+        account.holdBalance(amount);
+
+        LocalDateTime heldAt = LocalDateTime.now();
+        Hold hold = holdRepository.save(Hold.builder()
+                .holdId(ShardContext.newId())
+                .account(account)
+                .amount(amount)
+                .status(HoldStatus.HELD)
+                .heldAt(heldAt)
+                .expiresAt(heldAt.plusSeconds(ttlSeconds == null ? defaultHoldTtlSeconds : ttlSeconds))
+                .build());
+        // 트랜잭션이 롤백되어 승인이 없어도 만료 처리에서 건너뛰므로 바로 등록한다.
+        holdExpiryService.schedule(hold.getHoldId(), hold.getExpiresAt());
+
+        return HoldDto.fromEntity(hold);
+    }
+
+    /**
+     * 승인된 금액 중 amount만큼 매입(사용)하고 나머지는 해제한다.
+     */
+    @Transactional
+    public TransactionDto captureHold(String holdId, @ShardKey String accountNumber, Long amount) {
+        Hold hold = getActiveHold(holdId, accountNumber);
+        if (amount > hold.getAmount()) {
+            throw new AccountException(HOLD_CAPTURE_EXCEED);
+        }
+
+        Account account = hold.getAccount();
+        account.captureHold(hold.getAmount(), amount);
+        hold.close(HoldStatus.CAPTURED, LocalDateTime.now());
+        // 매입하지 않은 금액은 승인할 때 누적한 사용 한도에서 되돌린다.
+        restoreSpendLimit(hold, hold.getAmount() - amount);
+        accountService.evictAccountsByUserId(account.getAccountUser().getId());
+
+        // 매입한 금액은 승인할 때의 기간에 누적되어 있으므로, 취소하면 그 기간의 한도에서 되돌린다.
+        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account, hold.getHeldAt()));
+    }
+
+    @Transactional
+    public HoldDto releaseHold(String holdId, @ShardKey String accountNumber) {
+        Hold hold = getActiveHold(holdId, accountNumber);
+
+        hold.getAccount().releaseHold(hold.getAmount());
+        hold.close(HoldStatus.RELEASED, LocalDateTime.now());
+        restoreSpendLimit(hold, hold.getAmount());
+
+        return HoldDto.fromEntity(hold);
+    }
+
+    private void restoreSpendLimit(Hold hold, Long amount) {
+        Account account = hold.getAccount();
+        spendLimitService.restore(account.getAccountUser().getId(),
+                account.getAccountNumber(), amount, hold.getHeldAt());
+    }
+
+    private Hold getActiveHold(String holdId, String accountNumber) {
+        Hold hold = holdRepository.findByHoldId(holdId)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
 
-        saveAndGetTransaction(USE, F, amount, account);
+        if (!hold.getAccount().getAccountNumber().equals(accountNumber)) {
+            throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        // 만료 시각이 지났지만 아직 해제되지 않은 승인도 매입할 수 없다.
+        if (!hold.isActive(LocalDateTime.now())) {
+            throw new AccountException(HOLD_ALREADY_CLOSED);
+        }
+        return hold;
+    }
+
+    /**
+     * FailedTransactionRecorder가 모아둔 실패 거래를 한 트랜잭션으로 저장한다.
+     * 계좌는 한 번의 조회로 가져오고, 없는 계좌의 실패 거래는 저장하지 않는다.
+     * (shard를 나눈 경우 FailedTransactionRecorder가 shard별로 나누어 호출한다)
+     */
+    @Transactional
+    public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        failedTransactions.stream()
+                                .map(FailedTransaction::getAccountNumber)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        transactionRepository.saveAll(failedTransactions.stream()
+                .filter(failed -> accounts.containsKey(failed.getAccountNumber()))
+                .map(failed -> buildTransaction(
+                        failed.getTransactionType(), F, failed.getAmount(),
+                        accounts.get(failed.getAccountNumber()), failed.getTransactedAt()))
+                .collect(Collectors.toList()));
     }
 
     private Transaction saveAndGetTransaction(
@@ -73,23 +311,60 @@ public class TransactionService {
             TransactionResultType transactionResultType,
             Long amount,
             Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+        return saveAndGetTransaction(transactionType, transactionResultType, amount, account, null);
+    }
+
+    private Transaction saveAndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            LocalDateTime spendChargedAt) {
+        Transaction transaction = buildTransaction(transactionType, transactionResultType,
+                amount, account, LocalDateTime.now());
+        transaction.setSpendChargedAt(spendChargedAt);
+        if (transactionResultType == S) {
+            // 실패 거래는 잔액을 바꾸지 않으므로 chain에 잇지 않는다. (계좌를 갱신하지 않는다)
+            account.chain(transaction);
+            saveBalanceChange(transaction);
+        }
+        return transactionRepository.save(transaction);
+    }
+
+    // 잔액이 바뀐 거래는 같은 트랜잭션에서 outbox에도 저장하고(OutboxRelay가 발행),
+    // commit 후 잔액 구독자에게 전달되도록 event를 발행한다. (BalanceStreamHub)
+    private void saveBalanceChange(Transaction transaction) {
+        OutboxEvent outboxEvent = OutboxEvent.from(transaction);
+        outboxEventRepository.save(outboxEvent);
+        eventPublisher.publishEvent(new BalanceChangedEvent(
+                transaction.getAccount().getAccountUser().getId(),
+                BalanceChangeEvent.from(outboxEvent)));
+    }
+
+    private Transaction buildTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(account.getBalance())
+                .transactionId(ShardContext.newId())
+                .transactedAt(transactedAt)
+                .build();
     }
 
     @Transactional
-    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+    public TransactionDto cancelBalance(String transactionId, @ShardKey String accountNumber, Long amount) {
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+                .orElseThrow(() -> archivedTransactionRepository.findByTransactionId(transactionId)
+                        // 아카이브로 옮겨진 거래는 취소 가능 기간이 지난 거래이다.
+                        .map(archived -> new AccountException(TOO_OLD_ORDER_TO_CANCEL))
+                        .orElseGet(() -> new AccountException(TRANSACTION_NOT_FOUND)));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
@@ -97,34 +372,42 @@ public class TransactionService {
         validateCancelBalance(transaction, account, amount);
 
         account.cancelBalance(amount);
+        // 한도를 누적한 날(달)의 한도에서 되돌린다. (누적 시각을 저장하기 전의 거래는 거래 시각 기준)
+        if (transaction.getTransactionType() == USE && transaction.getTransactionResultType() == S) {
+            spendLimitService.restore(account.getAccountUser().getId(), accountNumber, amount,
+                    transaction.getSpendChargedAt() != null
+                            ? transaction.getSpendChargedAt() : transaction.getTransactedAt());
+        }
+        accountService.evictAccountsByUserId(account.getAccountUser().getId());
+
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(CANCEL, S, amount, account));
     }
 
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+        if (transaction.getTransactionType().isTransfer()) {
+            throw new AccountException(TRANSFER_NOT_CANCELABLE);
+        }
         if (!transaction.getAccount().getId().equals(account.getId())) {
             throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
         }
         if (!transaction.getAmount().equals(amount)) {
             throw new AccountException(CANCEL_MUST_FULLY);
         }
-        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(CANCEL_AVAILABLE_YEARS))) {
             throw new AccountException(TOO_OLD_ORDER_TO_CANCEL);
         }
     }
 
-    @Transactional
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
-
-        saveAndGetTransaction(CANCEL, F, amount, account);
+    public TransactionDto queryTransaction(@ShardKey(SHARDED_ID) String transactionId) {
+        return transactionCache.get(transactionId, this::findTransaction);
     }
 
-    public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                        .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND))
-        );
+    private TransactionDto findTransaction(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId)
+                .map(TransactionDto::fromEntity)
+                .or(() -> archivedTransactionRepository.findByTransactionId(transactionId)
+                        .map(TransactionDto::fromArchive))
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
     }
 }
@@ -0,0 +1,238 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.GroupedUseBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.tracing.Span;
+import com.example.account.tracing.Tracer;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 같은 계좌의 잔액 사용 요청을 모아서 한 번의 lock, 한 트랜잭션으로 처리한다. (group commit)
+ * 요청은 계좌별 대기열에 들어가고, 대기열을 맡은 스레드(leader) 하나가 lock을 잡고 쌓인 요청을 한꺼번에 처리한다.
+ * 나머지 요청 스레드는 자신의 결과가 채워질 때까지 기다린다.
+ * 요청마다 거래가 따로 남고 성공/실패도 따로 돌려받는다. (TransactionService.useBalanceGroup)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UseBalanceGroupCommitter {
+    // leader가 끝날 때 깨우지 못한 대기 스레드도 이 간격으로 다시 확인한다.
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final HotAccountTracker hotAccountTracker;
+
+    @Value("${transaction.group-commit.enabled:false}")
+    private boolean enabled = false;
+
+    // 한 트랜잭션에 묶을 최대 요청 수
+    @Value("${transaction.group-commit.max-batch:64}")
+    private int maxBatch = 64;
+
+    // 처리되지 않고 이 시간이 지나면 lock 대기 실패로 응답한다.
+    @Value("${transaction.group-commit.wait-ms:5000}")
+    private long waitMs = 5000L;
+
+    // leader가 이미 가져간 요청은 wait-ms가 지나도 이 시간만큼 더 결과를 기다린다. (leader가 멈춰도 끝없이 기다리지 않는다)
+    @Value("${transaction.group-commit.result-wait-ms:10000}")
+    private long resultWaitMs = 10000L;
+
+    private final Map<String, AccountQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong grouped = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // LockAopAspect가 요청마다 lock을 잡지 않고 이곳에서 묶어서 잡는다.
+    public boolean handles(AccountLockIdInterface request) {
+        return enabled && request instanceof UseBalance.Request;
+    }
+
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    public long getGroupedCount() {
+        return grouped.get();
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        Pending pending = new Pending(new GroupedUseBalance(userId, amount), Thread.currentThread());
+        AccountQueue queue = queues.computeIfAbsent(accountNumber, key -> new AccountQueue());
+        queue.pending.add(pending);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        long resultDeadline = deadline + TimeUnit.MILLISECONDS.toNanos(resultWaitMs);
+        while (!pending.done) {
+            if (queue.leader.compareAndSet(false, true)) {
+                try {
+                    lead(accountNumber, queue, pending);
+                } finally {
+                    queue.leader.set(false);
+                }
+                handOff(accountNumber, queue);
+            } else if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                // 아직 leader가 가져가지 않았으면 포기하고, 처리 중이면 결과를 기다린다.
+                if (queue.pending.remove(pending)) {
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                if (System.nanoTime() > resultDeadline) {
+                    // 처리되었는지 알 수 없으므로 lock 대기 실패와 구분해서 응답한다.
+                    log.warn("Gave up waiting group commit result of {}", accountNumber);
+                    throw new AccountException(ErrorCode.TRANSACTION_RESULT_UNKNOWN);
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        return pending.result();
+    }
+
+    // 자신의 요청이 처리될 때까지 쌓인 요청을 maxBatch개씩 처리한다.
+    private void lead(String accountNumber, AccountQueue queue, Pending self) {
+        while (!self.done) {
+            List<Pending> batch = new ArrayList<>();
+            Pending next;
+            while (batch.size() < maxBatch && (next = queue.pending.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            commit(accountNumber, batch);
+        }
+    }
+
+    private void commit(String accountNumber, List<Pending> batch) {
+        try {
+            commitLocked(accountNumber, batch);
+        } catch (Throwable e) {
+            // lock 해제 등에서 예상하지 못한 예외가 나도 묶인 요청이 결과를 기다리며 멈춰있지 않게 한다.
+            log.error("Failed to complete {} grouped uses of {}", batch.size(), accountNumber, e);
+            completeAll(batch, e);
+        }
+    }
+
+    private void commitLocked(String accountNumber, List<Pending> batch) {
+        try (Span span = Tracer.start("group-commit")) {
+            span.setAttribute("account.number", accountNumber);
+            span.setAttribute("group.size", batch.size());
+            try {
+                lockService.lock(accountNumber);
+            } catch (AccountException e) {
+                span.recordError(e);
+                record(accountNumber, batch, System.nanoTime(), 0, true);
+                completeAll(batch, e);
+                return;
+            }
+
+            long locked = System.nanoTime();
+            try {
+                List<GroupedUseBalance> uses = new ArrayList<>(batch.size());
+                for (Pending pending : batch) {
+                    uses.add(pending.use);
+                }
+                transactionService.useBalanceGroup(accountNumber, uses);
+                commits.incrementAndGet();
+                grouped.addAndGet(batch.size());
+                completeAll(batch, null);
+                log.debug("Group committed {} uses of {}", batch.size(), accountNumber);
+            } catch (Throwable e) {
+                // 트랜잭션이 롤백되었으므로 묶인 요청 모두 실패한다. (Error도 각 요청 스레드에서 다시 던진다)
+                span.recordError(e);
+                log.error("Failed to commit {} grouped uses of {}", batch.size(), accountNumber, e);
+                completeAll(batch, e);
+            } finally {
+                lockService.unlock(accountNumber);
+                record(accountNumber, batch, locked, System.nanoTime() - locked, false);
+            }
+        }
+    }
+
+    // 대기열이 남아있으면 첫 대기 스레드를 깨워 leader를 넘기고, 비었으면 대기열을 지운다.
+    private void handOff(String accountNumber, AccountQueue queue) {
+        Pending next = queue.pending.peek();
+        if (next != null) {
+            LockSupport.unpark(next.waiter);
+        } else {
+            // 지우는 사이에 들어온 요청은 지워진 대기열에서 스스로 leader가 된다.
+            queues.remove(accountNumber, queue);
+        }
+    }
+
+    // 이미 결과를 받은 요청은 그대로 둔다.
+    private void completeAll(List<Pending> batch, Throwable error) {
+        for (Pending pending : batch) {
+            if (pending.done) {
+                continue;
+            }
+            pending.error = error;
+            pending.done = true;
+            LockSupport.unpark(pending.waiter);
+        }
+    }
+
+    // lock 대기 시간은 요청이 대기열에 들어온 때부터 계산한다.
+    private void record(String accountNumber, List<Pending> batch, long lockedNanos, long holdNanos, boolean lockFailed) {
+        for (Pending pending : batch) {
+            hotAccountTracker.record(accountNumber, lockedNanos - pending.enqueuedNanos, holdNanos, lockFailed);
+        }
+    }
+
+    private static class AccountQueue {
+        private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean leader = new AtomicBoolean();
+    }
+
+    private static class Pending {
+        private final GroupedUseBalance use;
+        private final Thread waiter;
+        private final long enqueuedNanos = System.nanoTime();
+        private volatile Throwable error;
+        private volatile boolean done;
+
+        private Pending(GroupedUseBalance use, Thread waiter) {
+            this.use = use;
+            this.waiter = waiter;
+        }
+
+        private TransactionDto result() {
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            if (error != null) {
+                throw new IllegalStateException(error);
+            }
+            if (use.getErrorCode() != null) {
+                throw new AccountException(use.getErrorCode());
+            }
+            return use.getTransaction();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.account.shard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * key(계좌번호 등)를 shard 번호로 나눈다. (consistent hashing)
+ * shard마다 virtualNodes개의 점을 ring 위에 두고, key의 hash 다음에 오는 점의 shard를 고른다.
+ * shard를 추가해도 새 shard로 옮겨가는 key만 자리가 바뀌고 나머지 key는 그대로 남는다.
+ */
+public class ConsistentHashRing {
+    private final int shardCount;
+    // hash 순으로 정렬된 점과 그 점의 shard
+    private final long[] points;
+    private final int[] shards;
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        this(shardNames(shardCount), virtualNodes);
+    }
+
+    /**
+     * 이름이 있는 node(서버 등)를 나눈다. 점의 위치는 이름으로 정해지므로 목록의 순서가 바뀌어도 같은 node를 고른다.
+     * shardOf는 목록에서 node의 위치를 돌려준다.
+     */
+    public ConsistentHashRing(List<String> nodeNames, int virtualNodes) {
+        if (nodeNames.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException(
+                    "nodes and virtualNodes must be positive: " + nodeNames.size() + ", " + virtualNodes);
+        }
+        this.shardCount = nodeNames.size();
+
+        long[][] nodes = new long[shardCount * virtualNodes][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                nodes[shard * virtualNodes + node] =
+                        new long[]{hash(nodeNames.get(shard) + "#" + node), shard};
+            }
+        }
+        Arrays.sort(nodes, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.points = new long[nodes.length];
+        this.shards = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = nodes[i][0];
+            shards[i] = (int) nodes[i][1];
+        }
+    }
+
+    private static List<String> shardNames(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        List<String> names = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            names.add("shard-" + shard);
+        }
+        return names;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(String key) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // 마지막 점 뒤의 hash는 ring의 처음으로 돌아간다.
+        return shards[index == points.length ? 0 : index];
+    }
+
+    // FNV-1a 64 + murmur3 fmix64 (연속된 계좌번호도 ring 위에 고르게 퍼지도록 섞는다)
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
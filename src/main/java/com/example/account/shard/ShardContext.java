@@ -0,0 +1,145 @@
+package com.example.account.shard;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드가 사용할 shard를 ThreadLocal로 관리한다. (ShardRoutingDataSource가 connection을 얻을 때 읽는다)
+ * shard가 하나뿐이면(shard.count=1) ring이 등록되지 않고, 아무것도 바꾸지 않는다.
+ *
+ * 거래/승인 id는 앞 2자리(hex)에 shard 번호를 넣어서, id만으로 한 shard에서 조회할 수 있게 한다.
+ */
+public final class ShardContext {
+    // id 앞 2자리(hex)에 담을 수 있는 shard 수
+    public static final int MAX_SHARDS = 256;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private static volatile ConsistentHashRing ring;
+
+    private ShardContext() {
+    }
+
+    static void install(ConsistentHashRing consistentHashRing) {
+        ring = consistentHashRing;
+    }
+
+    static void uninstall(ConsistentHashRing consistentHashRing) {
+        if (ring == consistentHashRing) {
+            ring = null;
+        }
+    }
+
+    public static boolean isSharded() {
+        return ring != null;
+    }
+
+    public static int getShardCount() {
+        ConsistentHashRing consistentHashRing = ring;
+        return consistentHashRing == null ? 1 : consistentHashRing.getShardCount();
+    }
+
+    // 지정된 shard가 없으면 null (기본 shard를 사용한다)
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static int shardOf(String accountNumber) {
+        ConsistentHashRing consistentHashRing = ring;
+        return consistentHashRing == null ? 0 : consistentHashRing.shardOf(accountNumber);
+    }
+
+    // 사용자의 계좌는 모두 사용자의 shard에 만든다. (계좌 목록 조회와 계좌 수 제한이 한 shard에서 끝난다)
+    public static int shardOfUser(Long userId) {
+        ConsistentHashRing consistentHashRing = ring;
+        return consistentHashRing == null ? 0 : consistentHashRing.shardOf("user:" + userId);
+    }
+
+    /**
+     * id에 들어있는 shard 번호. 형식이 맞지 않는 id는 기본 shard에서 조회해서 없는 거래로 처리되게 한다.
+     */
+    public static int shardOfId(String id) {
+        int shardCount = getShardCount();
+        if (shardCount == 1 || id == null || id.length() < 2) {
+            return 0;
+        }
+        int high = Character.digit(id.charAt(0), 16);
+        int low = Character.digit(id.charAt(1), 16);
+        if (high < 0 || low < 0) {
+            return 0;
+        }
+        int shard = high * 16 + low;
+        return shard < shardCount ? shard : 0;
+    }
+
+    /**
+     * 현재 shard가 들어간 새 거래/승인 id (32자리 hex)
+     */
+    public static String newId() {
+        Integer shard = CURRENT.get();
+        return shard == null ? newId(0) : newId(shard);
+    }
+
+    public static String newId(int shard) {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        if (!isSharded()) {
+            return id;
+        }
+        return new StringBuilder(id.length())
+                .append(Character.forDigit(shard >>> 4, 16))
+                .append(Character.forDigit(shard & 0xf, 16))
+                .append(id, 2, id.length())
+                .toString();
+    }
+
+    /**
+     * 지정한 shard에서 실행한다. (트랜잭션은 task 안에서 시작해야 해당 shard의 connection을 얻는다)
+     */
+    public static <T> T call(Integer shard, Supplier<T> task) {
+        Integer previous = bind(shard);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void run(Integer shard, Runnable task) {
+        Integer previous = bind(shard);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 모든 shard에서 차례로 실행한다. (배치처럼 전체 계좌/거래를 읽는 작업)
+     */
+    public static void forEachShard(Runnable task) {
+        if (!isSharded()) {
+            task.run();
+            return;
+        }
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            run(shard, task);
+        }
+    }
+
+    /**
+     * @return 이전에 지정되어 있던 shard (restore에 넘긴다)
+     */
+    public static Integer bind(Integer shard) {
+        Integer previous = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        bind(previous);
+    }
+}
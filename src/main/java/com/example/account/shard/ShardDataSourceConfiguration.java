@@ -0,0 +1,92 @@
+package com.example.account.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 계좌번호 hash로 나눈 여러 DB(shard)를 하나의 DataSource로 묶는다. (shard.count가 2 이상일 때만)
+ * shard.urls를 비워두면 spring.datasource.url 뒤에 shard 번호를 붙인 DB를 사용한다. (로컬 in-memory H2)
+ * 접속 계정(username, password, driver)은 spring.datasource 설정을 함께 사용한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("${shard.count:1} > 1")
+public class ShardDataSourceConfiguration {
+    @Value("${shard.count:1}")
+    private int shardCount = 1;
+
+    @Value("${shard.virtual-nodes:160}")
+    private int virtualNodes = 160;
+
+    // 쉼표로 구분한 shard별 jdbc url (shard 번호 순서)
+    @Value("${shard.urls:}")
+    private String[] urls = new String[0];
+
+    private ConsistentHashRing ring;
+    private final List<HikariDataSource> shardDataSources = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties) {
+        if (shardCount > ShardContext.MAX_SHARDS) {
+            throw new IllegalStateException("shard.count must be <= " + ShardContext.MAX_SHARDS);
+        }
+        if (urls.length > 0 && urls.length != shardCount) {
+            throw new IllegalStateException(
+                    "shard.urls has " + urls.length + " urls, but shard.count is " + shardCount);
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            String url = urls.length == 0
+                    ? properties.determineUrl() + "-shard" + shard
+                    : urls[shard].trim();
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            shardDataSources.add(dataSource);
+            targets.put(shard, dataSource);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(targets.get(0));
+        routingDataSource.afterPropertiesSet();
+
+        ring = new ConsistentHashRing(shardCount, virtualNodes);
+        ShardContext.install(ring);
+        log.info("Routing accounts to {} shards ({} virtual nodes each)", shardCount, virtualNodes);
+        return routingDataSource;
+    }
+
+    // 기본 shard 외의 shard에도 테이블을 만든다.
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer() {
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator()));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (ring != null) {
+            ShardContext.uninstall(ring);
+        }
+        shardDataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.account.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * connection을 얻을 때 ShardContext에 지정된 shard의 DataSource를 사용한다.
+ * 지정된 shard가 없으면 기본 DataSource(shard 0)를 사용한다.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.account.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.schema.TargetType;
+
+import java.util.EnumSet;
+
+/**
+ * hibernate는 ddl-auto(create, create-drop)로 기본 shard에만 테이블을 만든다.
+ * 나머지 shard에도 같은 metadata로 테이블을 만든다. (로컬의 in-memory H2 shard용, 운영은 migration으로 만든다)
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+    @Override
+    public void integrate(
+            Metadata metadata,
+            SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+        Object action = sessionFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO);
+        if (!ShardContext.isSharded()
+                || !("create".equals(action) || "create-drop".equals(action))) {
+            return;
+        }
+
+        for (int shard = 1; shard < ShardContext.getShardCount(); shard++) {
+            ShardContext.run(shard, () ->
+                    new SchemaExport().create(EnumSet.of(TargetType.DATABASE), metadata));
+            log.info("Created schema on shard {}", shard);
+        }
+    }
+
+    @Override
+    public void disintegrate(
+            SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
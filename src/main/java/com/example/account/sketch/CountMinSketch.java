@@ -0,0 +1,53 @@
+package com.example.account.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * key별 누적값을 고정된 크기(depth * width)의 카운터로 근사한다.
+ * 같은 칸을 쓰는 다른 key 때문에 실제보다 크게 추정될 수는 있지만 작게 추정되지는 않는다.
+ * 카운터는 atomic add로만 갱신하므로 lock 없이 여러 스레드가 동시에 기록할 수 있다.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counts;
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new AtomicLongArray(depth * width);
+    }
+
+    public void add(String key, long delta) {
+        int h1 = hash(key.hashCode());
+        int h2 = hash(h1 ^ 0x5bd1e995);
+        for (int row = 0; row < depth; row++) {
+            counts.getAndAdd(index(row, h1, h2), delta);
+        }
+    }
+
+    public long estimate(String key) {
+        int h1 = hash(key.hashCode());
+        int h2 = hash(h1 ^ 0x5bd1e995);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts.get(index(row, h1, h2)));
+        }
+        return min;
+    }
+
+    // 행마다 다른 hash 대신 두 hash의 조합(h1 + row * h2)을 쓴다.
+    private int index(int row, int h1, int h2) {
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+    // murmur3 fmix32
+    private static int hash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
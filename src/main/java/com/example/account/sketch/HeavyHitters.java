@@ -0,0 +1,75 @@
+package com.example.account.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CountMinSketch로 key별 점수를 근사하고, 점수가 큰 key 후보만 따로 모아서 상위 k개를 구한다.
+ * 기록은 lock 없이 하고, 후보가 2k개를 넘을 때만 한 스레드가(tryLock) 상위 k개만 남기도록 정리한다.
+ */
+public class HeavyHitters {
+    private final int k;
+    private final CountMinSketch sketch;
+    private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+    // 후보에 들어가기 위한 최소 점수 (정리할 때의 k번째 점수)
+    private volatile long threshold;
+
+    public HeavyHitters(int k, int depth, int width) {
+        this.k = k;
+        this.sketch = new CountMinSketch(depth, width);
+    }
+
+    public void add(String key, long weight) {
+        sketch.add(key, weight);
+        if (candidates.containsKey(key) || sketch.estimate(key) < threshold) {
+            return;
+        }
+        candidates.put(key, Boolean.TRUE);
+        if (candidates.size() > 2 * k && pruneLock.tryLock()) {
+            try {
+                prune();
+            } finally {
+                pruneLock.unlock();
+            }
+        }
+    }
+
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * 점수가 큰 순서대로 최대 k개
+     */
+    public List<String> top() {
+        PriorityQueue<Map.Entry<String, Long>> heap =
+                new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (String key : candidates.keySet()) {
+            heap.add(Map.entry(key, sketch.estimate(key)));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(heap);
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<String> top = new ArrayList<>(entries.size());
+        entries.forEach(entry -> top.add(entry.getKey()));
+        return top;
+    }
+
+    private void prune() {
+        List<String> top = top();
+        if (top.size() < k) {
+            return;
+        }
+        candidates.keySet().retainAll(top);
+        threshold = sketch.estimate(top.get(top.size() - 1));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.account.stream;
+
+import com.example.account.dto.BalanceChangeEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// 잔액이 바뀐 거래가 저장될 때 발행하는 application event (commit 후 BalanceStreamHub가 구독자에게 전달)
+@Getter
+@RequiredArgsConstructor
+public class BalanceChangedEvent {
+    private final Long userId;
+    private final BalanceChangeEvent change;
+}
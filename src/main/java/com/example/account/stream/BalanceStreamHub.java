@@ -0,0 +1,329 @@
+package com.example.account.stream;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.BalanceChangeEvent;
+import com.example.account.logging.MdcTaskDecorator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 사용자별 SSE 구독자에게 잔액 변경 이벤트를 commit 후에 전달한다.
+ * 구독자는 servlet async 요청이라 대기 중에는 스레드를 잡지 않고, 전송은 적은 수의 전송 스레드가 나눠서 한다.
+ * 구독자마다 계좌별 최신 이벤트 하나만 남겨두므로(conflation), 느린 구독자는 중간 잔액을 건너뛰고 최신 잔액만 받는다.
+ * 전송이 send-timeout-ms 넘게 막힌 구독자는 끊고, 막힌 스레드 대신 전송 스레드를 하나 늘려서 다른 구독자에게 계속 보낸다.
+ *
+ * 거래는 계좌를 담당하는 서버에서 처리되므로(cluster), 변경 이벤트를 redis topic으로 다른 서버에도 전달해서
+ * 어느 서버에 연결된 구독자든 받을 수 있게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceStreamHub {
+    private static final String TOPIC = "BALANCE-STREAM";
+
+    // 구독자의 전송 상태
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STUCK = 2;
+    private static final int CLOSED = 3;
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${balance-stream.timeout-ms:1800000}")
+    private long timeoutMs = 1800000L;
+
+    @Value("${balance-stream.sender-threads:4}")
+    private int senderThreads = 4;
+
+    @Value("${balance-stream.send-timeout-ms:5000}")
+    private long sendTimeoutMs = 5000L;
+
+    @Value("${cluster.enabled:false}")
+    private boolean clusterEnabled = false;
+
+    // topic으로 받은 이벤트 중 자신이 보낸 것은 이미 전달했으므로 건너뛴다.
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong slowDropped = new AtomicLong();
+    private Executor executor;
+    private RTopic topic;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "balance-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (clusterEnabled) {
+            topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            topic.addListener(String.class, (channel, message) -> onRemoteMessage(message));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    /**
+     * 구독을 등록하고 현재 잔액을 첫 이벤트(snapshot)로 보낸다.
+     * 등록 후에 snapshot을 조회하므로 그 사이의 변경도 놓치지 않고, 변경 이벤트는 snapshot 다음에 전송된다.
+     */
+    public SseEmitter subscribe(Long userId, Supplier<List<AccountInfo>> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(userId, emitter, snapshot);
+        return emitter;
+    }
+
+    void register(Long userId, SseEmitter emitter, Supplier<List<AccountInfo>> snapshot) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        // snapshot을 보낼 때까지 변경 이벤트는 쌓아두기만 한다.
+        subscriber.scheduled.set(true);
+        subscribers.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot.get()));
+        } catch (IOException e) {
+            remove(subscriber);
+            emitter.completeWithError(e);
+            return;
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        subscriber.scheduled.set(false);
+        if (!subscriber.pending.isEmpty()) {
+            subscriber.schedule();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getSlowDroppedCount() {
+        return slowDropped.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        deliver(event.getUserId(), event.getChange());
+        if (topic != null) {
+            publish(event);
+        }
+    }
+
+    // 다른 서버에 연결된 구독자에게 전달한다. 실패해도 이 서버의 구독자에게는 이미 전달했다.
+    private void publish(BalanceChangedEvent event) {
+        try {
+            topic.publish(nodeId + "|" + event.getUserId() + "|"
+                    + objectMapper.writeValueAsString(event.getChange()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish balance change of user {} to other nodes", event.getUserId(), e);
+        }
+    }
+
+    void onRemoteMessage(String message) {
+        String[] fields = message.split("\\|", 3);
+        if (fields.length < 3 || nodeId.equals(fields[0])) {
+            return;
+        }
+        try {
+            deliver(Long.valueOf(fields[1]), objectMapper.readValue(fields[2], BalanceChangeEvent.class));
+        } catch (JsonProcessingException | NumberFormatException e) {
+            log.warn("Invalid balance stream message : {}", message, e);
+        }
+    }
+
+    private void deliver(Long userId, BalanceChangeEvent change) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(change);
+        }
+    }
+
+    /**
+     * 전송이 send-timeout-ms 넘게 끝나지 않은 구독자를 끊는다.
+     * emitter는 전송 중에 lock이 잡혀 있어서 바로 닫지 않고, 막힌 전송이 끝나면 전송 스레드가 닫는다.
+     */
+    @Scheduled(fixedDelayString = "${balance-stream.send-check-ms:1000}")
+    public void dropSlowSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (now - subscriber.sendStartedAt > timeoutNanos
+                    && subscriber.sendState.compareAndSet(SENDING, STUCK)) {
+                remove(subscriber);
+                slowDropped.incrementAndGet();
+                resizeSenders(1);
+                log.info("Balance stream subscriber of user {} is too slow, dropped", subscriber.userId);
+            }
+        }));
+    }
+
+    // 막힌 전송 스레드 수만큼 전송 스레드를 늘리고, 막힌 전송이 끝나면 되돌린다.
+    private synchronized void resizeSenders(int delta) {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        int size = pool.getCorePoolSize() + delta;
+        if (delta > 0) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    // 프록시/로드밸런서가 유휴 연결을 끊지 않도록 주기적으로 comment를 보낸다. 끊어진 연결도 이때 정리된다.
+    @Scheduled(fixedDelayString = "${balance-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> userSubscribers = subscribers.get(subscriber.userId);
+        if (userSubscribers != null && userSubscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(subscriber.userId, (k, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    private class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        // 아직 보내지 못한 계좌별 최신 이벤트
+        private final Map<String, BalanceChangeEvent> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        // 전송 스레드에 등록되어 있는지 (구독자 하나는 한 번에 한 스레드만 전송한다)
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 진행 중인 전송을 시작한 시각과 전송 상태 (막힌 전송은 끝날 때 전송 스레드 수를 되돌린다)
+        private volatile long sendStartedAt;
+        private final AtomicInteger sendState = new AtomicInteger(IDLE);
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(BalanceChangeEvent change) {
+            pending.merge(change.getAccountNumber(), change, BalanceStreamHub::newer);
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatPending.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(MdcTaskDecorator.wrap(this::drain));
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    for (String accountNumber : pending.keySet()) {
+                        BalanceChangeEvent change = pending.remove(accountNumber);
+                        if (change != null) {
+                            SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                                    .name("balance")
+                                    .data(change);
+                            if (change.getEventId() != null) {
+                                builder.id(String.valueOf(change.getEventId()));
+                            }
+                            send(builder);
+                        }
+                    }
+                    if (heartbeatPending.getAndSet(false)) {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    scheduled.set(false);
+                    // 전송 중에 들어온 이벤트가 있으면 이어서 보낸다.
+                } while ((!pending.isEmpty() || heartbeatPending.get())
+                        && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Balance stream subscriber of user {} disconnected", userId);
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder builder) throws IOException {
+            sendStartedAt = System.nanoTime();
+            if (!sendState.compareAndSet(IDLE, SENDING)) {
+                throw new IllegalStateException("Dropped subscriber");
+            }
+            try {
+                emitter.send(builder);
+            } finally {
+                if (!sendState.compareAndSet(SENDING, IDLE)) {
+                    sendState.set(CLOSED);
+                    resizeSenders(-1);
+                }
+            }
+            if (sendState.get() == CLOSED) {
+                throw new IllegalStateException("Too slow subscriber");
+            }
+        }
+    }
+
+    // 늦게 도착한 이전 이벤트가 최신 이벤트를 덮어쓰지 않게 한다.
+    private static BalanceChangeEvent newer(BalanceChangeEvent current, BalanceChangeEvent next) {
+        if (current.getEventId() != null && next.getEventId() != null
+                && current.getEventId() > next.getEventId()) {
+            return current;
+        }
+        return next;
+    }
+}
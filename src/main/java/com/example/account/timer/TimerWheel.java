@@ -0,0 +1,94 @@
+package com.example.account.timer;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 만료 시각을 tick 단위 slot에 나눠 담는 hashed timer wheel.
+ * 매 tick마다 지나간 slot만 확인하므로 등록된 항목 수와 관계없이 만료 확인 비용이 일정하다.
+ * 한 바퀴(tick * wheelSize)보다 먼 만료 시각은 같은 slot에 남아있다가 해당 바퀴에서 꺼내진다.
+ */
+public class TimerWheel<T> {
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    private final ArrayDeque<T> expired = new ArrayDeque<>();
+
+    // 마지막으로 확인한 tick
+    private long currentTick;
+    private int size;
+
+    public TimerWheel(Duration tick, int wheelSize, long startMillis) {
+        this.tickMillis = tick.toMillis();
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long tick = deadlineMillis / tickMillis;
+        size++;
+        // 이미 지나간 tick이면 다음 poll에서 바로 꺼낸다.
+        if (tick < currentTick) {
+            expired.add(item);
+            return;
+        }
+        slots.get(slotOf(tick)).add(new Entry<>(item, deadlineMillis));
+    }
+
+    /**
+     * nowMillis까지 지나간 slot에서 만료된 항목을 모아 최대 maxSize개를 꺼낸다.
+     * 남은 항목은 다음 poll에서 꺼낸다.
+     */
+    public synchronized List<T> poll(long nowMillis, int maxSize) {
+        advance(nowMillis);
+
+        List<T> batch = new ArrayList<>(Math.min(maxSize, expired.size()));
+        while (batch.size() < maxSize && !expired.isEmpty()) {
+            batch.add(expired.poll());
+        }
+        size -= batch.size();
+        return batch;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        // 현재 tick의 slot은 아직 만료되지 않은 항목이 남아있을 수 있어 다시 확인한다.
+        // 오래 멈춰있었어도 모든 slot을 한 번씩만 확인하면 된다.
+        long from = Math.max(currentTick, nowTick - slots.size() + 1);
+
+        for (long tick = from; tick <= nowTick; tick++) {
+            Iterator<Entry<T>> iterator = slots.get(slotOf(tick)).iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.deadlineMillis <= nowMillis) {
+                    expired.add(entry.item);
+                    iterator.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineMillis;
+
+        Entry(T item, long deadlineMillis) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
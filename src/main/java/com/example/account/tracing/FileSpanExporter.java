@@ -0,0 +1,50 @@
+package com.example.account.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * trace 하나를 OTLP JSON(TracesData) 한 줄로 파일 끝에 추가한다.
+ * OpenTelemetry collector의 otlpjsonfile receiver가 읽는 형식과 같다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+public class FileSpanExporter implements SpanExporter {
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.application.name:account}")
+    private String serviceName = "account";
+
+    @Value("${tracing.file.path:traces/traces.jsonl}")
+    private String path = "traces/traces.jsonl";
+
+    @Override
+    public void export(List<Span> spans) {
+        try {
+            String line = objectMapper.writeValueAsString(
+                    OtlpJson.tracesData(serviceName, List.of(spans))) + '\n';
+
+            Path file = Paths.get(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8), CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
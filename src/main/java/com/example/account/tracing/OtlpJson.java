@@ -0,0 +1,93 @@
+package com.example.account.tracing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * span 목록을 OTLP(OpenTelemetry protocol)의 JSON 형식(TracesData)으로 바꾼다.
+ * 파일로 남긴 결과를 그대로 OpenTelemetry collector(otlpjsonfile receiver)나 조회 도구에 넣을 수 있다.
+ */
+public final class OtlpJson {
+    private static final String SCOPE_NAME = "com.example.account";
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private OtlpJson() {
+    }
+
+    public static Map<String, Object> tracesData(String serviceName, Collection<List<Span>> traces) {
+        List<Object> spans = new ArrayList<>();
+        for (List<Span> trace : traces) {
+            for (Span span : trace) {
+                spans.add(span(span));
+            }
+        }
+
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("attributes", List.of(attribute("service.name", serviceName)));
+
+        Map<String, Object> scopeSpans = new LinkedHashMap<>();
+        scopeSpans.put("scope", Map.of("name", SCOPE_NAME));
+        scopeSpans.put("spans", spans);
+
+        Map<String, Object> resourceSpans = new LinkedHashMap<>();
+        resourceSpans.put("resource", resource);
+        resourceSpans.put("scopeSpans", List.of(scopeSpans));
+
+        Map<String, Object> tracesData = new LinkedHashMap<>();
+        tracesData.put("resourceSpans", List.of(resourceSpans));
+        return tracesData;
+    }
+
+    private static Map<String, Object> span(Span span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanId() != null) {
+            json.put("parentSpanId", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("kind", span.isRoot() ? SPAN_KIND_SERVER : SPAN_KIND_INTERNAL);
+        // 64bit 정수는 JSON 숫자로 정확히 표현되지 않을 수 있어 문자열로 쓴다. (OTLP JSON 규칙)
+        json.put("startTimeUnixNano", String.valueOf(Tracer.toEpochNanos(span.getStartNanos())));
+        json.put("endTimeUnixNano", String.valueOf(Tracer.toEpochNanos(span.getEndNanos())));
+
+        List<Object> attributes = new ArrayList<>();
+        span.getAttributes().forEach((key, value) -> attributes.add(attribute(key, value)));
+        json.put("attributes", attributes);
+
+        if (span.isError()) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("code", STATUS_CODE_ERROR);
+            status.put("message", span.getErrorMessage());
+            json.put("status", status);
+        } else {
+            json.put("status", Map.of());
+        }
+        return json;
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> attribute = new LinkedHashMap<>();
+        attribute.put("key", key);
+        attribute.put("value", anyValue(value));
+        return attribute;
+    }
+
+    private static Map<String, Object> anyValue(Object value) {
+        if (value instanceof Boolean) {
+            return Map.of("boolValue", value);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return Map.of("intValue", String.valueOf(value));
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return Map.of("doubleValue", value);
+        }
+        return Map.of("stringValue", String.valueOf(value));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.account.tracing;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 한 구간(span)의 이름, 시작/종료 시각, 속성을 담는다.
+ * 시작한 스레드에서 닫아야 하며, 닫으면 부모 span이 다시 현재 span이 된다.
+ * 가장 바깥 span(root)이 닫히면 trace 전체가 {@link TraceCollector}로 넘어간다.
+ */
+@Getter
+public class Span implements AutoCloseable {
+    // tracing이 꺼져 있을 때 돌려주는 span (아무것도 기록하지 않는다)
+    static final Span NOOP = new Span(null, null, null, null, null);
+
+    private final String traceId;
+    private final String spanId;
+    @Getter(AccessLevel.NONE)
+    private final Span parent;
+    private final String name;
+    private final long startNanos;
+    private long endNanos;
+    @Getter(AccessLevel.NONE)
+    private boolean ended;
+    private Map<String, Object> attributes;
+    private String errorMessage;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final Trace trace;
+
+    Span(Trace trace, String traceId, String spanId, Span parent, String name) {
+        this.trace = trace;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parent = parent;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (this == NOOP) {
+            return this;
+        }
+        if (attributes == null) {
+            attributes = new LinkedHashMap<>();
+        }
+        attributes.put(key, value);
+        return this;
+    }
+
+    public void recordError(Throwable e) {
+        if (this == NOOP) {
+            return;
+        }
+        errorMessage = e.getClass().getSimpleName()
+                + (e.getMessage() == null ? "" : ": " + e.getMessage());
+    }
+
+    public String getParentSpanId() {
+        return parent == null ? null : parent.spanId;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes == null ? Collections.emptyMap() : attributes;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    public boolean isRoot() {
+        return parent == null;
+    }
+
+    public boolean isError() {
+        return errorMessage != null;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    @Override
+    public void close() {
+        if (this == NOOP || ended) {
+            return;
+        }
+        ended = true;
+        endNanos = System.nanoTime();
+        Tracer.end(this);
+    }
+}
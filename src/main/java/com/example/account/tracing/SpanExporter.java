@@ -0,0 +1,11 @@
+package com.example.account.tracing;
+
+import java.util.List;
+
+/**
+ * 수집하기로 한 trace를 외부(파일, collector 등)로 내보낸다.
+ * 요청 스레드가 아닌 TraceCollector의 export 스레드에서 호출된다.
+ */
+public interface SpanExporter {
+    void export(List<Span> spans);
+}
@@ -0,0 +1,33 @@
+package com.example.account.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 한 요청(trace)에서 끝난 span을 모은다. span 수가 maxSpans를 넘으면 나머지는 버리고 개수만 센다.
+class Trace {
+    private final TraceCollector collector;
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private int droppedSpans;
+
+    Trace(TraceCollector collector, int maxSpans) {
+        this.collector = collector;
+        this.maxSpans = maxSpans;
+    }
+
+    void add(Span span) {
+        if (spans.size() < maxSpans) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    void finish(Span root) {
+        if (droppedSpans > 0) {
+            root.setAttribute("trace.dropped_spans", droppedSpans);
+        }
+        spans.add(root);
+        collector.onTraceEnd(root, spans);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.account.tracing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 끝난 trace 중에서 느리거나(slow-threshold-ms 이상) 실패했거나 샘플링된 trace만 남긴다.
+ * 요청마다 span은 항상 만들고, 남길지는 요청이 끝난 뒤 결정하므로 느린 요청은 빠짐없이 남는다.
+ * 최근 trace는 메모리에 보관하고(GET /admin/traces), exporter가 있으면 별도 스레드에서 내보낸다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TraceCollector {
+    private final List<SpanExporter> spanExporters;
+
+    @Value("${tracing.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${spring.application.name:account}")
+    private String serviceName = "account";
+
+    @Value("${tracing.slow-threshold-ms:200}")
+    private long slowThresholdMs = 200L;
+
+    @Value("${tracing.sample-rate:0.01}")
+    private double sampleRate = 0.01;
+
+    @Getter
+    @Value("${tracing.max-spans-per-trace:256}")
+    private int maxSpansPerTrace = 256;
+
+    @Value("${tracing.memory.capacity:100}")
+    private int capacity = 100;
+
+    @Value("${tracing.export.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    private final ArrayDeque<List<Span>> traces = new ArrayDeque<>();
+    private final AtomicLong droppedTraces = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!spanExporters.isEmpty()) {
+            // export가 밀리면 요청 스레드를 막지 않고 버린다.
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "trace-exporter");
+                thread.setDaemon(true);
+                return thread;
+            }, (runnable, pool) -> droppedTraces.incrementAndGet());
+        }
+        Tracer.install(this);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        Tracer.uninstall(this);
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    void onTraceEnd(Span root, List<Span> spans) {
+        if (!shouldKeep(root)) {
+            return;
+        }
+        synchronized (traces) {
+            if (traces.size() >= capacity) {
+                traces.poll();
+            }
+            traces.add(spans);
+        }
+        if (executor != null) {
+            executor.execute(() -> export(spans));
+        }
+    }
+
+    private boolean shouldKeep(Span root) {
+        return root.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)
+                || root.isError()
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void export(List<Span> spans) {
+        for (SpanExporter spanExporter : spanExporters) {
+            try {
+                spanExporter.export(spans);
+            } catch (Exception e) {
+                log.warn("Failed to export trace {}", spans.get(0).getTraceId(), e);
+            }
+        }
+    }
+
+    /**
+     * 최근에 남긴 trace를 최신순으로 최대 limit개 OTLP JSON 형식으로 돌려준다.
+     */
+    public Map<String, Object> getRecentTraces(int limit) {
+        List<List<Span>> recent = new ArrayList<>(Math.min(limit, capacity));
+        synchronized (traces) {
+            Iterator<List<Span>> iterator = traces.descendingIterator();
+            while (iterator.hasNext() && recent.size() < limit) {
+                recent.add(iterator.next());
+            }
+        }
+        return OtlpJson.tracesData(serviceName, recent);
+    }
+
+    public long getDroppedTraces() {
+        return droppedTraces.get();
+    }
+}
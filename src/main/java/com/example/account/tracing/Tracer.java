@@ -0,0 +1,118 @@
+package com.example.account.tracing;
+
+import com.example.account.logging.CorrelationIdFilter;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 스레드의 현재 span을 ThreadLocal로 관리한다. (MDC처럼 어디서든 꺼내 쓸 수 있게 static으로 둔다)
+ * TraceCollector가 등록되지 않았으면(tracing.enabled=false) 기록하지 않는 span을 돌려준다.
+ *
+ * try (Span span = Tracer.start("name")) { ... }
+ */
+public final class Tracer {
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final Pattern TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+
+    // System.nanoTime()을 epoch 기준 시각으로 바꾸기 위한 차이
+    private static final long EPOCH_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    private static volatile TraceCollector collector;
+
+    private Tracer() {
+    }
+
+    static void install(TraceCollector traceCollector) {
+        collector = traceCollector;
+    }
+
+    static void uninstall(TraceCollector traceCollector) {
+        if (collector == traceCollector) {
+            collector = null;
+        }
+    }
+
+    /**
+     * 현재 span의 자식 span을 시작한다. 현재 span이 없으면 새 trace를 시작한다.
+     */
+    public static Span start(String name) {
+        TraceCollector traceCollector = collector;
+        if (traceCollector == null) {
+            return Span.NOOP;
+        }
+
+        Span parent = CURRENT.get();
+        Span span = parent == null
+                ? new Span(new Trace(traceCollector, traceCollector.getMaxSpansPerTrace()),
+                traceIdOf(MDC.get(CorrelationIdFilter.MDC_KEY)), randomHex(8), null, name)
+                : new Span(parent.getTrace(), parent.getTraceId(), randomHex(8), parent, name);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * 진행 중인 trace가 있을 때만 자식 span을 시작한다.
+     * repository 호출처럼 요청 밖(배치 등)에서도 자주 불리는 구간은 따로 trace를 만들지 않는다.
+     */
+    public static Span startChild(String name) {
+        if (!isTracing()) {
+            return Span.NOOP;
+        }
+        return start(name);
+    }
+
+    // 이 스레드에서 진행 중인 trace가 있는지
+    public static boolean isTracing() {
+        return collector != null && CURRENT.get() != null;
+    }
+
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span == null ? Span.NOOP : span;
+    }
+
+    static void end(Span span) {
+        if (CURRENT.get() == span) {
+            if (span.getParent() == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(span.getParent());
+            }
+        }
+
+        if (span.isRoot()) {
+            span.getTrace().finish(span);
+        } else {
+            span.getTrace().add(span);
+        }
+    }
+
+    static long toEpochNanos(long nanoTime) {
+        return EPOCH_OFFSET_NANOS + nanoTime;
+    }
+
+    // correlation id가 32자리 hex면 그대로 trace id로 써서 로그와 trace를 같은 id로 찾을 수 있게 한다.
+    private static String traceIdOf(String correlationId) {
+        if (correlationId != null && TRACE_ID.matcher(correlationId).matches()) {
+            return correlationId;
+        }
+        return randomHex(16);
+    }
+
+    private static String randomHex(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder builder = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            String hex = Integer.toHexString(random.nextInt(256));
+            if (hex.length() == 1) {
+                builder.append('0');
+            }
+            builder.append(hex);
+        }
+        return builder.toString();
+    }
+}
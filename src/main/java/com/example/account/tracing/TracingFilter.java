@@ -0,0 +1,40 @@
+package com.example.account.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 하나를 root span으로 감싼다. correlation id가 정해진 뒤에 실행되어 같은 id를 trace id로 쓴다.
+ * 동시 처리 한도(admission)에서 거절된 요청은 trace를 만들지 않는다.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class TracingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        try (Span span = Tracer.start(request.getMethod() + " " + request.getRequestURI())) {
+            span.setAttribute("http.method", request.getMethod())
+                    .setAttribute("http.target", request.getRequestURI());
+            try {
+                filterChain.doFilter(request, response);
+            } catch (IOException | ServletException | RuntimeException e) {
+                span.recordError(e);
+                throw e;
+            } finally {
+                span.setAttribute("http.status_code", response.getStatus());
+            }
+        }
+    }
+}
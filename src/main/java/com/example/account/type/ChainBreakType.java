@@ -0,0 +1,10 @@
+package com.example.account.type;
+
+public enum ChainBreakType {
+    // 거래 내용이 hash와 다르다. (수정된 거래)
+    HASH_MISMATCH,
+    // 직전 거래의 hash와 연결되지 않는다. (중간 거래 삭제, 추가, 순서 변경)
+    LINK_MISMATCH,
+    // 계좌에 저장된 마지막 hash와 마지막 거래가 다르다. (마지막 거래 삭제)
+    HEAD_MISMATCH
+}
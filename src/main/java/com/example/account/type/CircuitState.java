@@ -0,0 +1,10 @@
+package com.example.account.type;
+
+public enum CircuitState {
+    // 정상: 모든 요청을 보낸다.
+    CLOSED,
+    // 차단: 보내지 않고 바로 대체 경로로 처리한다.
+    OPEN,
+    // 차단 시간이 지나서 요청 하나만 보내 복구 여부를 확인하는 중
+    HALF_OPEN
+}
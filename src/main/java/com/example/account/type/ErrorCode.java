@@ -19,7 +19,22 @@ public enum ErrorCode {
     MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개입니다."),
     BALANCE_NOT_EMPTY("계좌에 잔액이 남아있어 해지할 수 없습니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
-    AMOUNT_EXCEED_BALANCE("사용금액이 잔액보다 큽니다.");
+    AMOUNT_EXCEED_BALANCE("사용금액이 잔액보다 큽니다."),
+    TOO_MANY_REQUESTS("요청이 너무 많습니다. 잠시 후 다시 시도해주세요."),
+    TRANSFER_SAME_ACCOUNT("같은 계좌로는 이체할 수 없습니다."),
+    TRANSFER_NOT_CANCELABLE("이체 거래는 취소할 수 없습니다."),
+    HOLD_NOT_FOUND("승인 내역이 없습니다."),
+    HOLD_ALREADY_CLOSED("이미 매입, 해제 또는 만료된 승인입니다."),
+    HOLD_CAPTURE_EXCEED("승인 금액보다 큰 금액은 매입할 수 없습니다."),
+    // 처리되지 않은 요청이므로 같은 요청으로 다시 시도해도 된다.
+    SERVER_OVERLOADED("요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해주세요."),
+    LOCK_UNAVAILABLE("일시적으로 거래를 처리할 수 없습니다. 잠시 후 다시 시도해주세요."),
+    CROSS_SHARD_NOT_SUPPORTED("서로 다른 DB(shard)에 있는 계좌는 함께 처리할 수 없습니다."),
+    // 담당 서버에서 처리되었을 수 있으므로 거래 결과를 확인한 뒤 다시 시도해야 한다.
+    OWNER_NODE_UNAVAILABLE("계좌를 담당하는 서버가 응답하지 않습니다. 거래 결과를 확인한 뒤 다시 시도해주세요."),
+    // 처리 중에 응답을 포기한 요청이므로 거래 결과를 확인한 뒤 다시 시도해야 한다.
+    TRANSACTION_RESULT_UNKNOWN("거래 처리 결과를 확인하지 못했습니다. 거래 결과를 확인한 뒤 다시 시도해주세요."),
+    SPEND_LIMIT_EXCEEDED("일/월 사용 한도를 초과했습니다.");
 
     private final String description;
 }
@@ -0,0 +1,9 @@
+package com.example.account.type;
+
+// redis lock을 사용할 수 없을 때의 처리 방식
+public enum LockFallbackPolicy {
+    // 이 서버 안의 계좌 lock만 잡고 처리한다. (서버 간 동시 변경은 Account의 version으로 막는다)
+    LOCAL,
+    // 처리하지 않고 바로 LOCK_UNAVAILABLE로 응답한다.
+    FAIL_FAST
+}
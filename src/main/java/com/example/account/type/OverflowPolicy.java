@@ -0,0 +1,8 @@
+package com.example.account.type;
+
+// 비동기 큐가 가득 찼을 때의 처리 방식
+public enum OverflowPolicy {
+    DROP_NEWEST,
+    DROP_OLDEST,
+    CALLER_RUNS
+}
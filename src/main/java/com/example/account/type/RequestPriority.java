@@ -0,0 +1,17 @@
+package com.example.account.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 혼잡할 때 먼저 거절되는 순서는 READ -> WRITE -> CANCEL 이다.
+@Getter
+@AllArgsConstructor
+public enum RequestPriority {
+    // 취소/해제: 묶인 잔액을 돌려주는 요청이라 끝까지 받는다.
+    CANCEL(1.0),
+    WRITE(0.9),
+    READ(0.75);
+
+    // 동시 처리 한도 중 이 우선순위가 사용할 수 있는 비율
+    private final double limitShare;
+}
@@ -0,0 +1,11 @@
+package com.example.account.type;
+
+// shard를 고르는 값의 종류
+public enum ShardKeyType {
+    // 계좌번호의 hash
+    ACCOUNT_NUMBER,
+    // 사용자 id의 hash (사용자의 계좌는 모두 이 shard에 만든다)
+    USER_ID,
+    // 앞 2자리에 shard 번호가 들어있는 거래/승인 id
+    SHARDED_ID
+}
@@ -1,5 +1,14 @@
 package com.example.account.type;
 
 public enum TransactionType {
-    USE, CANCEL
+    USE, CANCEL, TRANSFER_OUT, TRANSFER_IN;
+
+    // 잔액이 줄어드는 거래
+    public boolean isDebit() {
+        return this == USE || this == TRANSFER_OUT;
+    }
+
+    public boolean isTransfer() {
+        return this == TRANSFER_OUT || this == TRANSFER_IN;
+    }
 }
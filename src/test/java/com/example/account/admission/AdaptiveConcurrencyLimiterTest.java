@@ -0,0 +1,104 @@
+package com.example.account.admission;
+
+import com.example.account.type.RequestPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("한도에 가까워지면 조회부터 거절하고 취소는 끝까지 받는다")
+    void tryAcquire_Priority() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        // when
+        for (int i = 0; i < 15; i++) {
+            assertThat(limiter.tryAcquire(RequestPriority.READ)).isTrue();
+        }
+
+        // then
+        assertThat(limiter.tryAcquire(RequestPriority.READ)).isFalse();
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(RequestPriority.WRITE)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(RequestPriority.WRITE)).isFalse();
+        assertThat(limiter.tryAcquire(RequestPriority.CANCEL)).isTrue();
+        assertThat(limiter.tryAcquire(RequestPriority.CANCEL)).isTrue();
+        assertThat(limiter.tryAcquire(RequestPriority.CANCEL)).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("지연시간이 그대로면 사용 중인 한도를 늘린다")
+    void onSample_Increase() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(10 * MS, 20);
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    @DisplayName("한도의 절반도 쓰지 않으면 한도를 늘리지 않는다")
+    void onSample_IdleNotIncrease() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(10 * MS, 2);
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("대기로 지연시간이 늘어나면 한도를 줄인다")
+    void onSample_Decrease() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        limiter.onSample(10 * MS, 20);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            limiter.onSample(40 * MS, 20);
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isLessThan(20);
+    }
+
+    @Test
+    @DisplayName("지연시간이 최대치를 넘으면 한도를 비율로 줄이고 최소 한도 아래로는 줄이지 않는다")
+    void onSample_Backoff() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        // when
+        limiter.onSample(1000 * MS, 20);
+        int afterOne = limiter.getLimit();
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(1000 * MS, 20);
+        }
+
+        // then
+        assertThat(afterOne).isEqualTo(18);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 4, 200, 0.9, 1000 * MS, 1000);
+    }
+}
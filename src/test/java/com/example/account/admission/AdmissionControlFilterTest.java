@@ -0,0 +1,123 @@
+package com.example.account.admission;
+
+import com.example.account.type.RequestPriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlFilterTest {
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdmissionControlFilter(new ObjectMapper());
+        // 한 요청만 처리 중이어도 다음 요청이 거절되도록 한도를 1로 둔다.
+        ReflectionTestUtils.setField(filter, "initialLimit", 1);
+        ReflectionTestUtils.setField(filter, "minLimit", 1);
+        filter.init();
+    }
+
+    @Test
+    @DisplayName("조회는 READ, 취소/해제는 CANCEL, 나머지 변경은 WRITE로 분류한다")
+    void priorityOf() {
+        assertThat(AdmissionControlFilter.priorityOf(request("GET", "/account")))
+                .isEqualTo(RequestPriority.READ);
+        assertThat(AdmissionControlFilter.priorityOf(request("POST", "/transaction/cancel")))
+                .isEqualTo(RequestPriority.CANCEL);
+        assertThat(AdmissionControlFilter.priorityOf(request("POST", "/transaction/release")))
+                .isEqualTo(RequestPriority.CANCEL);
+        assertThat(AdmissionControlFilter.priorityOf(request("POST", "/transaction/use")))
+                .isEqualTo(RequestPriority.WRITE);
+        assertThat(AdmissionControlFilter.priorityOf(request("DELETE", "/account")))
+                .isEqualTo(RequestPriority.WRITE);
+    }
+
+    @Test
+    @DisplayName("계좌/거래 API만 제한하고 구독 요청은 제외한다")
+    void shouldNotFilter() {
+        assertThat(filter.shouldNotFilter(request("GET", "/account"))).isFalse();
+        assertThat(filter.shouldNotFilter(request("POST", "/transaction/use"))).isFalse();
+        assertThat(filter.shouldNotFilter(request("GET", "/account/stream"))).isTrue();
+        assertThat(filter.shouldNotFilter(request("GET", "/admin/chain/verify"))).isTrue();
+        assertThat(filter.shouldNotFilter(request("GET", "/actuator/health"))).isTrue();
+
+        // when
+        ReflectionTestUtils.setField(filter, "enabled", false);
+
+        // then
+        assertThat(filter.shouldNotFilter(request("POST", "/transaction/use"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("한도를 넘은 요청은 503과 SERVER_OVERLOADED, Retry-After로 거절한다")
+    void reject() throws Exception {
+        // given
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        AtomicBoolean innerCalled = new AtomicBoolean();
+        FilterChain holding = (req, res) -> filter.doFilter(
+                request("POST", "/transaction/use"), rejected,
+                (innerReq, innerRes) -> innerCalled.set(true));
+
+        // when
+        filter.doFilter(request("POST", "/transaction/use"),
+                new MockHttpServletResponse(), holding);
+
+        // then
+        assertThat(innerCalled).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("SERVER_OVERLOADED");
+        assertThat(filter.getLimiter().getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("한도가 찬 상태에서도 구독 요청은 거절하지 않는다")
+    void passExcludedPathWhenSaturated() throws Exception {
+        // given
+        MockHttpServletResponse streamResponse = new MockHttpServletResponse();
+        AtomicBoolean streamCalled = new AtomicBoolean();
+        FilterChain holding = (req, res) -> filter.doFilter(
+                request("GET", "/account/stream"), streamResponse,
+                (innerReq, innerRes) -> streamCalled.set(true));
+
+        // when
+        filter.doFilter(request("POST", "/transaction/use"),
+                new MockHttpServletResponse(), holding);
+
+        // then
+        assertThat(streamCalled).isTrue();
+        assertThat(streamResponse.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("처리 중 예외가 나도 처리 중 요청 수를 되돌린다")
+    void releaseOnException() {
+        // given
+        FilterChain failing = (req, res) -> {
+            throw new IllegalStateException("handler failed");
+        };
+
+        // when
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                request("POST", "/transaction/use"), new MockHttpServletResponse(), failing));
+
+        // then
+        assertThat(filter.getLimiter().getInFlight()).isZero();
+        assertThat(filter.getLimiter().tryAcquire(RequestPriority.WRITE)).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
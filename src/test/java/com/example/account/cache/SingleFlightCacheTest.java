@@ -0,0 +1,149 @@
+package com.example.account.cache;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightCacheTest {
+
+    @Test
+    @DisplayName("동시에 들어온 같은 key의 조회는 한 번만 실행된다")
+    void coalesceConcurrentLoads() throws Exception {
+        // given
+        SingleFlightCache<String, String> cache =
+                new SingleFlightCache<>(Duration.ofSeconds(10), 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cache.get("key", key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        })));
+        loading.await();
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> cache.get("key", key -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        release.countDown();
+
+        // then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("ttl이 지나면 다시 조회한다")
+    void reloadAfterTtl() throws InterruptedException {
+        // given
+        SingleFlightCache<String, Integer> cache =
+                new SingleFlightCache<>(Duration.ofMillis(20), 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get("key", key -> loads.incrementAndGet());
+        cache.get("key", key -> loads.incrementAndGet());
+        Thread.sleep(40);
+        Integer reloaded = cache.get("key", key -> loads.incrementAndGet());
+
+        // then
+        assertThat(reloaded).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("예외는 캐시하지 않는다")
+    void doNotCacheFailure() {
+        // given
+        SingleFlightCache<String, String> cache =
+                new SingleFlightCache<>(Duration.ofSeconds(10), 100);
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> cache.get("key", key -> {
+                    throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+                }));
+        String value = cache.get("key", key -> "value");
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(ErrorCode.TRANSACTION_NOT_FOUND);
+        assertThat(value).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("조회가 Error로 끝나도 기다리던 요청은 대기하지 않고 다음 요청은 다시 조회한다")
+    void failWaitersOnError() throws Exception {
+        // given
+        SingleFlightCache<String, String> cache =
+                new SingleFlightCache<>(Duration.ofSeconds(10), 100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<String> loader = executor.submit(() -> cache.get("key", key -> {
+            loading.countDown();
+            await(release);
+            throw new NoClassDefFoundError("broken");
+        }));
+        loading.await();
+        Future<String> waiter = executor.submit(() -> cache.get("key", key -> "other"));
+        // 두 번째 요청이 진행 중인 조회를 기다리기 시작할 때까지 둔다.
+        Thread.sleep(200);
+        release.countDown();
+
+        // then
+        ExecutionException loaderError = assertThrows(ExecutionException.class,
+                () -> loader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterError = assertThrows(ExecutionException.class,
+                () -> waiter.get(5, TimeUnit.SECONDS));
+        assertThat(loaderError.getCause()).isInstanceOf(NoClassDefFoundError.class);
+        assertThat(waiterError.getCause()).isInstanceOf(NoClassDefFoundError.class);
+        assertThat(cache.get("key", key -> "value")).isEqualTo("value");
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("invalidate 후에는 다시 조회한다")
+    void invalidate() {
+        // given
+        SingleFlightCache<String, Integer> cache =
+                new SingleFlightCache<>(Duration.ofSeconds(10), 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get("key", key -> loads.incrementAndGet());
+        cache.invalidate("key");
+        Integer reloaded = cache.get("key", key -> loads.incrementAndGet());
+
+        // then
+        assertThat(reloaded).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.account.circuit;
+
+import com.example.account.type.CircuitState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker circuitBreaker =
+            new CircuitBreaker(3, Duration.ofSeconds(5), now::get);
+
+    @Test
+    @DisplayName("연속으로 실패하면 차단하고, 중간에 성공하면 실패 횟수를 초기화한다")
+    void open() {
+        // when
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        CircuitState beforeThreshold = circuitBreaker.getState();
+        circuitBreaker.onFailure();
+
+        // then
+        assertThat(beforeThreshold).isEqualTo(CircuitState.CLOSED);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    @DisplayName("차단 시간이 지나면 하나의 호출로 확인하고 성공하면 다시 연다")
+    void halfOpen_Success() {
+        // given
+        openCircuit();
+
+        // when
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        boolean probe = circuitBreaker.tryAcquirePermission();
+        boolean other = circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess();
+
+        // then
+        assertThat(probe).isTrue();
+        assertThat(other).isFalse();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    @DisplayName("확인 호출이 실패하면 다시 차단한다")
+    void halfOpen_Failure() {
+        // given
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // when
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+
+        // then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+    }
+}
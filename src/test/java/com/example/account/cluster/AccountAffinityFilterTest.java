@@ -0,0 +1,212 @@
+package com.example.account.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 담당 서버 역할을 하는 http 서버를 띄워서 두 서버 사이의 요청 전달을 확인한다.
+class AccountAffinityFilterTest {
+    private static final String LOCAL_NODE = "http://local-node";
+
+    private HttpServer ownerNode;
+    private String ownerUrl;
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedForwardedBy = new AtomicReference<>();
+
+    private AccountAffinityFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ownerNode = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ownerNode.createContext("/transaction/use", exchange -> {
+            receivedBody.set(new String(StreamUtils.copyToByteArray(exchange.getRequestBody()),
+                    StandardCharsets.UTF_8));
+            receivedForwardedBy.set(exchange.getRequestHeaders().getFirst(AccountAffinityFilter.FORWARDED_HEADER));
+            byte[] response = "{\"transactionResult\":\"S\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Correlation-Id", "owner-correlation-id");
+            exchange.getResponseHeaders().add("Set-Cookie", "a=1");
+            exchange.getResponseHeaders().add("Set-Cookie", "b=2");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response);
+            }
+        });
+        ownerNode.start();
+        ownerUrl = "http://127.0.0.1:" + ownerNode.getAddress().getPort();
+
+        filter = new AccountAffinityFilter(new ObjectMapper());
+        filter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ownerNode.stop(0);
+        AccountOwnership.clear();
+    }
+
+    @Test
+    @DisplayName("다른 서버가 담당하는 계좌의 거래는 담당 서버로 전달하고 응답을 그대로 돌려준다")
+    void forwardToOwner() throws Exception {
+        // given
+        AccountOwnership.update(LOCAL_NODE, List.of(LOCAL_NODE, ownerUrl), 160, 0);
+        String accountNumber = accountOwnedBy(ownerUrl);
+        String body = useBalanceBody(accountNumber);
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(useBalanceRequest(body), response, chain);
+
+        // then
+        assertThat(chain.getRequest()).isNull();
+        assertThat(receivedBody.get()).isEqualTo(body);
+        assertThat(receivedForwardedBy.get()).isEqualTo(LOCAL_NODE);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("{\"transactionResult\":\"S\"}");
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getHeader("X-Correlation-Id")).isEqualTo("owner-correlation-id");
+        assertThat(response.getHeaders("Set-Cookie")).containsExactly("a=1", "b=2");
+        assertThat(response.getHeaders("Content-Length"))
+                .containsExactly(String.valueOf(response.getContentAsByteArray().length));
+        assertThat(response.getHeader("Transfer-Encoding")).isNull();
+        assertThat(filter.getForwardedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("이 서버가 담당하는 계좌는 직접 처리하고, 다음 filter에서 body를 다시 읽을 수 있다")
+    void processOwnedAccount() throws Exception {
+        // given
+        AccountOwnership.update(LOCAL_NODE, List.of(LOCAL_NODE, ownerUrl), 160, 0);
+        String accountNumber = accountOwnedBy(LOCAL_NODE);
+        String body = useBalanceBody(accountNumber);
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(useBalanceRequest(body), new MockHttpServletResponse(), chain);
+
+        // then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8))
+                .isEqualTo(body);
+        assertThat(receivedBody.get()).isNull();
+        assertThat(AccountOwnership.ownsAll(List.of(accountNumber))).isTrue();
+    }
+
+    @Test
+    @DisplayName("다시 읽는 body는 비동기 read listener에도 바로 읽을 수 있다고 알린다")
+    void readListener() throws Exception {
+        // given
+        AccountOwnership.update(LOCAL_NODE, List.of(LOCAL_NODE, ownerUrl), 160, 0);
+        String body = useBalanceBody(accountOwnedBy(LOCAL_NODE));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(useBalanceRequest(body), new MockHttpServletResponse(), chain);
+        ServletInputStream input = chain.getRequest().getInputStream();
+        StringBuilder read = new StringBuilder();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        // when
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (input.isReady() && !input.isFinished()) {
+                    read.append((char) input.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        });
+
+        // then
+        assertThat(read.toString()).isEqualTo(body);
+        assertThat(allDataRead).isTrue();
+    }
+
+    @Test
+    @DisplayName("담당 서버에 연결할 수 없으면 이 서버에서 처리한다")
+    void ownerUnreachable() throws Exception {
+        // given
+        ownerNode.stop(0);
+        AccountOwnership.update(LOCAL_NODE, List.of(LOCAL_NODE, ownerUrl), 160, 0);
+        String body = useBalanceBody(accountOwnedBy(ownerUrl));
+        MockFilterChain chain = new MockFilterChain();
+
+        // when
+        filter.doFilter(useBalanceRequest(body), new MockHttpServletResponse(), chain);
+
+        // then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(filter.getForwardFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("서버 목록이 바뀐 직후에는 담당 계좌도 redis lock을 함께 잡는다")
+    void notStableYet() {
+        // given
+        AccountOwnership.update(LOCAL_NODE, List.of(LOCAL_NODE), 160,
+                System.currentTimeMillis() + 60_000);
+
+        // then
+        assertThat(AccountOwnership.ownerOf("1000000000")).isEqualTo(LOCAL_NODE);
+        assertThat(AccountOwnership.ownsAll(List.of("1000000000"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("이체는 출금 계좌의 담당 서버로 보낸다")
+    void accountNumberOf() {
+        assertThat(AccountAffinityFilter.accountNumberOf(
+                ("{\"userId\":1,\"fromAccountNumber\":\"1000000001\",\"toAccountNumber\":\"1000000002\"," +
+                        "\"amount\":100}").getBytes(StandardCharsets.UTF_8), "application/json"))
+                .isEqualTo("1000000001");
+        assertThat(AccountAffinityFilter.accountNumberOf(
+                "not json".getBytes(StandardCharsets.UTF_8), "application/json"))
+                .isNull();
+    }
+
+    private static String accountOwnedBy(String node) {
+        for (int i = 0; ; i++) {
+            String accountNumber = String.valueOf(1000000000 + i);
+            if (node.equals(AccountOwnership.ownerOf(accountNumber))) {
+                return accountNumber;
+            }
+        }
+    }
+
+    private static String useBalanceBody(String accountNumber) {
+        return "{\"userId\":1,\"accountNumber\":\"" + accountNumber + "\",\"amount\":1000}";
+    }
+
+    private static MockHttpServletRequest useBalanceRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/use");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.account.controller;
 
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.exception.AccountException;
 import com.example.account.service.AccountService;
 import com.example.account.service.LockService;
+import com.example.account.stream.BalanceStreamHub;
 import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -14,19 +16,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // spring bean들을 담아서 가짜 어플리케이션을 만들어서
@@ -41,6 +48,9 @@ class AccountControllerTest {
     @MockBean
     private LockService lockService;
 
+    @MockBean
+    private BalanceStreamHub balanceStreamHub;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -104,19 +114,13 @@ class AccountControllerTest {
     @Test
     void successGetAccountByUserId() throws Exception {
         // given
-        List<AccountDto> accountDtos =
-                Arrays.asList(AccountDto.builder()
-                                .accountNumber("123214214")
-                                .balance(1000L).build(),
-                        AccountDto.builder()
-                                .accountNumber("11111111")
-                                .balance(2000L).build(),
-                        AccountDto.builder()
-                                .accountNumber("22222222")
-                                .balance(3000L).build());
+        List<AccountInfo> accountInfos =
+                Arrays.asList(new AccountInfo("123214214", 1000L),
+                        new AccountInfo("11111111", 2000L),
+                        new AccountInfo("22222222", 3000L));
 
         given(accountService.getAccountsByUserId(anyLong()))
-                .willReturn(accountDtos);
+                .willReturn(accountInfos);
 
 
         mockMvc.perform(get("/account?user_id=1"))
@@ -129,6 +133,19 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$[2].balance").value(3000L));
     }
 
+    @Test
+    void successStreamAccounts() throws Exception {
+        // given
+        given(balanceStreamHub.subscribe(anyLong(), any()))
+                .willReturn(new SseEmitter());
+
+        // then
+        mockMvc.perform(get("/account/stream?user_id=1"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+        verify(balanceStreamHub).subscribe(eq(1L), any());
+    }
+
     @Test
     void failGetAccount() throws Exception {
         // given
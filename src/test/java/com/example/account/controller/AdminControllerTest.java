@@ -0,0 +1,140 @@
+package com.example.account.controller;
+
+import com.example.account.dto.ChainVerificationReport;
+import com.example.account.dto.HotAccount;
+import com.example.account.dto.LockBackendHealth;
+import com.example.account.dto.SqlStatementShape;
+import com.example.account.profiling.SqlStatementStats;
+import com.example.account.service.HotAccountTracker;
+import com.example.account.service.LockService;
+import com.example.account.service.TransactionChainVerifier;
+import com.example.account.tracing.TraceCollector;
+import com.example.account.type.ChainBreakType;
+import com.example.account.type.CircuitState;
+import com.example.account.type.LockFallbackPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+class AdminControllerTest {
+    @MockBean
+    private LockService lockService;
+
+    @MockBean
+    private HotAccountTracker hotAccountTracker;
+
+    @MockBean
+    private TraceCollector traceCollector;
+
+    @MockBean
+    private SqlStatementStats sqlStatementStats;
+
+    @MockBean
+    private TransactionChainVerifier transactionChainVerifier;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void successGetLockBackendHealth() throws Exception {
+        // given
+        given(lockService.getHealth())
+                .willReturn(LockBackendHealth.builder()
+                        .circuitState(CircuitState.OPEN)
+                        .fallbackPolicy(LockFallbackPolicy.LOCAL)
+                        .consecutiveFailures(5)
+                        .localOnlyLocks(12L)
+                        .build());
+
+        // then
+        mockMvc.perform(get("/admin/lock-backend"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.circuitState").value("OPEN"))
+                .andExpect(jsonPath("$.consecutiveFailures").value(5))
+                .andExpect(jsonPath("$.localOnlyLocks").value(12));
+    }
+
+    @Test
+    void successGetClusterHotAccounts() throws Exception {
+        // given
+        given(hotAccountTracker.getClusterHotAccounts())
+                .willReturn(List.of(HotAccount.builder()
+                        .accountNumber("1000000000")
+                        .lockCount(120L)
+                        .lockWaitMillis(3000L)
+                        .lockFailures(2L)
+                        .build()));
+
+        // then
+        mockMvc.perform(get("/admin/hot-accounts?cluster=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$[0].lockWaitMillis").value(3000))
+                .andExpect(jsonPath("$[0].lockFailures").value(2));
+    }
+
+    @Test
+    void successGetRecentTraces() throws Exception {
+        // given
+        given(traceCollector.getRecentTraces(5))
+                .willReturn(Map.of("resourceSpans", List.of()));
+
+        // then
+        mockMvc.perform(get("/admin/traces?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resourceSpans").isArray());
+    }
+
+    @Test
+    void successGetSqlStats() throws Exception {
+        // given
+        given(sqlStatementStats.getShapes())
+                .willReturn(List.of(SqlStatementShape.builder()
+                        .shape("select * from account where id=?")
+                        .count(40L)
+                        .repeatedInRequest(2L)
+                        .endpoints(List.of("GET /account"))
+                        .build()));
+
+        // then
+        mockMvc.perform(get("/admin/sql-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count").value(40))
+                .andExpect(jsonPath("$[0].repeatedInRequest").value(2))
+                .andExpect(jsonPath("$[0].endpoints[0]").value("GET /account"));
+    }
+
+    @Test
+    void successVerifyTransactionChain() throws Exception {
+        // given
+        given(transactionChainVerifier.verifyAll())
+                .willReturn(ChainVerificationReport.builder()
+                        .accountsChecked(2L)
+                        .transactionsChecked(10L)
+                        .breaks(List.of(ChainVerificationReport.Break.builder()
+                                .accountNumber("1000000000")
+                                .transactionId("transactionId")
+                                .breakType(ChainBreakType.HASH_MISMATCH)
+                                .build()))
+                        .build());
+
+        // then
+        mockMvc.perform(post("/admin/transaction-chain/verify"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionsChecked").value(10))
+                .andExpect(jsonPath("$.breaks[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.breaks[0].breakType").value("HASH_MISMATCH"));
+    }
+}
@@ -1,29 +1,44 @@
 package com.example.account.controller;
 
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.HoldBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.RedisBalanceEngine;
 import com.example.account.service.TransactionService;
+import com.example.account.service.UseBalanceGroupCommitter;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 
 import static com.example.account.type.TransactionResultType.*;
 import static com.example.account.type.TransactionType.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,6 +47,15 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    private RedisBalanceEngine redisBalanceEngine;
+
+    @MockBean
+    private UseBalanceGroupCommitter groupCommitter;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -65,6 +89,115 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(12345L));
     }
 
+    @Test
+    void successTransferBalance() throws Exception {
+        // given
+        given(transactionService.transferBalance(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .transactionType(TRANSFER_OUT)
+                        .transactionResultType(S)
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferBalance.Request(1L, "1000000000", "2000000000", 3000L)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("2000000000"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.amount").value(3000L));
+        verify(transactionService).transferBalance(1L, "1000000000", "2000000000", 3000L);
+    }
+
+    @Test
+    void successHoldBalance() throws Exception {
+        // given
+        given(transactionService.holdBalance(anyLong(), anyString(), anyLong(), any()))
+                .willReturn(HoldDto.builder()
+                        .holdId("holdId")
+                        .accountNumber("1000000000")
+                        .amount(3000L)
+                        .status(HoldStatus.HELD)
+                        .expiresAt(LocalDateTime.now().plusDays(7))
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new HoldBalance.Request(1L, "1000000000", 3000L, null)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdId").value("holdId"))
+                .andExpect(jsonPath("$.status").value("HELD"))
+                .andExpect(jsonPath("$.amount").value(3000L));
+    }
+
+    @Test
+    void successUseBalance_Cbor() throws Exception {
+        // given
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(new CBORFactory()).build();
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .amount(12345L)
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now())
+                        .transactionResultType(S)
+                        .build());
+
+        // when
+        byte[] body = mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then
+        UseBalance.Response response = cborMapper.readValue(body, UseBalance.Response.class);
+        assertThat(response.getAccountNumber()).isEqualTo("1000000000");
+        assertThat(response.getTransactionResult()).isEqualTo(S);
+        assertThat(response.getAmount()).isEqualTo(12345L);
+        verify(transactionService).useBalance(1L, "2000000000", 3000L);
+    }
+
+    @Test
+    void failUseBalance_RecordFailedTransaction() throws Exception {
+        // given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        // when
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"));
+
+        // then
+        verify(failedTransactionRecorder).record(USE, "2000000000", 3000L);
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         // given
@@ -119,4 +252,24 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(12345L))
                 .andExpect(jsonPath("$.transactionId").value("transactionId"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void correlationIdIsReturned() throws Exception {
+        // given
+        given(transactionService.queryTransaction(anyString()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .build());
+
+        // then
+        mockMvc.perform(get("/transaction/1234")
+                        .header("X-Correlation-Id", "correlation-1234"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Correlation-Id", "correlation-1234"));
+        mockMvc.perform(get("/transaction/1234"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Correlation-Id"));
+    }
+}
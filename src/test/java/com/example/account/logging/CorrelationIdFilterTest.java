@@ -0,0 +1,53 @@
+package com.example.account.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdFilterTest {
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    @DisplayName("헤더가 없으면 correlation id를 만들어서 MDC와 응답 헤더에 넣는다")
+    void generateCorrelationId() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> inChain = new AtomicReference<>();
+
+        // when
+        filter.doFilter(request, response,
+                (req, res) -> inChain.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // then
+        String correlationId = response.getHeader(CorrelationIdFilter.HEADER);
+        assertThat(correlationId).matches("[0-9a-f]{32}");
+        assertThat(inChain.get()).isEqualTo(correlationId);
+        // 요청이 끝나면 MDC에서 지운다.
+        assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isNull();
+    }
+
+    @Test
+    @DisplayName("요청 헤더의 correlation id를 그대로 이어서 사용한다")
+    void echoCorrelationId() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/account");
+        request.addHeader(CorrelationIdFilter.HEADER, "upstream-id");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> inChain = new AtomicReference<>();
+
+        // when
+        filter.doFilter(request, response,
+                (req, res) -> inChain.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // then
+        assertThat(response.getHeader(CorrelationIdFilter.HEADER)).isEqualTo("upstream-id");
+        assertThat(inChain.get()).isEqualTo("upstream-id");
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.account.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MdcTaskDecoratorTest {
+    private final MdcTaskDecorator decorator = new MdcTaskDecorator();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("작업을 넘긴 스레드의 correlation id로 실행하고 실행 후에는 pool 스레드에 남기지 않는다")
+    void propagateMdc() throws Exception {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MDC.put(CorrelationIdFilter.MDC_KEY, "request-1");
+        AtomicReference<String> inTask = new AtomicReference<>();
+        AtomicReference<String> afterTask = new AtomicReference<>();
+
+        // when
+        executor.submit(decorator.decorate(() -> inTask.set(MDC.get(CorrelationIdFilter.MDC_KEY))))
+                .get(5, TimeUnit.SECONDS);
+        executor.submit(() -> afterTask.set(MDC.get(CorrelationIdFilter.MDC_KEY)))
+                .get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(inTask.get()).isEqualTo("request-1");
+        assertThat(afterTask.get()).isNull();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("배치는 실행마다 새 correlation id를 쓰고 이전 MDC로 되돌린다")
+    void runWithNewCorrelationId() {
+        // given
+        MDC.put(CorrelationIdFilter.MDC_KEY, "outer");
+        AtomicReference<String> inRun = new AtomicReference<>();
+
+        // when
+        MdcTaskDecorator.runWithNewCorrelationId(() -> inRun.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // then
+        assertThat(inRun.get()).matches("[0-9a-f]{32}");
+        assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isEqualTo("outer");
+    }
+}
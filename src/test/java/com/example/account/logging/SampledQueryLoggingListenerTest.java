@@ -0,0 +1,91 @@
+package com.example.account.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledQueryLoggingListenerTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger("sql");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    @DisplayName("샘플링하지 않으면 빠른 쿼리는 남기지 않는다")
+    void skipFastQuery() {
+        // given
+        SampledQueryLoggingListener listener = new SampledQueryLoggingListener(0, 100);
+
+        // when
+        execute(listener, 99);
+
+        // then
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    @DisplayName("샘플링 비율이 1이면 모든 쿼리를 info로 남긴다")
+    void sampleAllQueries() {
+        // given
+        SampledQueryLoggingListener listener = new SampledQueryLoggingListener(1, 100);
+
+        // when
+        execute(listener, 1);
+        execute(listener, 2);
+
+        // then
+        assertThat(appender.list).hasSize(2)
+                .allSatisfy(event -> assertThat(event.getLevel()).isEqualTo(Level.INFO));
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .contains("select * from account where id = ?");
+    }
+
+    @Test
+    @DisplayName("느린 쿼리는 샘플링과 관계없이 warn으로 남긴다")
+    void logSlowQuery() {
+        // given
+        SampledQueryLoggingListener listener = new SampledQueryLoggingListener(0, 100);
+
+        // when
+        execute(listener, 100);
+
+        // then
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.WARN);
+        assertThat(appender.list.get(0).getFormattedMessage()).startsWith("slow query 100ms");
+    }
+
+    private static void execute(SampledQueryLoggingListener listener, long elapsedMs) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        execInfo.setElapsedTime(elapsedMs);
+        List<QueryInfo> queries = List.of(new QueryInfo("select * from account where id = ?"));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+}
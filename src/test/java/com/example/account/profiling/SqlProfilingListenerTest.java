@@ -0,0 +1,66 @@
+package com.example.account.profiling;
+
+import com.example.account.dto.SqlStatementShape;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlProfilingListenerTest {
+    private final SqlStatementStats stats = new SqlStatementStats();
+    private final SqlProfilingListener listener = new SqlProfilingListener(stats, 3);
+
+    @AfterEach
+    void tearDown() {
+        RequestSqlProfile.end();
+    }
+
+    @Test
+    @DisplayName("바인딩 값, 공백, in 목록 길이가 달라도 같은 shape로 본다")
+    void normalize() {
+        assertThat(SqlProfilingListener.normalize(
+                "select * from account  where id in (?, ?, ?) and name = 'a''b' and balance > 100"))
+                .isEqualTo("select * from account where id in (?...) and name = ? and balance > ?");
+        assertThat(SqlProfilingListener.normalize("select account0_.id from account account0_ where id in (?,?)"))
+                .isEqualTo("select account0_.id from account account0_ where id in (?...)");
+    }
+
+    @Test
+    @DisplayName("한 요청에서 같은 statement가 threshold번 반복되면 N+1로 한 번 센다")
+    void nPlusOne() {
+        // given
+        RequestSqlProfile profile = RequestSqlProfile.begin(() -> "GET /account", 200);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            execute("select * from transaction where account_id = ?", 1);
+        }
+        execute("update account set balance = ? where id = ?", 1);
+
+        // then
+        assertThat(profile.getStatementCount()).isEqualTo(6);
+        assertThat(profile.getCount("select * from transaction where account_id = ?")).isEqualTo(5);
+
+        List<SqlStatementShape> shapes = stats.getShapes();
+        SqlStatementShape select = shapes.stream()
+                .filter(shape -> shape.getShape().startsWith("select"))
+                .findFirst().get();
+        assertThat(select.getCount()).isEqualTo(5);
+        assertThat(select.getRepeatedInRequest()).isEqualTo(1);
+        assertThat(select.getEndpoints()).containsExactly("GET /account");
+    }
+
+    private void execute(String query, int updatedRows) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        execInfo.setResult(updatedRows);
+        List<QueryInfo> queries = List.of(new QueryInfo(query));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+}
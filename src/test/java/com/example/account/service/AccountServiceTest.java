@@ -3,6 +3,7 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.AccountRepository;
@@ -18,11 +19,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -36,6 +39,9 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private RedisBalanceEngine redisBalanceEngine;
+
     // 위에서 만들어준 리포지토리를 넣어준다.
     @InjectMocks
     private AccountService accountService;
@@ -51,6 +57,9 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
+
         given(accountRepository.findFirstByOrderByIdDesc())
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
@@ -82,6 +91,9 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
+        given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
+
         given(accountRepository.findFirstByOrderByIdDesc())
                 .willReturn(Optional.empty());
 
@@ -127,14 +139,15 @@ class AccountServiceTest {
                         .id(1L)
                         .build()));
 
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(11);
+        given(accountUserRepository.incrementAccountCount(1L, 10))
+                .willReturn(0);
 
         //when
         AccountException e = assertThrows(AccountException.class,
                 () -> accountService.createAccount(1L, 1000L));
 
         //then
+        verify(accountRepository, never()).save(any());
         assertThat(e.getErrorCode()).isEqualTo(ErrorCode.MAX_ACCOUNT_PER_USER_10);
     }
 
@@ -166,6 +179,7 @@ class AccountServiceTest {
         assertThat(account.getUserId()).isEqualTo(12);
         assertThat(captor.getValue().getAccountStatus())
                 .isEqualTo(AccountStatus.UNREGISTERED);
+        verify(accountUserRepository, times(1)).decrementAccountCount(12L);
     }
 
     @Test
@@ -269,6 +283,34 @@ class AccountServiceTest {
         assertThat(ErrorCode.BALANCE_NOT_EMPTY).isEqualTo(e.getErrorCode());
     }
 
+    @Test
+    @DisplayName("DB에 반영되지 않은 redis 잔액이 있으면 해지실패")
+    void deleteAccount_FAIL_redisBalanceNotEmpty() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .balance(0L)
+                        .accountNumber("1000000012")
+                        .build()));
+        given(redisBalanceEngine.getBalance("1000000012"))
+                .willReturn(OptionalLong.of(100L));
+
+        //when
+        AccountException e = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, "1000000012"));
+
+        //then
+        assertThat(e.getErrorCode()).isEqualTo(ErrorCode.BALANCE_NOT_EMPTY);
+        verify(accountRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("이미 해지된 계좌로 해지실패")
     void deleteAccount_FAIL_AccountAlreadyUnRegistered() {
@@ -301,48 +343,68 @@ class AccountServiceTest {
     @DisplayName("유저의 계좌들을 전부 조회")
     void getAccountsByUserId_SUCCESS() {
         // given
-        AccountUser user = AccountUser.builder()
-                .id(12L)
-                .name("홍길동")
-                .build();
-        List<Account> accounts =
-                List.of(Account.builder()
-                                .accountNumber("123214214")
-                                .accountUser(user)
-                                .balance(1000L).build(),
-                        Account.builder()
-                                .accountNumber("11111111")
-                                .accountUser(user)
-                                .balance(2000L).build(),
-                        Account.builder()
-                                .accountNumber("22222222")
-                                .accountUser(user)
-                                .balance(3000L).build());
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(List.of(
+                        new AccountInfo("123214214", 1000L),
+                        new AccountInfo("11111111", 2000L),
+                        new AccountInfo("22222222", 3000L)));
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        // when
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(1L);
 
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
+        // then
+        verify(accountUserRepository, never()).existsById(anyLong());
+        verify(accountRepository, never()).findByAccountUser(any());
+        assertThat(3).isEqualTo(accountInfos.size());
+        assertThat("123214214").isEqualTo(accountInfos.get(0).getAccountNumber());
+        assertThat(1000L).isEqualTo(accountInfos.get(0).getBalance());
+        assertThat("11111111").isEqualTo(accountInfos.get(1).getAccountNumber());
+        assertThat(2000L).isEqualTo(accountInfos.get(1).getBalance());
+        assertThat("22222222").isEqualTo(accountInfos.get(2).getAccountNumber());
+        assertThat(3000L).isEqualTo(accountInfos.get(2).getBalance());
+    }
+
+    @Test
+    @DisplayName("계좌가 없는 유저는 빈 목록을 반환한다")
+    void getAccountsByUserId_Empty() {
+        // given
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(List.of());
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
 
         // when
-        List<AccountDto> accountDtos = accountService.getAccountsByUserId(1L);
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(1L);
 
         // then
-        assertThat(3).isEqualTo(accountDtos.size());
-        assertThat("123214214").isEqualTo(accountDtos.get(0).getAccountNumber());
-        assertThat(1000L).isEqualTo(accountDtos.get(0).getBalance());
-        assertThat("11111111").isEqualTo(accountDtos.get(1).getAccountNumber());
-        assertThat(2000L).isEqualTo(accountDtos.get(1).getBalance());
-        assertThat("22222222").isEqualTo(accountDtos.get(2).getAccountNumber());
-        assertThat(3000L).isEqualTo(accountDtos.get(2).getBalance());
+        assertThat(accountInfos).isEmpty();
+    }
+
+    @Test
+    @DisplayName("같은 유저의 계좌 조회는 짧은 시간 동안 한 번만 DB를 조회한다")
+    void getAccountsByUserId_Cached() {
+        // given
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(List.of(new AccountInfo("1000000000", 1000L)));
+
+        // when
+        accountService.getAccountsByUserId(12L);
+        accountService.getAccountsByUserId(12L);
+        accountService.evictAccountsByUserId(12L);
+        List<AccountInfo> accountInfos = accountService.getAccountsByUserId(12L);
+
+        // then
+        verify(accountRepository, times(2)).findAccountInfosByUserId(12L);
+        assertThat(accountInfos.get(0).getBalance()).isEqualTo(1000L);
     }
 
     @Test
     void failedToGetAccounts() {
         // given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(List.of());
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
         // when
         AccountException e = assertThrows(AccountException.class,
                 () -> accountService.getAccountsByUserId(1L));
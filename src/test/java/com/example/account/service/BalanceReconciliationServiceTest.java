@@ -0,0 +1,169 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.ReconciliationReport;
+import com.example.account.dto.TransactionReplay;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong cursor;
+
+    @InjectMocks
+    private BalanceReconciliationService balanceReconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        given(redissonClient.getAtomicLong(anyString())).willReturn(cursor);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("거래내역과 잔액이 일치하면 불일치가 없다")
+    void reconcile_NoMismatch() {
+        // given
+        given(cursor.get()).willReturn(0L);
+        given(accountRepository.findBalancesAfter(eq(0L), any()))
+                .willReturn(List.of(new AccountBalance(1L, "1000000000", 700L)));
+        given(accountRepository.findBalancesAfter(eq(1L), any()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamReplayByAccountId(1L))
+                .willReturn(Stream.of(
+                        new TransactionReplay(1L, "t1", USE, S, 100L, 900L),
+                        new TransactionReplay(2L, "t2", USE, F, 5000L, 900L),
+                        new TransactionReplay(3L, "t3", USE, S, 300L, 600L),
+                        new TransactionReplay(4L, "t4", CANCEL, S, 100L, 700L)));
+
+        // when
+        ReconciliationReport report = balanceReconciliationService.reconcile();
+
+        // then
+        assertThat(report.getAccountsChecked()).isEqualTo(1L);
+        assertThat(report.getTransactionsReplayed()).isEqualTo(4L);
+        assertThat(report.getMismatches()).isEmpty();
+        assertThat(report.isIncomplete()).isFalse();
+        InOrder order = inOrder(cursor);
+        order.verify(cursor).set(1L);
+        order.verify(cursor).set(0L);
+    }
+
+    @Test
+    @DisplayName("중간 거래와 최종 잔액이 어긋나면 리포트에 남긴다")
+    void reconcile_Mismatch() {
+        // given
+        given(cursor.get()).willReturn(10L);
+        given(accountRepository.findBalancesAfter(eq(10L), any()))
+                .willReturn(List.of(new AccountBalance(11L, "1000000011", 1000L)));
+        given(accountRepository.findBalancesAfter(eq(11L), any()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamReplayByAccountId(11L))
+                .willReturn(Stream.of(
+                        new TransactionReplay(1L, "t1", USE, S, 100L, 900L),
+                        new TransactionReplay(2L, "t2", USE, S, 100L, 850L)));
+
+        // when
+        ReconciliationReport report = balanceReconciliationService.reconcile();
+
+        // then
+        assertThat(report.getResumedFromAccountId()).isEqualTo(10L);
+        assertThat(report.getMismatches()).hasSize(2);
+        assertThat(report.getMismatches().get(0).getTransactionId()).isEqualTo("t2");
+        assertThat(report.getMismatches().get(0).getExpected()).isEqualTo(800L);
+        assertThat(report.getMismatches().get(0).getActual()).isEqualTo(850L);
+        assertThat(report.getMismatches().get(1).getTransactionId()).isNull();
+        assertThat(report.getMismatches().get(1).getExpected()).isEqualTo(850L);
+        assertThat(report.getMismatches().get(1).getActual()).isEqualTo(1000L);
+    }
+
+    @Test
+    @DisplayName("검증 중에 거래가 커밋되어 잔액이 바뀌었으면 다시 읽은 잔액으로 검증한다")
+    void reconcile_BalanceMoved() {
+        // given
+        given(cursor.get()).willReturn(0L);
+        given(accountRepository.findBalancesAfter(eq(0L), any()))
+                .willReturn(List.of(new AccountBalance(1L, "1000000000", 900L)));
+        given(accountRepository.findBalancesAfter(eq(1L), any()))
+                .willReturn(Collections.emptyList());
+        // chunk를 읽은 뒤에 t2가 커밋되어 stream에는 보이지만 chunk의 잔액에는 반영되지 않았다.
+        given(transactionRepository.streamReplayByAccountId(1L))
+                .willReturn(Stream.of(
+                        new TransactionReplay(1L, "t1", USE, S, 100L, 900L),
+                        new TransactionReplay(2L, "t2", USE, S, 300L, 600L)))
+                .willReturn(Stream.of(
+                        new TransactionReplay(1L, "t1", USE, S, 100L, 900L),
+                        new TransactionReplay(2L, "t2", USE, S, 300L, 600L)));
+        given(accountRepository.findBalanceById(1L))
+                .willReturn(Optional.of(new AccountBalance(1L, "1000000000", 600L)));
+
+        // when
+        ReconciliationReport report = balanceReconciliationService.reconcile();
+
+        // then
+        assertThat(report.getMismatches()).isEmpty();
+        assertThat(report.getTransactionsReplayed()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("검증 중 실패하면 리포트를 완료되지 않은 것으로 남긴다")
+    void reconcile_Failed() {
+        // given
+        given(cursor.get()).willReturn(0L);
+        given(accountRepository.findBalancesAfter(eq(0L), any()))
+                .willReturn(List.of(new AccountBalance(1L, "1000000000", 700L)));
+        given(transactionRepository.streamReplayByAccountId(1L))
+                .willThrow(new IllegalStateException("connection closed"));
+
+        // when
+        ReconciliationReport report = balanceReconciliationService.reconcile();
+
+        // then
+        assertThat(report.isIncomplete()).isTrue();
+        assertThat(report.getFailedShards()).containsExactly(0);
+        assertThat(report.getAccountsChecked()).isEqualTo(0L);
+        verify(cursor, never()).set(0L);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.OverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @InjectMocks
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @BeforeEach
+    void setUp() {
+        // worker 스레드 없이 큐만 사용해서 검증한다.
+        ReflectionTestUtils.setField(failedTransactionRecorder, "queue",
+                new ArrayBlockingQueue<FailedTransaction>(2));
+        ReflectionTestUtils.setField(failedTransactionRecorder, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("큐에 쌓인 실패 거래를 batch로 저장한다")
+    void flushInBatches() {
+        // given
+        failedTransactionRecorder.record(USE, "1000000000", 100L);
+        failedTransactionRecorder.record(CANCEL, "1000000001", 200L);
+
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        failedTransactionRecorder.flush();
+
+        // then
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(captor.getValue().get(0).getTransactionType()).isEqualTo(USE);
+        assertThat(captor.getValue().get(1).getAccountNumber()).isEqualTo("1000000001");
+        assertThat(failedTransactionRecorder.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차면 가장 오래된 실패 거래를 버린다")
+    void dropOldestWhenFull() {
+        // given
+        ReflectionTestUtils.setField(failedTransactionRecorder, "overflowPolicy",
+                OverflowPolicy.DROP_OLDEST);
+
+        // when
+        failedTransactionRecorder.record(USE, "1000000000", 100L);
+        failedTransactionRecorder.record(USE, "1000000001", 100L);
+        failedTransactionRecorder.record(USE, "1000000002", 100L);
+
+        // then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        failedTransactionRecorder.flush();
+        verify(transactionService).saveFailedTransactions(captor.capture());
+        assertThat(failedTransactionRecorder.getDroppedCount()).isEqualTo(1L);
+        assertThat(captor.getValue().get(0).getAccountNumber()).isEqualTo("1000000001");
+        assertThat(captor.getValue().get(1).getAccountNumber()).isEqualTo("1000000002");
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차면 새로운 실패 거래를 버린다")
+    void dropNewestWhenFull() {
+        // given
+        ReflectionTestUtils.setField(failedTransactionRecorder, "overflowPolicy",
+                OverflowPolicy.DROP_NEWEST);
+
+        // when
+        failedTransactionRecorder.record(USE, "1000000000", 100L);
+        failedTransactionRecorder.record(USE, "1000000001", 100L);
+        failedTransactionRecorder.record(USE, "1000000002", 100L);
+
+        // then
+        assertThat(failedTransactionRecorder.getDroppedCount()).isEqualTo(1L);
+        assertThat(failedTransactionRecorder.getPendingCount()).isEqualTo(2);
+    }
+}
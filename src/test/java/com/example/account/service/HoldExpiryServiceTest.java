@@ -0,0 +1,157 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Hold;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.HoldRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class HoldExpiryServiceTest {
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SpendLimitService spendLimitService;
+
+    @InjectMocks
+    private HoldExpiryService holdExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        holdExpiryService.init();
+    }
+
+    @Test
+    @DisplayName("만료된 승인은 계좌 lock을 잡고 한 번에 해제한다")
+    void expireBatch() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        AccountUser user = AccountUser.builder().id(1L).build();
+        Account account1 = Account.builder().accountNumber("1000000001").accountUser(user)
+                .balance(1000L).heldBalance(500L).build();
+        Account account2 = Account.builder().accountNumber("1000000000").accountUser(user)
+                .balance(1000L).heldBalance(300L).build();
+        Hold expired1 = hold("h1", account1, 200L, HoldStatus.HELD, now.minusSeconds(1));
+        Hold expired2 = hold("h2", account2, 300L, HoldStatus.HELD, now.minusSeconds(1));
+        Hold captured = hold("h3", account1, 300L, HoldStatus.CAPTURED, now.minusSeconds(1));
+
+        given(holdRepository.findByHoldIdIn(anyCollection()))
+                .willReturn(List.of(expired1, expired2, captured));
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+
+        // when
+        holdExpiryService.expireBatch(List.of("h1", "h2", "h3"), now);
+
+        // then
+        verify(lockService).lock(Set.of("1000000000", "1000000001"));
+        verify(lockService).unlock(Set.of("1000000000", "1000000001"));
+        assertThat(expired1.getStatus()).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(expired2.getStatus()).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(captured.getStatus()).isEqualTo(HoldStatus.CAPTURED);
+        assertThat(account1.getHeldBalance()).isEqualTo(300L);
+        assertThat(account2.getHeldBalance()).isEqualTo(0L);
+        verify(spendLimitService).restore(1L, "1000000001", 200L, expired1.getHeldAt());
+        verify(spendLimitService).restore(1L, "1000000000", 300L, expired2.getHeldAt());
+    }
+
+    @Test
+    @DisplayName("계좌 lock을 잡지 못하면 다음 tick에 다시 시도한다")
+    void expireBatch_Locked() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        Account account = Account.builder().accountNumber("1000000000")
+                .balance(1000L).heldBalance(200L).build();
+        given(holdRepository.findByHoldIdIn(anyCollection()))
+                .willReturn(List.of(hold("h1", account, 200L, HoldStatus.HELD, now.minusSeconds(1))));
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyCollection());
+
+        // when
+        holdExpiryService.expireBatch(List.of("h1"), now);
+
+        // then
+        verify(transactionTemplate, never()).execute(any());
+        assertThat(holdExpiryService.getScheduledCount()).isEqualTo(1);
+        assertThat(account.getHeldBalance()).isEqualTo(200L);
+    }
+
+    @Test
+    @DisplayName("이 서버의 wheel에 등록되지 않은 만료 승인도 DB에서 찾아 해제한다")
+    void sweepUnscheduledHold() {
+        // given
+        // 승인을 등록한 다른 서버가 내려가서 어느 wheel에도 없는 승인
+        LocalDateTime expiresAt = LocalDateTime.now().minusMinutes(5);
+        AccountUser user = AccountUser.builder().id(1L).build();
+        Account account = Account.builder().accountNumber("1000000000").accountUser(user)
+                .balance(1000L).heldBalance(200L).build();
+        Hold orphan = hold("h1", account, 200L, HoldStatus.HELD, expiresAt);
+        orphan.setId(7L);
+
+        given(holdRepository.findByStatusAndExpiresAtBeforeAndIdGreaterThanOrderById(
+                eq(HoldStatus.HELD), any(), eq(0L), any()))
+                .willReturn(List.of(orphan));
+        given(holdRepository.findByStatusAndExpiresAtBeforeAndIdGreaterThanOrderById(
+                eq(HoldStatus.HELD), any(), eq(7L), any()))
+                .willReturn(List.of());
+        given(holdRepository.findByHoldIdIn(List.of("h1")))
+                .willReturn(List.of(orphan));
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+
+        // when
+        holdExpiryService.sweep();
+
+        // then
+        assertThat(holdExpiryService.getScheduledCount()).isZero();
+        assertThat(orphan.getStatus()).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(account.getHeldBalance()).isEqualTo(0L);
+        verify(lockService).lock(Set.of("1000000000"));
+        verify(lockService).unlock(Set.of("1000000000"));
+    }
+
+    private static Hold hold(String holdId, Account account, Long amount,
+                             HoldStatus status, LocalDateTime expiresAt) {
+        return Hold.builder()
+                .holdId(holdId)
+                .account(account)
+                .amount(amount)
+                .status(status)
+                .heldAt(expiresAt.minusDays(1))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.account.service;
+
+import com.example.account.dto.HotAccount;
+import org.junit.jupiter.api.*;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 내장 redis를 띄워서 여러 서버의 집계가 합쳐지는지 확인한다.
+class HotAccountTrackerTest {
+    private static final int REDIS_PORT = 6393;
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+    }
+
+    @Test
+    @DisplayName("lock을 오래 기다리고 잡고 있던 계좌가 먼저 나온다")
+    void localHotAccounts() {
+        // given
+        HotAccountTracker tracker = tracker();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            tracker.record("1000000000", 20 * MS, 10 * MS, false);
+            tracker.record("1000000001", MS, MS, false);
+        }
+        tracker.record("1000000000", 1000 * MS, 0, true);
+
+        // then
+        List<HotAccount> hotAccounts = tracker.getLocalHotAccounts();
+        assertThat(hotAccounts.get(0).getAccountNumber()).isEqualTo("1000000000");
+        assertThat(hotAccounts.get(0).getLockCount()).isEqualTo(11);
+        assertThat(hotAccounts.get(0).getLockWaitMillis()).isEqualTo(1200);
+        assertThat(hotAccounts.get(0).getLockHoldMillis()).isEqualTo(100);
+        assertThat(hotAccounts.get(0).getLockFailures()).isEqualTo(1);
+        assertThat(hotAccounts.get(1).getAccountNumber()).isEqualTo("1000000001");
+    }
+
+    @Test
+    @DisplayName("구간이 끝나면 redis에 더해지고, 여러 서버의 집계가 합쳐진다")
+    void clusterHotAccounts() {
+        // given
+        HotAccountTracker node1 = tracker();
+        HotAccountTracker node2 = tracker();
+        node1.record("1000000000", 10 * MS, 10 * MS, false);
+        node2.record("1000000000", 10 * MS, 10 * MS, false);
+        node2.record("1000000001", MS, MS, false);
+
+        // when
+        node1.rotate();
+        node2.rotate();
+
+        // then
+        List<HotAccount> hotAccounts = node1.getClusterHotAccounts();
+        assertThat(hotAccounts).hasSize(2);
+        assertThat(hotAccounts.get(0).getAccountNumber()).isEqualTo("1000000000");
+        assertThat(hotAccounts.get(0).getLockCount()).isEqualTo(2);
+        assertThat(hotAccounts.get(0).getLockWaitMillis()).isEqualTo(20);
+        // 새 구간이 시작되었다.
+        assertThat(node1.getLocalHotAccounts()).isEmpty();
+    }
+
+    private static HotAccountTracker tracker() {
+        HotAccountTracker tracker = new HotAccountTracker(redissonClient);
+        tracker.init();
+        return tracker;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.account.service;
 
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
@@ -11,8 +12,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,6 +29,15 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private RedisBalanceEngine redisBalanceEngine;
+
+    @Mock
+    private HotAccountTracker hotAccountTracker;
+
+    @Mock
+    private UseBalanceGroupCommitter groupCommitter;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
@@ -52,4 +69,50 @@ class LockAopAspectTest {
         assertEquals("1234", lockArgumentCaptor.getValue());
         assertEquals("1234", unLockArgumentCaptor.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockAndUnlockAllAccountsOfTransfer() throws Throwable {
+        // given
+        TransferBalance.Request request =
+                new TransferBalance.Request(123L, "2000000000", "1000000000", 1000L);
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        // then
+        verify(lockService).lock(List.of("2000000000", "1000000000"));
+        verify(lockService).unlock(List.of("2000000000", "1000000000"));
+        verify(lockService, never()).lock(anyString());
+    }
+
+    @Test
+    void recordLockFailureToHotAccountTracker() throws Throwable {
+        // given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock("1234");
+
+        // when
+        assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+
+        // then
+        verify(proceedingJoinPoint, never()).proceed();
+        verify(lockService, never()).unlock(anyString());
+        verify(hotAccountTracker).record(eq("1234"), anyLong(), eq(0L), eq(true));
+    }
+
+    @Test
+    void recordLockTimeOfEachAccount() throws Throwable {
+        // given
+        TransferBalance.Request request =
+                new TransferBalance.Request(123L, "2000000000", "1000000000", 1000L);
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        // then
+        verify(hotAccountTracker).record(eq("2000000000"), anyLong(), anyLong(), eq(false));
+        verify(hotAccountTracker).record(eq("1000000000"), anyLong(), anyLong(), eq(false));
+    }
+}
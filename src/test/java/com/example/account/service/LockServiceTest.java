@@ -1,7 +1,9 @@
 package com.example.account.service;
 
 import com.example.account.exception.AccountException;
+import com.example.account.type.CircuitState;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockFallbackPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -9,11 +11,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
@@ -54,4 +65,117 @@ class LockServiceTest {
 
         assertThat(e.getErrorCode()).isEqualTo((ErrorCode.ACCOUNT_TRANSACTION_LOCK));
     }
-}
\ No newline at end of file
+
+    @Test
+    void multiLockInAccountNumberOrder() throws InterruptedException {
+        // given
+        RLock first = mock(RLock.class);
+        RLock second = mock(RLock.class);
+        given(redissonClient.getLock("ACLK:1000000000")).willReturn(first);
+        given(redissonClient.getLock("ACLK:2000000000")).willReturn(second);
+        given(redissonClient.getMultiLock(any(), any())).willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        // when
+        lockService.lock(List.of("2000000000", "1000000000"));
+
+        // then
+        // 요청 순서와 관계없이 계좌번호 순서대로 잠근다.
+        verify(redissonClient).getMultiLock(first, second);
+    }
+
+    @Test
+    void failGetMultiLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rlock);
+        given(redissonClient.getMultiLock(any(), any())).willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> lockService.lock(List.of("1000000000", "2000000000")));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo((ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+    }
+
+    @Test
+    void redisFailedFallbackToLocalLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+
+        // when
+        assertDoesNotThrow(() -> lockService.lock("123"));
+        assertDoesNotThrow(() -> lockService.unlock("123"));
+
+        // then
+        // redis lock을 잡지 못했으므로 redis unlock을 호출하지 않는다.
+        verify(rlock, never()).unlock();
+        assertThat(lockService.getHealth().getLocalOnlyLocks()).isEqualTo(1L);
+        assertThat(lockService.getHealth().getRedisFailures()).isEqualTo(1L);
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            lockService.lock("123");
+            lockService.unlock("123");
+        }
+
+        // then
+        // 5번 연속 실패한 뒤로는 redis를 호출하지 않는다.
+        verify(rlock, times(5)).tryLock(anyLong(), anyLong(), any());
+        assertThat(lockService.getHealth().getCircuitState()).isEqualTo(CircuitState.OPEN);
+        assertThat(lockService.getHealth().getLocalOnlyLocks()).isEqualTo(10L);
+    }
+
+    @Test
+    void redisFailedFailFast() throws InterruptedException {
+        // given
+        ReflectionTestUtils.setField(lockService, "fallbackPolicy", LockFallbackPolicy.FAIL_FAST);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> lockService.lock("123"));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(ErrorCode.LOCK_UNAVAILABLE);
+        // 실패한 요청의 로컬 lock은 해제되어 다음 요청이 기다리지 않는다.
+        assertThat(assertThrows(AccountException.class, () -> lockService.lock("123"))
+                .getErrorCode()).isEqualTo(ErrorCode.LOCK_UNAVAILABLE);
+    }
+
+    @Test
+    void redisUnlockFailedDoesNotThrow() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rlock);
+        given(rlock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        willThrow(new RedisConnectionException("connection refused"))
+                .given(rlock).unlock();
+        lockService.lock("123");
+
+        // when
+        // then
+        assertDoesNotThrow(() -> lockService.unlock("123"));
+        assertThat(lockService.getHealth().getRedisFailures()).isEqualTo(1L);
+    }
+}
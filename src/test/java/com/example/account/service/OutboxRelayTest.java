@@ -0,0 +1,193 @@
+package com.example.account.service;
+
+import com.example.account.domain.OutboxCheckpoint;
+import com.example.account.domain.OutboxEvent;
+import com.example.account.dto.BalanceChangeEvent;
+import com.example.account.outbox.OutboxSink;
+import com.example.account.repository.OutboxCheckpointRepository;
+import com.example.account.repository.OutboxEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxCheckpointRepository outboxCheckpointRepository;
+
+    @Mock
+    private OutboxSink outboxSink;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @Test
+    @DisplayName("계좌별로 id 순서대로 발행하고 발행한 이벤트를 삭제한다")
+    void relay() {
+        // given
+        givenCheckpoint(10L);
+        given(outboxEventRepository.findAllBy(any()))
+                .willReturn(List.of(
+                        event(11L, "1000000000"),
+                        event(12L, "1000000001"),
+                        event(13L, "1000000000")));
+        givenTransaction();
+
+        ArgumentCaptor<List<BalanceChangeEvent>> captor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<OutboxCheckpoint> checkpointCaptor =
+                ArgumentCaptor.forClass(OutboxCheckpoint.class);
+
+        // when
+        long published = outboxRelay.relay();
+
+        // then
+        assertThat(published).isEqualTo(3);
+        verify(outboxSink).publish(eq("1000000000"), captor.capture());
+        assertThat(captor.getValue()).extracting(BalanceChangeEvent::getEventId)
+                .containsExactly(11L, 13L);
+        verify(outboxSink).publish(eq("1000000001"), anyList());
+
+        verify(outboxCheckpointRepository).save(checkpointCaptor.capture());
+        assertThat(checkpointCaptor.getValue().getLastEventId()).isEqualTo(13L);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(11L, 13L, 12L));
+    }
+
+    @Test
+    @DisplayName("발행에 실패한 계좌의 이벤트는 삭제하지 않고 남겨둔다")
+    void relay_PublishFailed() {
+        // given
+        givenCheckpoint(10L);
+        given(outboxEventRepository.findAllBy(any()))
+                .willReturn(List.of(
+                        event(11L, "1000000000"),
+                        event(12L, "1000000001"),
+                        event(13L, "1000000000")));
+        willAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("1000000001")) {
+                throw new IllegalStateException("broker down");
+            }
+            return null;
+        }).given(outboxSink).publish(anyString(), anyList());
+        givenTransaction();
+
+        // when
+        long published = outboxRelay.relay();
+
+        // then
+        assertThat(published).isEqualTo(2);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(11L, 13L));
+    }
+
+    @Test
+    @DisplayName("늦게 commit되어 발행한 이벤트보다 id가 작은 이벤트도 발행한다")
+    void relay_LateCommittedEvent() {
+        // given
+        // 13번까지 발행한 뒤에 12번이 commit되었다.
+        givenCheckpoint(13L);
+        given(outboxEventRepository.findAllBy(any()))
+                .willReturn(List.of(event(12L, "1000000001")));
+        givenTransaction();
+        ArgumentCaptor<OutboxCheckpoint> checkpointCaptor =
+                ArgumentCaptor.forClass(OutboxCheckpoint.class);
+
+        // when
+        long published = outboxRelay.relay();
+
+        // then
+        assertThat(published).isEqualTo(1);
+        verify(outboxSink).publish(eq("1000000001"), anyList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(12L));
+        verify(outboxCheckpointRepository).save(checkpointCaptor.capture());
+        assertThat(checkpointCaptor.getValue().getLastEventId()).isEqualTo(13L);
+    }
+
+    @Test
+    @DisplayName("모두 실패하면 아무것도 삭제하지 않는다")
+    void relay_FirstEventFailed() {
+        // given
+        given(outboxEventRepository.findAllBy(any()))
+                .willReturn(List.of(event(11L, "1000000000")));
+        willThrow(new IllegalStateException("broker down"))
+                .given(outboxSink).publish(eq("1000000000"), anyList());
+
+        // when
+        outboxRelay.relay();
+
+        // then
+        verify(outboxCheckpointRepository, never()).save(any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("다른 서버가 relay lock을 잡고 있으면 발행하지 않는다")
+    void relayScheduled_LockedByOtherNode() {
+        // given
+        given(outboxSink.getName()).willReturn("memory");
+        RLock lock = mock(RLock.class);
+        given(redissonClient.getLock("OUTBOX:RELAY:memory")).willReturn(lock);
+        given(lock.tryLock()).willReturn(false);
+
+        // when
+        outboxRelay.relayScheduled();
+
+        // then
+        verify(outboxEventRepository, never()).findAllBy(any());
+        verify(lock, never()).unlock();
+    }
+
+    private void givenCheckpoint(long lastEventId) {
+        given(outboxSink.getName()).willReturn("memory");
+        given(outboxCheckpointRepository.findById("memory"))
+                .willReturn(Optional.of(OutboxCheckpoint.builder()
+                        .sinkName("memory")
+                        .lastEventId(lastEventId)
+                        .build()));
+    }
+
+    private void givenTransaction() {
+        willAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static OutboxEvent event(Long id, String accountNumber) {
+        return OutboxEvent.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .transactionId("tx" + id)
+                .amount(100L)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
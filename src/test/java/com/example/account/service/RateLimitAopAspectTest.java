@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitAopAspectTest {
+    @Mock
+    private RateLimitService rateLimitService;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @InjectMocks
+    private RateLimitAopAspect rateLimitAopAspect;
+
+    @Test
+    void proceedWhenAllowed() throws Throwable {
+        // given
+        given(rateLimitService.tryAcquireUser(123L)).willReturn(true);
+        given(rateLimitService.tryAcquireAccount("1234")).willReturn(true);
+
+        // when
+        rateLimitAopAspect.aroundMethod(proceedingJoinPoint,
+                new UseBalance.Request(123L, "1234", 1000L));
+
+        // then
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+
+    @Test
+    void rejectWhenAccountLimited() throws Throwable {
+        // given
+        given(rateLimitService.tryAcquireUser(123L)).willReturn(true);
+        given(rateLimitService.tryAcquireAccount("1234")).willReturn(false);
+
+        // when
+        AccountException e = assertThrows(AccountException.class, () ->
+                rateLimitAopAspect.aroundMethod(proceedingJoinPoint,
+                        new UseBalance.Request(123L, "1234", 1000L)));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(ErrorCode.TOO_MANY_REQUESTS);
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    void cancelIsLimitedByAccountOnly() throws Throwable {
+        // given
+        given(rateLimitService.tryAcquireAccount("1234")).willReturn(true);
+
+        // when
+        rateLimitAopAspect.aroundMethod(proceedingJoinPoint,
+                new CancelBalance.Request("transactionId", "1234", 1000L));
+
+        // then
+        verify(rateLimitService, never()).tryAcquireUser(anyLong());
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.*;
+import org.redisson.Redisson;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// 내장 redis를 띄워서 전역 bucket 스크립트를 실제로 실행해본다.
+class RateLimitServiceTest {
+    private static final int REDIS_PORT = 6391;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private RateLimitService rateLimitService;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+
+        rateLimitService = new RateLimitService(redissonClient);
+        ReflectionTestUtils.setField(rateLimitService, "accountCapacity", 6L);
+        ReflectionTestUtils.setField(rateLimitService, "accountRefillPerSecond", 1L);
+        ReflectionTestUtils.setField(rateLimitService, "leaseSize", 4L);
+    }
+
+    @Test
+    @DisplayName("전역 bucket의 용량을 넘으면 요청이 거절된다")
+    void rejectWhenGlobalBucketIsEmpty() {
+        // when
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (rateLimitService.tryAcquireAccount("1000000000")) {
+                allowed++;
+            }
+        }
+
+        // then
+        assertThat(allowed).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("여러 노드가 같은 전역 bucket을 나눠쓴다")
+    void shareGlobalBucketBetweenNodes() {
+        // given
+        RateLimitService otherNode = new RateLimitService(redissonClient);
+        ReflectionTestUtils.setField(otherNode, "accountCapacity", 6L);
+        ReflectionTestUtils.setField(otherNode, "accountRefillPerSecond", 1L);
+        ReflectionTestUtils.setField(otherNode, "leaseSize", 4L);
+
+        // when
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (rateLimitService.tryAcquireAccount("1000000000")) {
+                allowed++;
+            }
+            if (otherNode.tryAcquireAccount("1000000000")) {
+                allowed++;
+            }
+        }
+
+        // then
+        assertThat(allowed).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("계좌마다 bucket이 따로 있다")
+    void separateBucketPerAccount() {
+        // when
+        for (int i = 0; i < 6; i++) {
+            rateLimitService.tryAcquireAccount("1000000000");
+        }
+
+        // then
+        assertThat(rateLimitService.tryAcquireAccount("1000000000")).isFalse();
+        assertThat(rateLimitService.tryAcquireAccount("1000000001")).isTrue();
+    }
+
+    @Test
+    @DisplayName("비활성화 되어있으면 항상 통과한다")
+    void disabled() {
+        // given
+        ReflectionTestUtils.setField(rateLimitService, "enabled", false);
+
+        // then
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimitService.tryAcquireAccount("1000000000")).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("redis 호출이 연속으로 실패하면 한동안 redis를 호출하지 않고 통과시킨다")
+    void openCircuitOnRedisFailure() {
+        // given
+        RedissonClient failingClient = mock(RedissonClient.class);
+        given(failingClient.getScript(any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+        RateLimitService service = new RateLimitService(failingClient);
+
+        // when
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (service.tryAcquireAccount("1000000000")) {
+                allowed++;
+            }
+        }
+
+        // then
+        assertThat(allowed).isEqualTo(10);
+        assertThat(service.getRedisFailureCount()).isEqualTo(5);
+        verify(failingClient, times(5)).getScript(any());
+    }
+
+    @Test
+    @DisplayName("같은 key의 permit은 한 스레드만 빌려오고 다른 스레드는 그 결과를 나눠쓴다")
+    void singleFlightLease() throws Exception {
+        // given
+        RedissonClient client = mock(RedissonClient.class);
+        RScript script = mock(RScript.class);
+        given(client.getScript(any())).willReturn(script);
+        CountDownLatch leasing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(script.eval(any(RScript.Mode.class), any(String.class), any(RScript.ReturnType.class),
+                any(), any())).willAnswer(invocation -> {
+            leasing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 2L;
+        });
+        RateLimitService service = new RateLimitService(client);
+        ReflectionTestUtils.setField(service, "leaseWaitMs", 5000L);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<Boolean> first = executor.submit(() -> service.tryAcquireAccount("1000000000"));
+        leasing.await(5, TimeUnit.SECONDS);
+        Future<Boolean> second = executor.submit(() -> service.tryAcquireAccount("1000000000"));
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(client, times(1)).getScript(any());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("전역 bucket이 비어있으면 다시 채워질 때까지 redis를 호출하지 않고 거절한다")
+    void rejectLocallyWhileGlobalBucketIsEmpty() {
+        // given
+        RedissonClient client = mock(RedissonClient.class);
+        RScript script = mock(RScript.class);
+        given(client.getScript(any())).willReturn(script);
+        given(script.eval(any(RScript.Mode.class), any(String.class), any(RScript.ReturnType.class),
+                any(), any())).willReturn(0L);
+        RateLimitService service = new RateLimitService(client);
+
+        // when
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (service.tryAcquireAccount("1000000000")) {
+                allowed++;
+            }
+        }
+
+        // then
+        assertThat(allowed).isZero();
+        verify(client, times(1)).getScript(any());
+    }
+
+    @Test
+    @DisplayName("다른 스레드가 빌려오는 permit을 오래 기다리면 통과시키지 않고 거절한다")
+    void rejectWhenLeaseIsSlow() throws Exception {
+        // given
+        RedissonClient client = mock(RedissonClient.class);
+        RScript script = mock(RScript.class);
+        given(client.getScript(any())).willReturn(script);
+        CountDownLatch leasing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(script.eval(any(RScript.Mode.class), any(String.class), any(RScript.ReturnType.class),
+                any(), any())).willAnswer(invocation -> {
+            leasing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 2L;
+        });
+        RateLimitService service = new RateLimitService(client);
+        ReflectionTestUtils.setField(service, "leaseWaitMs", 50L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<Boolean> first = executor.submit(() -> service.tryAcquireAccount("1000000000"));
+        leasing.await(5, TimeUnit.SECONDS);
+        boolean second = service.tryAcquireAccount("1000000000");
+        release.countDown();
+
+        // then
+        assertThat(second).isFalse();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.OutboxEvent;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.springframework.context.ApplicationEventPublisher;
+import org.mockito.quality.Strictness;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.account.type.ErrorCode.*;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// 내장 redis를 띄워서 lua 스크립트를 실제로 실행해본다.
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RedisBalanceEngineTest {
+    private static final int REDIS_PORT = 6390;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SpendLimitService spendLimitService;
+
+    private RedisBalanceEngine redisBalanceEngine;
+
+    private Account account;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+
+        // 사용 한도는 기본으로 꺼져있고, 한도를 확인하는 테스트에서만 켠다.
+        spendLimitService = new SpendLimitService(redissonClient);
+        redisBalanceEngine = new RedisBalanceEngine(redissonClient, accountRepository,
+                transactionRepository, archivedTransactionRepository, outboxEventRepository,
+                transactionTemplate, eventPublisher, spendLimitService);
+        ReflectionTestUtils.setField(redisBalanceEngine, "balanceEngine", "redis");
+
+        account = Account.builder()
+                .id(1L)
+                .accountUser(AccountUser.builder().id(12L).name("홍길동").build())
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1000L)
+                .build();
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        willAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("redis에서 잔액을 사용하고 DB에 반영한다")
+    void useBalanceAndFlush() {
+        // when
+        TransactionDto first = redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+        TransactionDto second = redisBalanceEngine.useBalance(12L, "1000000000", 200L);
+        redisBalanceEngine.flush();
+
+        // then
+        assertThat(first.getBalanceSnapshot()).isEqualTo(700L);
+        assertThat(second.getBalanceSnapshot()).isEqualTo(500L);
+        verify(accountRepository, times(2)).findByAccountNumber("1000000000");
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(captor.getValue().get(0).getTransactionId()).isEqualTo(first.getTransactionId());
+        assertThat(captor.getValue().get(1).getBalanceSnapshot()).isEqualTo(500L);
+        assertThat(account.getBalance()).isEqualTo(500L);
+
+        // DB에 반영된 거래는 같은 트랜잭션에서 outbox에도 저장된다.
+        ArgumentCaptor<List<OutboxEvent>> outboxCaptor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(outboxCaptor.capture());
+        assertThat(outboxCaptor.getValue()).hasSize(2);
+        assertThat(outboxCaptor.getValue().get(1).getBalanceSnapshot()).isEqualTo(500L);
+
+        // journal이 비워져서 다시 flush해도 저장하지 않는다.
+        redisBalanceEngine.flush();
+        verify(transactionRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("잔액보다 큰 금액은 사용할 수 없다")
+    void useBalance_ExceedBalance() {
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, "1000000000", 1001L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(AMOUNT_EXCEED_BALANCE);
+    }
+
+    @Test
+    @DisplayName("계좌 소유주가 다르면 사용할 수 없다")
+    void useBalance_UserUnMatch() {
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(13L, "1000000000", 100L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(USER_ACCOUNT_UN_MATCH);
+    }
+
+    @Test
+    @DisplayName("해지된 계좌는 사용할 수 없다")
+    void useBalance_Unregistered() {
+        // given
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(2L)
+                        .accountUser(AccountUser.builder().id(13L).build())
+                        .accountNumber("1000000001")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(500L)
+                        .build()));
+        redisBalanceEngine.useBalance(12L, "1000000000", 1000L);
+        redisBalanceEngine.markUnregistered("1000000000");
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.transferBalance(13L, "1000000001", "1000000000", 100L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(ACCOUNT_ALREADY_UNREGISTERED);
+    }
+
+    @Test
+    @DisplayName("DB에 반영되기 전의 거래도 취소할 수 있다")
+    void cancelPendingTransaction() {
+        // given
+        TransactionDto used = redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+
+        // when
+        TransactionDto canceled = redisBalanceEngine.cancelBalance(
+                used.getTransactionId(), "1000000000", 300L);
+
+        // then
+        assertThat(canceled.getTransactionType()).isEqualTo(CANCEL);
+        assertThat(canceled.getBalanceSnapshot()).isEqualTo(1000L);
+    }
+
+    @Test
+    @DisplayName("부분 취소는 허용되지 않는다")
+    void cancel_MustFully() {
+        // given
+        TransactionDto used = redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 200L));
+
+        // then
+        assertThat(used.getTransactionType()).isEqualTo(USE);
+        assertThat(e.getErrorCode()).isEqualTo(CANCEL_MUST_FULLY);
+    }
+
+    @Test
+    @DisplayName("이미 DB에 저장된 거래는 다시 저장하지 않는다")
+    void flushSkipsPersistedTransactions() {
+        // given
+        TransactionDto used = redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+        given(transactionRepository.findByTransactionIdIn(anyCollection()))
+                .willReturn(List.of(Transaction.builder()
+                        .transactionId(used.getTransactionId())
+                        .build()));
+
+        // when
+        redisBalanceEngine.flush();
+
+        // then
+        // 이미 반영된 잔액을 덮어쓰지 않고 journal만 정리한다.
+        verify(transactionRepository, never()).saveAll(any());
+        assertThat(account.getBalance()).isEqualTo(1000L);
+        assertThat(redissonClient.getList("ACJNL:1000000000").size()).isZero();
+    }
+
+    @Test
+    @DisplayName("여러 서버가 동시에 flush해도 한 번만 반영하고 journal을 두 번 지우지 않는다")
+    void concurrentFlush() throws Exception {
+        // given
+        redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            persisting.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        }).given(transactionRepository).saveAll(anyList());
+        RedisBalanceEngine otherNode = new RedisBalanceEngine(redissonClient, accountRepository,
+                transactionRepository, archivedTransactionRepository, outboxEventRepository,
+                transactionTemplate, eventPublisher, spendLimitService);
+        ReflectionTestUtils.setField(otherNode, "balanceEngine", "redis");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<?> first = executor.submit(redisBalanceEngine::flush);
+        persisting.await(5, TimeUnit.SECONDS);
+        // 첫 flush가 반영하는 사이에 들어온 거래는 다음 flush까지 journal에 남아야 한다.
+        TransactionDto late = redisBalanceEngine.useBalance(12L, "1000000000", 200L);
+        otherNode.flush();
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        // then
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        assertThat(account.getBalance()).isEqualTo(700L);
+        List<Object> journal = redissonClient.getList("ACJNL:1000000000", StringCodec.INSTANCE).readAll();
+        assertThat(journal).hasSize(1);
+        assertThat((String) journal.get(0)).contains(late.getTransactionId());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("redis에 잔액이 남아있으면 해지 상태로 바꾸지 않는다")
+    void markUnregistered_BalanceNotEmpty() {
+        // given
+        redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.markUnregistered("1000000000"));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(BALANCE_NOT_EMPTY);
+        assertThat(redisBalanceEngine.getBalance("1000000000")).hasValue(700L);
+    }
+
+    @Test
+    @DisplayName("redis에서 두 계좌 사이에 이체하고 각 계좌의 거래로 DB에 반영한다")
+    void transferBalanceAndFlush() {
+        // given
+        Account toAccount = Account.builder()
+                .id(2L)
+                .accountUser(AccountUser.builder().id(13L).name("임꺽정").build())
+                .accountNumber("1000000001")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(500L)
+                .build();
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(toAccount));
+
+        // when
+        TransactionDto transferred = redisBalanceEngine.transferBalance(
+                12L, "1000000000", "1000000001", 300L);
+        redisBalanceEngine.flush();
+
+        // then
+        assertThat(transferred.getTransactionType()).isEqualTo(TRANSFER_OUT);
+        assertThat(transferred.getBalanceSnapshot()).isEqualTo(700L);
+        assertThat(account.getBalance()).isEqualTo(700L);
+        assertThat(toAccount.getBalance()).isEqualTo(800L);
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(2)).saveAll(captor.capture());
+        Transaction withdrawal = captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .filter(transaction -> transaction.getTransactionType() == TRANSFER_OUT)
+                .findFirst().orElseThrow();
+        Transaction deposit = captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .filter(transaction -> transaction.getTransactionType() == TRANSFER_IN)
+                .findFirst().orElseThrow();
+        assertThat(withdrawal.getTransactionId()).isEqualTo(transferred.getTransactionId());
+        assertThat(withdrawal.getPairedTransactionId()).isEqualTo(deposit.getTransactionId());
+        assertThat(deposit.getPairedTransactionId()).isEqualTo(withdrawal.getTransactionId());
+        assertThat(deposit.getBalanceSnapshot()).isEqualTo(800L);
+    }
+
+    @Test
+    @DisplayName("이체 금액이 잔액보다 크면 어느 계좌도 바뀌지 않는다")
+    void transferBalance_ExceedBalance() {
+        // given
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(2L)
+                        .accountUser(AccountUser.builder().id(13L).build())
+                        .accountNumber("1000000001")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(500L)
+                        .build()));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.transferBalance(12L, "1000000000", "1000000001", 1001L));
+        redisBalanceEngine.flush();
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(AMOUNT_EXCEED_BALANCE);
+        verify(transactionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("redis 엔진에서도 사용 한도를 넘는 사용과 이체는 거절되고 잔액이 바뀌지 않는다")
+    void useBalance_SpendLimitExceeded() {
+        // given
+        enableSpendLimit(500L);
+        given(accountRepository.findByAccountNumber("1000000001"))
+                .willReturn(Optional.of(Account.builder()
+                        .id(2L)
+                        .accountUser(AccountUser.builder().id(13L).build())
+                        .accountNumber("1000000001")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(500L)
+                        .build()));
+        redisBalanceEngine.useBalance(12L, "1000000000", 300L);
+
+        // when
+        AccountException useException = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, "1000000000", 300L));
+        AccountException transferException = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.transferBalance(12L, "1000000000", "1000000001", 300L));
+
+        // then
+        assertThat(useException.getErrorCode()).isEqualTo(SPEND_LIMIT_EXCEEDED);
+        assertThat(transferException.getErrorCode()).isEqualTo(SPEND_LIMIT_EXCEEDED);
+        assertThat(redisBalanceEngine.getBalance("1000000000")).hasValue(700L);
+    }
+
+    @Test
+    @DisplayName("스크립트가 거절한 사용은 사용 한도에서 되돌린다")
+    void useBalance_RestoreSpendOnReject() {
+        // given
+        enableSpendLimit(1500L);
+        assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, "1000000000", 1200L));
+
+        // when
+        TransactionDto used = redisBalanceEngine.useBalance(12L, "1000000000", 1000L);
+
+        // then
+        assertThat(used.getBalanceSnapshot()).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("취소한 금액은 사용 한도에서 되돌린다")
+    void cancel_RestoreSpend() {
+        // given
+        enableSpendLimit(500L);
+        TransactionDto used = redisBalanceEngine.useBalance(12L, "1000000000", 500L);
+
+        // when
+        redisBalanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 500L);
+        TransactionDto usedAgain = redisBalanceEngine.useBalance(12L, "1000000000", 500L);
+
+        // then
+        assertThat(usedAgain.getBalanceSnapshot()).isEqualTo(500L);
+        assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, "1000000000", 1L));
+    }
+
+    private void enableSpendLimit(long userDailyLimit) {
+        ReflectionTestUtils.setField(spendLimitService, "enabled", true);
+        ReflectionTestUtils.setField(spendLimitService, "userDailyLimit", userDailyLimit);
+        spendLimitService.init();
+    }
+}
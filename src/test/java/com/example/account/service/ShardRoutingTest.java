@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.shard.ShardContext;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 여러 in-memory H2 DB(shard)에 계좌/거래가 나뉘어 저장되는지 확인한다.
+// (ShardContext는 static이므로 다른 테스트의 context에 영향을 주지 않도록 끝나면 context를 닫는다)
+@SpringBootTest(properties = {
+        "spring.redis.port=6395",
+        "spring.datasource.url=jdbc:h2:mem:sharding",
+        "rate-limit.enabled=false",
+        "shard.count=3"
+})
+@DirtiesContext
+class ShardRoutingTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("사용자의 계좌는 사용자의 shard에만 저장되고, 거래 id로 같은 shard에서 조회한다")
+    void routeByAccountNumber() {
+        // given
+        int shard = ShardContext.shardOfUser(1L);
+        AccountDto account = accountService.createAccount(1L, 10000L);
+
+        // when
+        TransactionDto transaction = transactionService.useBalance(1L, account.getAccountNumber(), 1000L);
+
+        // then
+        assertThat(ShardContext.shardOf(account.getAccountNumber())).isEqualTo(shard);
+        assertThat(ShardContext.shardOfId(transaction.getTransactionId())).isEqualTo(shard);
+        for (int other = 0; other < 3; other++) {
+            assertThat(ShardContext.call(other,
+                    () -> accountRepository.findByAccountNumber(account.getAccountNumber())).isPresent())
+                    .isEqualTo(other == shard);
+            assertThat(ShardContext.call(other,
+                    () -> transactionRepository.findByTransactionId(transaction.getTransactionId())).isPresent())
+                    .isEqualTo(other == shard);
+        }
+        assertThat(transactionService.queryTransaction(transaction.getTransactionId()).getBalanceSnapshot())
+                .isEqualTo(9000L);
+        assertThat(accountService.getAccountsByUserId(1L))
+                .anyMatch(info -> info.getAccountNumber().equals(account.getAccountNumber()));
+    }
+
+    @Test
+    @DisplayName("다른 shard에 있는 계좌로는 이체할 수 없다")
+    void crossShardTransfer() {
+        // given
+        long otherUserId = ShardContext.shardOfUser(2L) != ShardContext.shardOfUser(1L) ? 2L : 3L;
+        AccountDto from = accountService.createAccount(1L, 10000L);
+        AccountDto to = accountService.createAccount(otherUserId, 0L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(
+                        1L, from.getAccountNumber(), to.getAccountNumber(), 1000L));
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.CROSS_SHARD_NOT_SUPPORTED);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.*;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+// 내장 redis를 띄워서 한도 counter 스크립트를 실제로 실행해본다.
+class SpendLimitServiceTest {
+    private static final int REDIS_PORT = 6396;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private SpendLimitService spendLimitService;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        spendLimitService = newNode();
+    }
+
+    private static SpendLimitService newNode() {
+        SpendLimitService service = new SpendLimitService(redissonClient);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "userDailyLimit", 1000L);
+        ReflectionTestUtils.setField(service, "accountMonthlyLimit", 1500L);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("일 한도를 넘는 사용은 거절되고 누적되지 않는다")
+    void rejectOverDailyLimit() {
+        // given
+        spendLimitService.reserve(1L, "1000000000", 600L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> spendLimitService.reserve(1L, "1000000001", 500L));
+        spendLimitService.reserve(1L, "1000000001", 400L);
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.SPEND_LIMIT_EXCEEDED);
+        assertThat(spendLimitService.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("여러 서버가 같은 한도를 나눠쓴다")
+    void shareLimitBetweenNodes() {
+        // given
+        SpendLimitService otherNode = newNode();
+        spendLimitService.reserve(1L, "1000000000", 700L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> otherNode.reserve(1L, "1000000000", 400L));
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.SPEND_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    @DisplayName("취소한 금액은 다시 사용할 수 있다")
+    void restoreOnCancel() {
+        // given
+        LocalDateTime spendChargedAt = spendLimitService.reserve(2L, "1000000002", 1000L);
+
+        // when
+        spendLimitService.restore(2L, "1000000002", 300L, spendChargedAt);
+        spendLimitService.reserve(2L, "1000000002", 300L);
+
+        // then
+        assertThrows(AccountException.class,
+                () -> spendLimitService.reserve(2L, "1000000002", 1L));
+    }
+
+    @Test
+    @DisplayName("지난 기간의 사용 금액은 되돌리지 않는다")
+    void ignoreRestoreOfPastWindow() {
+        // given
+        spendLimitService.reserve(3L, "1000000003", 1000L);
+
+        // when
+        spendLimitService.restore(3L, "1000000003", 500L, LocalDateTime.now().minusMonths(2));
+
+        // then
+        assertThrows(AccountException.class,
+                () -> spendLimitService.reserve(3L, "1000000003", 1L));
+    }
+
+    @Test
+    @DisplayName("redis를 사용할 수 없으면 로컬 counter로 한도를 확인한다")
+    void fallbackToLocalCounter() {
+        // given
+        RedissonClient failingClient = mock(RedissonClient.class);
+        given(failingClient.getScript(any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+        SpendLimitService service = new SpendLimitService(failingClient);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "userDailyLimit", 1000L);
+        service.init();
+        service.reserve(4L, "1000000004", 800L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> service.reserve(4L, "1000000004", 300L));
+        service.reserve(4L, "1000000004", 200L);
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.SPEND_LIMIT_EXCEEDED);
+        assertThat(service.getRedisFailureCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TransactionArchiveService transactionArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("1년이 지난 거래를 아카이브로 옮긴다")
+    void archiveOldTransactions() {
+        // given
+        LocalDateTime now = LocalDateTime.of(2024, 3, 15, 10, 0);
+        Account account = Account.builder()
+                .id(1L)
+                .accountNumber("1000000000")
+                .build();
+        Transaction transaction = Transaction.builder()
+                .id(7L)
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(200L)
+                .balanceSnapshot(800L)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.of(2023, 1, 20, 9, 0))
+                .build();
+
+        given(transactionRepository.findByTransactedMonthLessThanEqualAndTransactedAtBefore(
+                anyInt(), any(), any()))
+                .willReturn(List.of(transaction));
+
+        ArgumentCaptor<List<ArchivedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        long archived = transactionArchiveService.archive(now);
+
+        // then
+        assertThat(archived).isEqualTo(1L);
+        verify(transactionRepository).findByTransactedMonthLessThanEqualAndTransactedAtBefore(
+                eq(202303), eq(now.minusYears(1)), any());
+        verify(archivedTransactionRepository).saveAll(captor.capture());
+        verify(transactionRepository).deleteAllInBatch(List.of(transaction));
+
+        ArchivedTransaction archivedTransaction = captor.getValue().get(0);
+        assertThat(archivedTransaction.getId()).isEqualTo(7L);
+        assertThat(archivedTransaction.getArchiveMonth()).isEqualTo(202301);
+        assertThat(archivedTransaction.getAccountNumber()).isEqualTo("1000000000");
+        assertThat(archivedTransaction.getTransactionId()).isEqualTo("transactionId");
+        assertThat(archivedTransaction.getArchivedAt()).isEqualTo(now);
+    }
+
+    @Test
+    @DisplayName("옮길 거래가 없으면 아무것도 하지 않는다")
+    void archiveNothing() {
+        // given
+        given(transactionRepository.findByTransactedMonthLessThanEqualAndTransactedAtBefore(
+                anyInt(), any(), any()))
+                .willReturn(Collections.emptyList());
+
+        // when
+        long archived = transactionArchiveService.archive(LocalDateTime.now());
+
+        // then
+        assertThat(archived).isEqualTo(0L);
+        verify(archivedTransactionRepository, never()).saveAll(any());
+        verify(transactionRepository, never()).deleteAllInBatch(any());
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountChainHead;
+import com.example.account.dto.ChainVerificationReport;
+import com.example.account.dto.TransactionChainEntry;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ChainBreakType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionChainVerifierTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TransactionChainVerifier transactionChainVerifier;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = Account.builder()
+                .id(1L)
+                .accountNumber("1000000000")
+                .balance(10000L)
+                .build();
+    }
+
+    @Test
+    @DisplayName("모든 계좌의 거래가 chain으로 이어져 있으면 끊어진 곳이 없다")
+    void verifyAll() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        given(accountRepository.findChainHeadsAfter(anyLong(), any()))
+                .willReturn(List.of(head()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamChainByAccountId(1L))
+                .willReturn(transactions.stream());
+
+        // when
+        ChainVerificationReport report = transactionChainVerifier.verifyAll();
+
+        // then
+        assertThat(report.getAccountsChecked()).isEqualTo(1);
+        assertThat(report.getTransactionsChecked()).isEqualTo(3);
+        assertThat(report.getBreaks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("금액을 고친 거래는 hash가 맞지 않는다")
+    void modifiedTransaction() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        TransactionChainEntry original = transactions.get(1);
+        transactions.set(1, new TransactionChainEntry(original.getId(), original.getAccountId(),
+                original.getTransactionId(), original.getTransactionType(),
+                original.getTransactionResultType(), 1L, original.getBalanceSnapshot(),
+                original.getTransactedAt(), original.getPairedTransactionId(),
+                original.getPreviousHash(), original.getHash()));
+
+        // when
+        List<ChainVerificationReport.Break> breaks = verify(transactions, null);
+
+        // then
+        assertThat(breaks).hasSize(1);
+        assertThat(breaks.get(0).getTransactionId()).isEqualTo(original.getTransactionId());
+        assertThat(breaks.get(0).getBreakType()).isEqualTo(ChainBreakType.HASH_MISMATCH);
+    }
+
+    @Test
+    @DisplayName("중간 거래를 지우면 다음 거래가 이어지지 않는다")
+    void deletedTransaction() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        TransactionChainEntry deleted = transactions.remove(1);
+
+        // when
+        List<ChainVerificationReport.Break> breaks = verify(transactions, null);
+
+        // then
+        assertThat(breaks).hasSize(1);
+        assertThat(breaks.get(0).getTransactionId()).isNotEqualTo(deleted.getTransactionId());
+        assertThat(breaks.get(0).getBreakType()).isEqualTo(ChainBreakType.LINK_MISMATCH);
+    }
+
+    @Test
+    @DisplayName("마지막 거래를 지우면 계좌에 저장된 hash와 맞지 않는다")
+    void deletedLastTransaction() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        transactions.remove(2);
+
+        // when
+        List<ChainVerificationReport.Break> breaks = verify(transactions, null);
+
+        // then
+        assertThat(breaks).hasSize(1);
+        assertThat(breaks.get(0).getBreakType()).isEqualTo(ChainBreakType.HEAD_MISMATCH);
+    }
+
+    @Test
+    @DisplayName("아카이브로 옮겨진 거래 뒤의 첫 거래는 마지막 아카이브 거래에 이어진다")
+    void archivedTransactions() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        TransactionChainEntry archived = transactions.remove(0);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        given(accountRepository.findChainHeadsAfter(anyLong(), any()))
+                .willReturn(List.of(head()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamChainByAccountId(1L))
+                .willReturn(transactions.stream());
+        given(archivedTransactionRepository
+                .findTopByAccountIdAndTransactionResultTypeOrderByIdDesc(1L, S))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .id(archived.getId())
+                        .hash(archived.getHash())
+                        .build()));
+
+        // when
+        ChainVerificationReport report = transactionChainVerifier.verifyAll();
+
+        // then
+        assertThat(report.getTransactionsChecked()).isEqualTo(2);
+        assertThat(report.getBreaks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("검증 중에 거래가 추가되면 head를 다시 읽어서 검증한다")
+    void verifyAll_TransactionAddedWhileVerifying() {
+        // given
+        // chunk를 읽은 뒤에 세 번째 거래가 commit되었다.
+        List<TransactionChainEntry> transactions = chain(2);
+        AccountChainHead staleHead = head();
+        transactions.addAll(chain(1));
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        given(accountRepository.findChainHeadsAfter(anyLong(), any()))
+                .willReturn(List.of(staleHead))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamChainByAccountId(1L))
+                .willAnswer(invocation -> transactions.stream());
+        given(accountRepository.findChainHeadById(1L))
+                .willReturn(Optional.of(head()));
+
+        // when
+        ChainVerificationReport report = transactionChainVerifier.verifyAll();
+
+        // then
+        assertThat(report.getBreaks()).isEmpty();
+        assertThat(report.getTransactionsChecked()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("head를 다시 읽어도 그대로면 HEAD_MISMATCH로 남긴다")
+    void verifyAll_HeadMismatch() {
+        // given
+        List<TransactionChainEntry> transactions = chain(3);
+        transactions.remove(2);
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        given(accountRepository.findChainHeadsAfter(anyLong(), any()))
+                .willReturn(List.of(head()))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.streamChainByAccountId(1L))
+                .willAnswer(invocation -> transactions.stream());
+        given(accountRepository.findChainHeadById(1L))
+                .willReturn(Optional.of(head()));
+
+        // when
+        ChainVerificationReport report = transactionChainVerifier.verifyAll();
+
+        // then
+        assertThat(report.getBreaks()).extracting(ChainVerificationReport.Break::getBreakType)
+                .containsExactly(ChainBreakType.HEAD_MISMATCH);
+        assertThat(report.getTransactionsChecked()).isEqualTo(2);
+        then(transactionRepository).should(times(1)).streamChainByAccountId(1L);
+    }
+
+    @Test
+    @DisplayName("검증에 실패한 shard가 있으면 리포트를 미완료로 표시한다")
+    void verifyAll_Failed() {
+        // given
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        given(accountRepository.findChainHeadsAfter(anyLong(), any()))
+                .willReturn(List.of(head()));
+        given(transactionRepository.streamChainByAccountId(1L))
+                .willThrow(new IllegalStateException("connection lost"));
+
+        // when
+        ChainVerificationReport report = transactionChainVerifier.verifyAll();
+
+        // then
+        assertThat(report.isIncomplete()).isTrue();
+        assertThat(report.getFailedShards()).containsExactly(0);
+        assertThat(report.getAccountsChecked()).isZero();
+    }
+
+    private List<ChainVerificationReport.Break> verify(
+            List<TransactionChainEntry> transactions, String archivedHash) {
+        return TransactionChainVerifier.verify(head(), transactions.iterator(),
+                () -> archivedHash, new AtomicLong());
+    }
+
+    private AccountChainHead head() {
+        return new AccountChainHead(account.getId(), account.getAccountNumber(),
+                account.getLastTransactionHash());
+    }
+
+    // 저장 경로(Account.chain)와 같은 방법으로 거래를 이어 붙인다.
+    private List<TransactionChainEntry> chain(int count) {
+        List<TransactionChainEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = Transaction.builder()
+                    .id((long) i + 1)
+                    .account(account)
+                    .transactionType(i % 2 == 0 ? USE : CANCEL)
+                    .transactionResultType(S)
+                    .amount(1000L)
+                    .balanceSnapshot(i % 2 == 0 ? 9000L : 10000L)
+                    .transactionId("transactionId" + i)
+                    .transactedAt(LocalDateTime.now())
+                    .build();
+            account.chain(transaction);
+            entries.add(new TransactionChainEntry(transaction.getId(), account.getId(),
+                    transaction.getTransactionId(), transaction.getTransactionType(),
+                    transaction.getTransactionResultType(), transaction.getAmount(),
+                    transaction.getBalanceSnapshot(), transaction.getTransactedAt(),
+                    transaction.getPairedTransactionId(), transaction.getPreviousHash(),
+                    transaction.getHash()));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.profiling.RequestSqlProfile;
+import com.example.account.profiling.StatementRecord;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 잔액 사용 한 건이 실행하는 SQL 수가 늘어나지 않는지 확인한다. (DataSource proxy로 실제 statement를 센다)
+@SpringBootTest(properties = {
+        "spring.redis.port=6394",
+        "spring.datasource.url=jdbc:h2:mem:statement-count",
+        "rate-limit.enabled=false"
+})
+class TransactionServiceStatementCountTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @AfterEach
+    void tearDown() {
+        RequestSqlProfile.end();
+    }
+
+    @Test
+    @DisplayName("잔액 사용 한 건은 7개의 statement를 실행한다")
+    void useBalanceStatements() {
+        // given
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("Pobi")
+                .build());
+        accountRepository.save(Account.builder()
+                .accountUser(accountUser)
+                .accountNumber("3000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+
+        // when
+        RequestSqlProfile profile = RequestSqlProfile.begin(() -> "useBalance", 200);
+        transactionService.useBalance(accountUser.getId(), "3000000000", 1000L);
+        RequestSqlProfile.end();
+
+        // then
+        List<String> statements = profile.getStatements().stream()
+                .map(StatementRecord::getShape)
+                .map(shape -> shape.substring(0, shape.indexOf(' ')))
+                .collect(Collectors.toList());
+        assertThat(profile.getStatementCount()).isEqualTo(7);
+        // 사용자 조회, 계좌 조회, id 채번 2번, outbox/거래 저장, 잔액 변경
+        assertThat(statements).containsExactly(
+                "select", "select", "call", "call", "insert", "insert", "update");
+        assertThat(profile.getStatements())
+                .allMatch(StatementRecord::isSuccess);
+    }
+}
@@ -2,14 +2,25 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.domain.Hold;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.GroupedUseBalance;
+import com.example.account.dto.HoldDto;
 import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.HoldRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.TransactionRepository;
+import com.example.account.stream.BalanceChangedEvent;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.HoldStatus;
 import com.example.account.type.TransactionType;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -19,8 +30,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.ErrorCode.*;
@@ -32,6 +45,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -45,6 +60,27 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private HoldExpiryService holdExpiryService;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SpendLimitService spendLimitService;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -79,12 +115,24 @@ class TransactionServiceTest {
                                 .build()
                 );
 
+        LocalDateTime spendChargedAt = LocalDateTime.now();
+        given(spendLimitService.reserve(12L, "100000015", 100L))
+                .willReturn(spendChargedAt);
+
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
 
         // when
         TransactionDto result = transactionService.useBalance(1L, "d", 100L);
 
         // then
+        ArgumentCaptor<OutboxEvent> outboxCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(1)).save(outboxCaptor.capture());
+        assertThat(outboxCaptor.getValue().getAccountNumber()).isEqualTo("100000015");
+        assertThat(outboxCaptor.getValue().getAmount()).isEqualTo(100L);
+        ArgumentCaptor<BalanceChangedEvent> eventCaptor = ArgumentCaptor.forClass(BalanceChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getUserId()).isEqualTo(12L);
+        assertThat(eventCaptor.getValue().getChange().getBalanceSnapshot()).isEqualTo(900L);
         assertThat(result.getBalanceSnapshot()).isEqualTo(999L);
         assertThat(result.getAmount()).isEqualTo(1L);
         assertThat(result.getTransactionResultType()).isEqualTo(S);
@@ -214,8 +262,8 @@ class TransactionServiceTest {
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction() {
+    @DisplayName("사용 한도를 넘으면 잔액 사용 실패")
+    void spendLimitExceeded_useBalance() {
         // given
         AccountUser user = AccountUser.builder()
                 .id(12L)
@@ -224,35 +272,100 @@ class TransactionServiceTest {
         Account account = Account.builder()
                 .accountStatus(AccountStatus.IN_USE)
                 .accountUser(user)
-                .balance(999L)
+                .balance(1000L)
                 .accountNumber("100000015").build();
 
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
+        willThrow(new AccountException(SPEND_LIMIT_EXCEEDED))
+                .given(spendLimitService).reserve(12L, "100000015", 100L);
 
+        //when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "100000015", 100L));
 
+        //then
+        assertThat(e.getErrorCode()).isEqualTo(SPEND_LIMIT_EXCEEDED);
+        assertThat(account.getBalance()).isEqualTo(1000L);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("묶음 잔액 사용 - 요청마다 따로 성공/실패한다")
+    void useBalanceGroup() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("100000015").build();
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountUserRepository.existsById(13L))
+                .willReturn(true);
         given(transactionRepository.save(any()))
-                .willReturn(
-                        Transaction.builder()
-                                .account(account)
-                                .balanceSnapshot(999L)
-                                .transactedAt(LocalDateTime.now())
-                                .transactionId("transactionId")
-                                .transactionResultType(S)
-                                .transactionType(USE)
-                                .amount(1L)
-                                .build());
+                .willAnswer(invocation -> invocation.getArgument(0));
 
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        GroupedUseBalance first = new GroupedUseBalance(12L, 600L);
+        GroupedUseBalance exceed = new GroupedUseBalance(12L, 500L);
+        GroupedUseBalance otherUser = new GroupedUseBalance(13L, 100L);
+        GroupedUseBalance second = new GroupedUseBalance(12L, 400L);
 
-        //when
-        transactionService.saveFailedUseTransaction("1000000000", 100L);
+        // when
+        transactionService.useBalanceGroup("100000015",
+                List.of(first, exceed, otherUser, second));
 
-        //then
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertThat(captor.getValue().getAmount()).isEqualTo(100L);
-        assertThat(captor.getValue().getBalanceSnapshot()).isEqualTo(999L);
-        assertThat(captor.getValue().getTransactionResultType()).isEqualTo(F);
+        // then
+        verify(transactionRepository, times(2)).save(any());
+        verify(accountService, times(1)).evictAccountsByUserId(12L);
+        assertThat(account.getBalance()).isEqualTo(0L);
+        assertThat(first.getTransaction().getBalanceSnapshot()).isEqualTo(400L);
+        assertThat(second.getTransaction().getBalanceSnapshot()).isEqualTo(0L);
+        assertThat(exceed.getErrorCode()).isEqualTo(AMOUNT_EXCEED_BALANCE);
+        assertThat(otherUser.getErrorCode()).isEqualTo(USER_ACCOUNT_UN_MATCH);
+    }
+
+    @Test
+    @DisplayName("실패 거래 묶음 저장 - 없는 계좌는 저장하지 않는다")
+    void saveFailedTransactions() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(999L)
+                .accountNumber("1000000000").build();
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+
+        given(accountRepository.findByAccountNumberIn(any()))
+                .willReturn(List.of(account));
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        transactionService.saveFailedTransactions(List.of(
+                new FailedTransaction(USE, "1000000000", 100L, failedAt, null),
+                new FailedTransaction(CANCEL, "9999999999", 200L, failedAt, null)));
+
+        // then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertThat(captor.getValue().size()).isEqualTo(1);
+        assertThat(captor.getValue().get(0).getAmount()).isEqualTo(100L);
+        assertThat(captor.getValue().get(0).getBalanceSnapshot()).isEqualTo(999L);
+        assertThat(captor.getValue().get(0).getTransactionResultType()).isEqualTo(F);
+        assertThat(captor.getValue().get(0).getTransactedAt()).isEqualTo(failedAt);
+        // 잔액이 바뀌지 않은 실패 거래는 outbox에 저장하지 않는다.
+        verify(outboxEventRepository, never()).save(any());
     }
 
     @Test
@@ -311,6 +424,7 @@ class TransactionServiceTest {
         assertThat(result.getTransactionType()).isEqualTo(CANCEL);
         assertThat(result.getBalanceSnapshot()).isEqualTo(10000L);
         assertThat(result.getAmount()).isEqualTo(200L);
+        verify(spendLimitService).restore(12L, "d", 200L, transaction.getTransactedAt());
     }
 
 
@@ -562,4 +676,381 @@ class TransactionServiceTest {
         // then
         assertThat(e.getErrorCode()).isEqualTo(TRANSACTION_NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("아카이브로 옮겨진 거래 조회 성공")
+    void successQueryArchivedTransaction() {
+        // given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .accountNumber("1000000000")
+                        .transactionId("transactionId")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(200L)
+                        .transactedAt(LocalDateTime.now().minusYears(2))
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+
+        //then
+        Assertions.assertThat(transactionDto.getAccountNumber()).isEqualTo("1000000000");
+        Assertions.assertThat(transactionDto.getTransactionType()).isEqualTo(USE);
+        Assertions.assertThat(transactionDto.getAmount()).isEqualTo(200L);
+    }
+
+    @Test
+    @DisplayName("아카이브로 옮겨진 거래는 취소가 불가능 하다")
+    void cancelBalance_FAIL_ArchivedTransaction() {
+        // given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionId("transactionId")
+                        .build()));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", "1234567890", 200L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(TOO_OLD_ORDER_TO_CANCEL);
+    }
+
+    @Test
+    @DisplayName("이체는 두 계좌의 잔액을 바꾸고 서로를 가리키는 출금/입금 거래를 저장한다")
+    void successTransferBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        AccountUser receiver = AccountUser.builder()
+                .id(13L)
+                .name("임꺽정")
+                .build();
+        Account fromAccount = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000000").build();
+        Account toAccount = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(receiver)
+                .balance(500L)
+                .accountNumber("1000000001").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(fromAccount, toAccount));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        TransactionDto transactionDto = transactionService.transferBalance(
+                12L, "1000000000", "1000000001", 300L);
+
+        // then
+        verify(transactionRepository).saveAll(captor.capture());
+        verify(accountService).evictAccountsByUserId(12L);
+        verify(accountService).evictAccountsByUserId(13L);
+        Transaction withdrawal = captor.getValue().get(0);
+        Transaction deposit = captor.getValue().get(1);
+
+        assertThat(fromAccount.getBalance()).isEqualTo(700L);
+        assertThat(toAccount.getBalance()).isEqualTo(800L);
+        assertThat(withdrawal.getTransactionType()).isEqualTo(TransactionType.TRANSFER_OUT);
+        assertThat(withdrawal.getBalanceSnapshot()).isEqualTo(700L);
+        assertThat(deposit.getTransactionType()).isEqualTo(TransactionType.TRANSFER_IN);
+        assertThat(deposit.getBalanceSnapshot()).isEqualTo(800L);
+        assertThat(withdrawal.getPairedTransactionId()).isEqualTo(deposit.getTransactionId());
+        assertThat(deposit.getPairedTransactionId()).isEqualTo(withdrawal.getTransactionId());
+        assertThat(transactionDto.getTransactionId()).isEqualTo(withdrawal.getTransactionId());
+        assertThat(transactionDto.getAccountNumber()).isEqualTo("1000000000");
+    }
+
+    @Test
+    @DisplayName("잔액보다 큰 금액은 이체할 수 없다")
+    void transferBalance_FAIL_ExceedBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        Account fromAccount = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(100L)
+                .accountNumber("1000000000").build();
+        Account toAccount = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(500L)
+                .accountNumber("1000000001").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(fromAccount, toAccount));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000000", "1000000001", 300L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(AMOUNT_EXCEED_BALANCE);
+        assertThat(toAccount.getBalance()).isEqualTo(500L);
+        verify(transactionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("같은 계좌로는 이체할 수 없다")
+    void transferBalance_FAIL_SameAccount() {
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(12L, "1000000000", "1000000000", 300L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(TRANSFER_SAME_ACCOUNT);
+    }
+
+    @Test
+    @DisplayName("이체 거래는 취소할 수 없다")
+    void cancelBalance_FAIL_TransferTransaction() {
+        // given
+        Account account = Account.builder()
+                .id(1L)
+                .accountNumber("1000000000").build();
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(account)
+                        .transactionType(TransactionType.TRANSFER_OUT)
+                        .transactionResultType(S)
+                        .transactedAt(LocalDateTime.now())
+                        .amount(200L)
+                        .build()));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", "1000000000", 200L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(TRANSFER_NOT_CANCELABLE);
+    }
+
+    @Test
+    @DisplayName("승인하면 잔액은 그대로이고 사용 가능한 잔액만 줄어든다")
+    void successHoldBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .accountNumber("1000000000").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(holdRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        HoldDto holdDto = transactionService.holdBalance(12L, "1000000000", 300L, 60L);
+
+        // then
+        assertThat(account.getBalance()).isEqualTo(1000L);
+        assertThat(account.getAvailableBalance()).isEqualTo(700L);
+        assertThat(holdDto.getStatus()).isEqualTo(HoldStatus.HELD);
+        assertThat(holdDto.getAmount()).isEqualTo(300L);
+        verify(holdExpiryService).schedule(holdDto.getHoldId(), holdDto.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("승인으로 묶인 금액은 사용할 수 없다")
+    void useBalance_FAIL_HeldBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("홍길동")
+                .build();
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(user)
+                .balance(1000L)
+                .heldBalance(800L)
+                .accountNumber("1000000000").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000000", 300L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(AMOUNT_EXCEED_BALANCE);
+        assertThat(account.getBalance()).isEqualTo(1000L);
+    }
+
+    @Test
+    @DisplayName("승인 금액 중 일부를 매입하면 나머지는 해제된다")
+    void successCaptureHold() {
+        // given
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(AccountUser.builder().id(12L).build())
+                .balance(1000L)
+                .heldBalance(500L)
+                .accountNumber("1000000000").build();
+        Hold hold = Hold.builder()
+                .holdId("holdId")
+                .account(account)
+                .amount(500L)
+                .status(HoldStatus.HELD)
+                .heldAt(LocalDateTime.now().minusDays(1))
+                .expiresAt(LocalDateTime.now().plusMinutes(1))
+                .build();
+
+        given(holdRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(hold));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        TransactionDto transactionDto =
+                transactionService.captureHold("holdId", "1000000000", 300L);
+
+        // then
+        assertThat(account.getBalance()).isEqualTo(700L);
+        assertThat(account.getHeldBalance()).isEqualTo(0L);
+        assertThat(hold.getStatus()).isEqualTo(HoldStatus.CAPTURED);
+        assertThat(transactionDto.getTransactionType()).isEqualTo(USE);
+        assertThat(transactionDto.getAmount()).isEqualTo(300L);
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(700L);
+        verify(spendLimitService).restore(12L, "1000000000", 200L, hold.getHeldAt());
+        // 매입 거래는 승인할 때 누적한 기간의 한도를 사용한 것으로 남는다.
+        verify(transactionRepository).save(captor.capture());
+        assertThat(captor.getValue().getSpendChargedAt()).isEqualTo(hold.getHeldAt());
+    }
+
+    @Test
+    @DisplayName("매입 거래를 취소하면 승인한 날의 사용 한도에서 되돌린다")
+    void cancelCapturedTransaction() {
+        // given
+        Account account = Account.builder()
+                .id(1L)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountUser(AccountUser.builder().id(12L).build())
+                .balance(700L)
+                .accountNumber("1000000000").build();
+        LocalDateTime heldAt = LocalDateTime.now().minusDays(1);
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(300L)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .spendChargedAt(heldAt)
+                .build();
+
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        transactionService.cancelBalance("transactionId", "1000000000", 300L);
+
+        // then
+        assertThat(account.getBalance()).isEqualTo(1000L);
+        verify(spendLimitService).restore(12L, "1000000000", 300L, heldAt);
+    }
+
+    @Test
+    @DisplayName("승인 금액보다 큰 금액은 매입할 수 없다")
+    void captureHold_FAIL_Exceed() {
+        // given
+        given(holdRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(Hold.builder()
+                        .holdId("holdId")
+                        .account(Account.builder().accountNumber("1000000000").build())
+                        .amount(500L)
+                        .status(HoldStatus.HELD)
+                        .expiresAt(LocalDateTime.now().plusMinutes(1))
+                        .build()));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.captureHold("holdId", "1000000000", 501L));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(HOLD_CAPTURE_EXCEED);
+    }
+
+    @Test
+    @DisplayName("만료 시각이 지난 승인은 해제할 수 없다")
+    void releaseHold_FAIL_Expired() {
+        // given
+        given(holdRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(Hold.builder()
+                        .holdId("holdId")
+                        .account(Account.builder().accountNumber("1000000000").build())
+                        .amount(500L)
+                        .status(HoldStatus.HELD)
+                        .expiresAt(LocalDateTime.now().minusSeconds(1))
+                        .build()));
+
+        // when
+        AccountException e = assertThrows(AccountException.class,
+                () -> transactionService.releaseHold("holdId", "1000000000"));
+
+        // then
+        assertThat(e.getErrorCode()).isEqualTo(HOLD_ALREADY_CLOSED);
+    }
+
+    @Test
+    @DisplayName("승인을 해제하면 묶인 금액이 다시 사용 가능해진다")
+    void successReleaseHold() {
+        // given
+        Account account = Account.builder()
+                .accountUser(AccountUser.builder().id(12L).build())
+                .balance(1000L)
+                .heldBalance(500L)
+                .accountNumber("1000000000").build();
+        Hold hold = Hold.builder()
+                .holdId("holdId")
+                .account(account)
+                .amount(500L)
+                .status(HoldStatus.HELD)
+                .heldAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(1))
+                .build();
+        given(holdRepository.findByHoldId(anyString()))
+                .willReturn(Optional.of(hold));
+
+        // when
+        HoldDto holdDto = transactionService.releaseHold("holdId", "1000000000");
+
+        // then
+        assertThat(holdDto.getStatus()).isEqualTo(HoldStatus.RELEASED);
+        assertThat(account.getAvailableBalance()).isEqualTo(1000L);
+        verify(spendLimitService).restore(12L, "1000000000", 500L, hold.getHeldAt());
+    }
+}
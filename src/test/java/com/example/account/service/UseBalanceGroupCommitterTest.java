@@ -0,0 +1,237 @@
+package com.example.account.service;
+
+import com.example.account.dto.GroupedUseBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UseBalanceGroupCommitterTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private HotAccountTracker hotAccountTracker;
+
+    @InjectMocks
+    private UseBalanceGroupCommitter groupCommitter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(groupCommitter, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("lock을 기다리는 같은 계좌의 요청은 한 트랜잭션으로 묶인다")
+    void groupWaitingUses() throws Exception {
+        // given
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger batches = new AtomicInteger();
+        willAnswer(invocation -> {
+            if (batches.incrementAndGet() == 1) {
+                committing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            List<GroupedUseBalance> uses = invocation.getArgument(1);
+            for (GroupedUseBalance use : uses) {
+                use.setTransaction(TransactionDto.builder()
+                        .accountNumber(invocation.getArgument(0))
+                        .amount(use.getAmount())
+                        .build());
+            }
+            return null;
+        }).given(transactionService).useBalanceGroup(anyString(), anyList());
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        // when
+        List<Future<TransactionDto>> results = new ArrayList<>();
+        results.add(executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", 100L)));
+        committing.await(5, TimeUnit.SECONDS);
+        for (long amount = 1; amount <= 4; amount++) {
+            long use = amount;
+            results.add(executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", use)));
+        }
+        // 첫 요청을 처리하는 동안 나머지 요청이 대기열에 쌓인다.
+        Thread.sleep(200);
+        release.countDown();
+
+        // then
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS).getAmount()).isEqualTo(100L);
+        for (int i = 1; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS).getAmount()).isEqualTo((long) i);
+        }
+        verify(transactionService, times(2)).useBalanceGroup(anyString(), anyList());
+        verify(lockService, times(2)).lock("1000000000");
+        verify(lockService, times(2)).unlock("1000000000");
+        assertThat(groupCommitter.getCommitCount()).isEqualTo(2);
+        assertThat(groupCommitter.getGroupedCount()).isEqualTo(5);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("실패한 요청은 자신의 실패 코드로 응답받는다")
+    void failedUse() {
+        // given
+        willAnswer(invocation -> {
+            List<GroupedUseBalance> uses = invocation.getArgument(1);
+            uses.get(0).setErrorCode(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            return null;
+        }).given(transactionService).useBalanceGroup(anyString(), anyList());
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> groupCommitter.useBalance(1L, "1000000000", 100L));
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        verify(lockService).unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("lock을 잡지 못하면 묶인 요청을 처리하지 않는다")
+    void lockFailed() {
+        // given
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyString());
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> groupCommitter.useBalance(1L, "1000000000", 100L));
+
+        // then
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        verify(transactionService, never()).useBalanceGroup(anyString(), any());
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    @Test
+    @DisplayName("처리 중 Error가 나도 묶인 요청 모두 실패로 응답받는다")
+    void errorWhileCommitting() throws Exception {
+        // given
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger batches = new AtomicInteger();
+        willAnswer(invocation -> {
+            if (batches.incrementAndGet() == 1) {
+                committing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+            throw new StackOverflowError();
+        }).given(transactionService).useBalanceGroup(anyString(), anyList());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        // when
+        executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", 100L));
+        committing.await(5, TimeUnit.SECONDS);
+        Future<TransactionDto> second = executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", 1L));
+        Future<TransactionDto> third = executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", 2L));
+        // 두 요청이 대기열에 쌓인 뒤에 첫 요청을 끝낸다.
+        Thread.sleep(200);
+        release.countDown();
+
+        // then
+        ExecutionException secondFailure = assertThrows(ExecutionException.class,
+                () -> second.get(5, TimeUnit.SECONDS));
+        ExecutionException thirdFailure = assertThrows(ExecutionException.class,
+                () -> third.get(5, TimeUnit.SECONDS));
+        assertThat(secondFailure.getCause()).isInstanceOf(StackOverflowError.class);
+        assertThat(thirdFailure.getCause()).isInstanceOf(StackOverflowError.class);
+        verify(lockService, times(2)).unlock("1000000000");
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("leader가 멈추면 가져간 요청은 결과 미확인으로 응답받는다")
+    void leaderStuck() throws Exception {
+        // given
+        ReflectionTestUtils.setField(groupCommitter, "waitMs", 300L);
+        ReflectionTestUtils.setField(groupCommitter, "resultWaitMs", 100L);
+        CountDownLatch firstCommitting = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch releaseSecond = new CountDownLatch(1);
+        AtomicInteger batches = new AtomicInteger();
+        willAnswer(invocation -> {
+            if (batches.incrementAndGet() == 1) {
+                firstCommitting.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } else {
+                // 대기하던 두 요청 중 하나가 leader가 되어 나머지 요청까지 가져간 뒤 멈춘다.
+                releaseSecond.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).given(transactionService).useBalanceGroup(anyString(), anyList());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        ExecutorCompletionService<TransactionDto> waiters = new ExecutorCompletionService<>(executor);
+
+        // when
+        executor.submit(() -> groupCommitter.useBalance(1L, "1000000000", 100L));
+        firstCommitting.await(5, TimeUnit.SECONDS);
+        waiters.submit(() -> groupCommitter.useBalance(1L, "1000000000", 1L));
+        waiters.submit(() -> groupCommitter.useBalance(1L, "1000000000", 2L));
+        Thread.sleep(50);
+        releaseFirst.countDown();
+
+        // then
+        // 멈춘 leader보다 leader가 가져간 요청이 먼저 응답받는다.
+        Future<TransactionDto> first = waiters.poll(2, TimeUnit.SECONDS);
+        assertThat(first).isNotNull();
+        ExecutionException failure = assertThrows(ExecutionException.class, first::get);
+        assertThat(failure.getCause()).isInstanceOf(AccountException.class);
+        assertThat(((AccountException) failure.getCause()).getErrorCode())
+                .isEqualTo(ErrorCode.TRANSACTION_RESULT_UNKNOWN);
+        releaseSecond.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("잔액 사용 요청만 묶어서 처리한다")
+    void handles() {
+        // given
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+
+        // when
+        boolean enabled = groupCommitter.handles(request);
+        ReflectionTestUtils.setField(groupCommitter, "enabled", false);
+        boolean disabled = groupCommitter.handles(request);
+
+        // then
+        assertThat(enabled).isTrue();
+        assertThat(disabled).isFalse();
+    }
+}
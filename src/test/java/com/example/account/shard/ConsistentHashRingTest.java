@@ -0,0 +1,91 @@
+package com.example.account.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+    private ConsistentHashRing installed;
+
+    @AfterEach
+    void tearDown() {
+        if (installed != null) {
+            ShardContext.uninstall(installed);
+        }
+    }
+
+    @Test
+    @DisplayName("연속된 계좌번호도 shard에 고르게 나뉜다")
+    void distribution() {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(4, 160);
+        int[] counts = new int[4];
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            counts[ring.shardOf(String.valueOf(1000000000 + i))]++;
+        }
+
+        // then
+        for (int count : counts) {
+            assertThat(count).isBetween(20_000, 30_000);
+        }
+    }
+
+    @Test
+    @DisplayName("shard를 추가하면 새 shard로 가는 계좌만 자리가 바뀐다")
+    void addShard() {
+        // given
+        ConsistentHashRing before = new ConsistentHashRing(4, 160);
+        ConsistentHashRing after = new ConsistentHashRing(5, 160);
+        int moved = 0;
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            String accountNumber = String.valueOf(1000000000 + i);
+            int from = before.shardOf(accountNumber);
+            int to = after.shardOf(accountNumber);
+            if (from != to) {
+                assertThat(to).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        // then
+        assertThat(moved).isBetween(15_000, 25_000);
+    }
+
+    @Test
+    @DisplayName("거래 id 앞 2자리에 shard가 들어가고 id만으로 shard를 찾는다")
+    void shardedId() {
+        // given
+        installed = new ConsistentHashRing(20, 16);
+        ShardContext.install(installed);
+
+        // when
+        String id = ShardContext.newId(17);
+
+        // then
+        assertThat(id).hasSize(32).startsWith("11");
+        assertThat(ShardContext.shardOfId(id)).isEqualTo(17);
+        assertThat(ShardContext.<String>call(3, ShardContext::newId)).startsWith("03");
+        // 형식이 맞지 않거나 없는 shard의 id는 기본 shard에서 조회한다.
+        assertThat(ShardContext.shardOfId("ff" + id.substring(2))).isZero();
+        assertThat(ShardContext.shardOfId("x")).isZero();
+    }
+
+    @Test
+    @DisplayName("shard를 나누지 않으면 id를 바꾸지 않는다")
+    void notSharded() {
+        // given
+        String id = ShardContext.<String>call(3, ShardContext::newId);
+
+        // then
+        assertThat(ShardContext.isSharded()).isFalse();
+        assertThat(id).hasSize(32);
+        assertThat(ShardContext.shardOf("1000000000")).isZero();
+        assertThat(ShardContext.shardOfId(id)).isZero();
+    }
+}
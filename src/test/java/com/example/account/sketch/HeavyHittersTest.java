@@ -0,0 +1,70 @@
+package com.example.account.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHittersTest {
+    @Test
+    @DisplayName("추정값은 실제 누적값보다 작지 않다")
+    void countMinSketchNeverUnderestimates() {
+        // given
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            sketch.add(String.valueOf(i), i);
+        }
+
+        // then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(sketch.estimate(String.valueOf(i))).isGreaterThanOrEqualTo(i);
+        }
+    }
+
+    @Test
+    @DisplayName("많은 key 중에서 점수가 큰 상위 k개를 찾는다")
+    void top() {
+        // given
+        HeavyHitters heavyHitters = new HeavyHitters(3, 4, 2048);
+
+        // when
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 500; i++) {
+                heavyHitters.add("account" + i, 1);
+            }
+            heavyHitters.add("hot1", 300);
+            heavyHitters.add("hot2", 200);
+            heavyHitters.add("hot3", 100);
+        }
+
+        // then
+        assertThat(heavyHitters.top()).containsExactly("hot1", "hot2", "hot3");
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 기록해도 합이 맞다")
+    void concurrentAdd() {
+        // given
+        HeavyHitters heavyHitters = new HeavyHitters(5, 4, 2048);
+
+        // when
+        IntStream.range(0, 8).parallel().forEach(thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                heavyHitters.add("hot", 1);
+                heavyHitters.add("account" + (i % 100), 1);
+            }
+        });
+
+        // then
+        List<String> top = heavyHitters.top();
+        assertThat(top.get(0)).isEqualTo("hot");
+        assertThat(heavyHitters.estimate("hot")).isGreaterThanOrEqualTo(80_000);
+        assertThat(top.stream().distinct().collect(Collectors.toList())).hasSize(5);
+    }
+}
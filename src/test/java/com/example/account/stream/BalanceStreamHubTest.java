@@ -0,0 +1,212 @@
+package com.example.account.stream;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.BalanceChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BalanceStreamHubTest {
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BalanceStreamHub hub;
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        hub = new BalanceStreamHub(redissonClient, objectMapper);
+        // 전송 스레드 대신 테스트에서 직접 실행한다.
+        Executor executor = tasks::add;
+        ReflectionTestUtils.setField(hub, "executor", executor);
+    }
+
+    @Test
+    @DisplayName("구독하면 현재 잔액을 먼저 보내고, 이후 변경을 보낸다")
+    void subscribe() {
+        // given
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(1L, emitter, () -> List.of(new AccountInfo("1000000000", 1000L)));
+
+        // when
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(1L, "1000000000", 900L)));
+        hub.onBalanceChanged(new BalanceChangedEvent(2L, change(2L, "2000000000", 500L)));
+        runTasks();
+
+        // then
+        assertThat(emitter.sent).hasSize(2);
+        assertThat(emitter.sent.get(0)).contains("event:snapshot");
+        assertThat(emitter.sent.get(1)).contains("event:balance").contains("id:1");
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("보내기 전에 쌓인 같은 계좌의 변경은 최신 것 하나만 보낸다")
+    void conflate() {
+        // given
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(1L, emitter, List::of);
+
+        // when
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(1L, "1000000000", 900L)));
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(3L, "1000000000", 700L)));
+        // 늦게 도착한 이전 이벤트는 무시된다.
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(2L, "1000000000", 800L)));
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(4L, "1000000001", 100L)));
+        runTasks();
+
+        // then
+        List<String> balances = emitter.sent.stream()
+                .filter(sent -> sent.contains("event:balance"))
+                .collect(Collectors.toList());
+        assertThat(balances).hasSize(2);
+        assertThat(String.join("", balances)).contains("id:3").contains("id:4")
+                .doesNotContain("id:1\n").doesNotContain("id:2\n");
+    }
+
+    @Test
+    @DisplayName("전송에 실패한 구독자는 제거된다")
+    void removeDisconnected() {
+        // given
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(1L, emitter, List::of);
+        emitter.failing = true;
+
+        // when
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(1L, "1000000000", 900L)));
+        runTasks();
+
+        // then
+        assertThat(hub.getSubscriberCount()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("전송이 오래 막힌 구독자는 끊고 다른 구독자에게는 계속 보낸다")
+    void dropSlowSubscriber() throws Exception {
+        // given
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 50L);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter();
+        hub.register(1L, slow, List::of);
+        slow.blocking = () -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        };
+        RecordingEmitter fast = new RecordingEmitter();
+        hub.register(2L, fast, List::of);
+
+        // when
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(1L, "1000000000", 900L)));
+        Thread sender = new Thread(tasks.remove(0));
+        sender.start();
+        sending.await(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        hub.dropSlowSubscribers();
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(2L, "1000000000", 800L)));
+        hub.onBalanceChanged(new BalanceChangedEvent(2L, change(3L, "2000000000", 500L)));
+        runTasks();
+        release.countDown();
+        sender.join(5000);
+
+        // then
+        assertThat(hub.getSlowDroppedCount()).isEqualTo(1);
+        assertThat(hub.getSubscriberCount()).isEqualTo(1);
+        assertThat(fast.sent).anyMatch(sent -> sent.contains("id:3"));
+        assertThat(slow.sent).noneMatch(sent -> sent.contains("id:2"));
+    }
+
+    @Test
+    @DisplayName("다른 서버에서 처리된 변경도 이 서버의 구독자에게 보내고 자신이 보낸 이벤트는 건너뛴다")
+    void deliverRemoteChange() throws Exception {
+        // given
+        RTopic topic = mock(RTopic.class);
+        given(redissonClient.getTopic(anyString(), any())).willReturn(topic);
+        ReflectionTestUtils.setField(hub, "clusterEnabled", true);
+        hub.init();
+        ReflectionTestUtils.setField(hub, "executor", (Executor) tasks::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.register(1L, emitter, List::of);
+
+        // when
+        hub.onBalanceChanged(new BalanceChangedEvent(1L, change(1L, "1000000000", 900L)));
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(topic).publish(published.capture());
+        // 자신이 보낸 이벤트가 topic으로 돌아온 경우
+        hub.onRemoteMessage((String) published.getValue());
+        hub.onRemoteMessage("other-node|1|" + objectMapper.writeValueAsString(change(2L, "1000000001", 300L)));
+        runTasks();
+        hub.shutdown();
+
+        // then
+        List<String> balances = emitter.sent.stream()
+                .filter(sent -> sent.contains("event:balance"))
+                .collect(Collectors.toList());
+        assertThat(balances).hasSize(2);
+        assertThat(balances.get(0)).contains("id:1");
+        assertThat(balances.get(1)).contains("id:2");
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static BalanceChangeEvent change(Long eventId, String accountNumber, Long balance) {
+        return BalanceChangeEvent.builder()
+                .eventId(eventId)
+                .accountNumber(accountNumber)
+                .amount(100L)
+                .balanceSnapshot(balance)
+                .build();
+    }
+
+    private interface Blocking {
+        void await() throws InterruptedException;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new ArrayList<>();
+        private boolean failing;
+        private volatile Blocking blocking;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("disconnected");
+            }
+            Blocking block = blocking;
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            sent.add(builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .collect(Collectors.joining()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.account.timer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    @Test
+    @DisplayName("만료 시각이 지난 항목만 꺼낸다")
+    void pollExpired() {
+        // given
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 10, 0L);
+        wheel.schedule("a", 250L);
+        wheel.schedule("b", 520L);
+        wheel.schedule("c", 550L);
+
+        // when
+        List<String> first = wheel.poll(300L, 10);
+        List<String> second = wheel.poll(530L, 10);
+        List<String> third = wheel.poll(600L, 10);
+
+        // then
+        assertThat(first).containsExactly("a");
+        assertThat(second).containsExactly("b");
+        assertThat(third).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("한 바퀴보다 먼 만료 시각은 해당 바퀴가 돌아올 때 꺼낸다")
+    void pollAfterRounds() {
+        // given
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 10, 0L);
+        wheel.schedule("far", 2_550L);
+
+        // when
+        List<String> beforeDeadline = wheel.poll(550L, 10);
+        List<String> sameSlotNextRound = wheel.poll(1_550L, 10);
+        List<String> afterDeadline = wheel.poll(2_600L, 10);
+
+        // then
+        assertThat(beforeDeadline).isEmpty();
+        assertThat(sameSlotNextRound).isEmpty();
+        assertThat(afterDeadline).containsExactly("far");
+    }
+
+    @Test
+    @DisplayName("만료된 항목은 batch 크기만큼 나눠서 꺼낸다")
+    void pollInBatches() {
+        // given
+        TimerWheel<Integer> wheel = new TimerWheel<>(Duration.ofMillis(100), 10, 0L);
+        for (int i = 0; i < 25; i++) {
+            wheel.schedule(i, 100L + i);
+        }
+
+        // when
+        List<Integer> first = wheel.poll(1_000L, 10);
+        List<Integer> second = wheel.poll(1_000L, 10);
+        List<Integer> third = wheel.poll(1_000L, 10);
+
+        // then
+        assertThat(first).hasSize(10);
+        assertThat(second).hasSize(10);
+        assertThat(third).hasSize(5);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("이미 지난 만료 시각으로 등록하면 다음 poll에서 바로 꺼낸다")
+    void scheduleInPast() {
+        // given
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 10, 1_000L);
+
+        // when
+        wheel.schedule("past", 100L);
+
+        // then
+        assertThat(wheel.poll(1_000L, 10)).containsExactly("past");
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.account.tracing;
+
+import com.example.account.logging.CorrelationIdFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceCollectorTest {
+    private TraceCollector traceCollector;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (traceCollector != null) {
+            traceCollector.shutdown();
+        }
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("자식 span은 부모 span id와 correlation id로 만든 trace id를 가진다")
+    void nestedSpans() {
+        // given
+        traceCollector = collector(0L);
+        MDC.put(CorrelationIdFilter.MDC_KEY, "0af7651916cd43dd8448eb211c80319c");
+
+        // when
+        try (Span root = Tracer.start("POST /transaction/use")) {
+            try (Span ignored = Tracer.start("lock.wait")) {
+                // lock 대기
+            }
+            try (Span ignored = Tracer.start("proceed")) {
+                try (Span ignored2 = Tracer.startChild("AccountRepository.findByAccountNumber")) {
+                    // 조회
+                }
+            }
+            assertThat(Tracer.current()).isSameAs(root);
+        }
+
+        // then
+        assertThat(Tracer.isTracing()).isFalse();
+        Map<String, Map<String, Object>> spans = byName(recentSpans());
+        assertThat(spans).hasSize(4);
+        Map<String, Object> root = spans.get("POST /transaction/use");
+        assertThat(root.get("traceId")).isEqualTo("0af7651916cd43dd8448eb211c80319c");
+        assertThat(root).doesNotContainKey("parentSpanId");
+        assertThat(spans.get("lock.wait").get("parentSpanId")).isEqualTo(root.get("spanId"));
+        assertThat(spans.get("lock.wait").get("traceId")).isEqualTo(root.get("traceId"));
+        assertThat(spans.get("AccountRepository.findByAccountNumber").get("parentSpanId"))
+                .isEqualTo(spans.get("proceed").get("spanId"));
+    }
+
+    @Test
+    @DisplayName("빠르고 샘플링되지 않은 trace는 남기지 않고, 느린 trace는 남긴다")
+    void keepOnlySlowTraces() throws Exception {
+        // given
+        traceCollector = collector(20L);
+
+        // when
+        try (Span ignored = Tracer.start("GET /account")) {
+            // 빠른 요청
+        }
+        try (Span ignored = Tracer.start("POST /transaction/use")) {
+            Thread.sleep(30);
+        }
+
+        // then
+        assertThat(byName(recentSpans())).containsOnlyKeys("POST /transaction/use");
+    }
+
+    @Test
+    @DisplayName("진행 중인 trace가 없으면 startChild는 기록하지 않는다")
+    void startChildWithoutTrace() {
+        // given
+        traceCollector = collector(0L);
+
+        // when
+        try (Span span = Tracer.startChild("AccountRepository.findAll")) {
+            span.setAttribute("ignored", true);
+        }
+
+        // then
+        assertThat(recentSpans()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("OTLP JSON 형식으로 span 이름, 부모, 속성, 오류 상태를 남긴다")
+    void otlpJson() {
+        // given
+        traceCollector = collector(0L);
+
+        // when
+        try (Span root = Tracer.start("POST /transaction/use")) {
+            root.setAttribute("http.status_code", 200);
+            Span child = Tracer.start("TransactionService.useBalance");
+            child.recordError(new IllegalStateException("boom"));
+            child.close();
+        }
+
+        // then
+        Map<String, Object> json = traceCollector.getRecentTraces(10);
+        List<Map<String, Object>> spans = spans(json);
+        assertThat(spans).hasSize(2);
+        Map<String, Object> child = spans.get(0);
+        Map<String, Object> root = spans.get(1);
+        assertThat(child.get("parentSpanId")).isEqualTo(root.get("spanId"));
+        assertThat(child.get("status")).isEqualTo(Map.of("code", 2, "message", "IllegalStateException: boom"));
+        assertThat(root.get("kind")).isEqualTo(2);
+        assertThat(root.get("attributes")).isEqualTo(List.of(Map.of(
+                "key", "http.status_code", "value", Map.of("intValue", "200"))));
+    }
+
+    private static TraceCollector collector(long slowThresholdMs) {
+        TraceCollector traceCollector = new TraceCollector(List.of());
+        ReflectionTestUtils.setField(traceCollector, "slowThresholdMs", slowThresholdMs);
+        ReflectionTestUtils.setField(traceCollector, "sampleRate", 0.0);
+        traceCollector.init();
+        return traceCollector;
+    }
+
+    private List<Map<String, Object>> recentSpans() {
+        return spans(traceCollector.getRecentTraces(10));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> spans(Map<String, Object> tracesData) {
+        Map<String, Object> resourceSpans =
+                ((List<Map<String, Object>>) tracesData.get("resourceSpans")).get(0);
+        Map<String, Object> scopeSpans =
+                ((List<Map<String, Object>>) resourceSpans.get("scopeSpans")).get(0);
+        return (List<Map<String, Object>>) scopeSpans.get("spans");
+    }
+
+    private static Map<String, Map<String, Object>> byName(List<Map<String, Object>> spans) {
+        Map<String, Map<String, Object>> byName = new HashMap<>();
+        spans.forEach(span -> byName.put((String) span.get("name"), span));
+        return byName;
+    }
+}